@@ -0,0 +1,108 @@
+package dev.snowdrop.rewrite.benchmarks;
+
+import dev.snowdrop.rewrite.config.RewriteConfig;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The projects the benchmarks run against: a copy of a project of the {@code test-project} folder, e.g.
+ * {@code spring-boot-todo-app}, or a project generated by the {@link SyntheticProjectGenerator}, e.g.
+ * {@code synthetic-10000}.
+ * <p>
+ * The projects are prepared in a temporary folder, so that the files written by the benchmarks (patch, write-back)
+ * don't change the projects of the repository. The folder of the test projects is set using the system property
+ * {@code rewrite.benchmarks.test-projects} (default: {@code test-project}).
+ */
+public final class BenchmarkProjects {
+
+    private static final String SYNTHETIC_PREFIX = "synthetic-";
+
+    /** The recipe used by the benchmarks: it changes the Java files having unused imports */
+    public static final String RECIPE = "org.openrewrite.java.RemoveUnusedImports";
+
+    private BenchmarkProjects() {
+    }
+
+    /**
+     * Prepare a project in a temporary folder.
+     *
+     * @param project the name of a test project or {@code synthetic-<javaFiles>}
+     * @return the folder of the project
+     * @throws IOException if the project can't be prepared
+     */
+    public static Path prepare(String project) throws IOException {
+        Path workDir = Files.createTempDirectory("rewrite-benchmark-");
+        if (project.startsWith(SYNTHETIC_PREFIX)) {
+            int javaFiles = Integer.parseInt(project.substring(SYNTHETIC_PREFIX.length()));
+            return SyntheticProjectGenerator.generate(workDir.resolve(project), javaFiles);
+        }
+
+        Path source = Paths.get(System.getProperty("rewrite.benchmarks.test-projects", "test-project")).resolve(project);
+        if (!Files.isDirectory(source)) {
+            throw new IllegalArgumentException("Unknown project " + project + ": " + source.toAbsolutePath() + " doesn't exist");
+        }
+        Path target = workDir.resolve(project);
+        try (Stream<Path> files = Files.walk(source)) {
+            files.filter(file -> !source.relativize(file).startsWith("target")).forEach(file -> {
+                try {
+                    Files.copy(file, target.resolve(source.relativize(file).toString()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        return target;
+    }
+
+    /**
+     * Delete a project prepared, with its work folder: the parent of the folder of the project.
+     *
+     * @param projectDir the folder of the project
+     * @throws IOException if the project can't be deleted
+     */
+    public static void delete(Path projectDir) throws IOException {
+        deleteRecursively(projectDir.getParent());
+    }
+
+    /**
+     * Delete a folder and its content.
+     *
+     * @param dir the folder
+     * @throws IOException if the folder can't be deleted
+     */
+    public static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Creates the configuration of a dry run of the benchmark recipe on a project.
+     *
+     * @param projectDir the folder of the project
+     * @param parallelism the number of workers
+     * @return the configuration
+     */
+    public static RewriteConfig config(Path projectDir, int parallelism) {
+        RewriteConfig cfg = new RewriteConfig();
+        cfg.setAppPath(projectDir);
+        cfg.setFqNameRecipe(RECIPE);
+        cfg.setExportDatatables(false);
+        cfg.setExclusions(Set.of());
+        cfg.setPlainTextMasks(Set.of());
+        cfg.setAdditionalJarPaths(List.of());
+        cfg.setDryRun(true);
+        cfg.setParallelism(parallelism);
+        return cfg;
+    }
+}
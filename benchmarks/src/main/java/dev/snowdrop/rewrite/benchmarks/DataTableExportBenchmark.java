@@ -0,0 +1,144 @@
+package dev.snowdrop.rewrite.benchmarks;
+
+import dev.snowdrop.rewrite.toolbox.StreamingDataTableStore;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openrewrite.Column;
+import org.openrewrite.CsvDataTableStore;
+import org.openrewrite.DataTable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Recipe;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Export of the rows of a data table: throughput of the rows written and size of the files, CSV against gzip compressed
+ * JSON lines. The size of the files is reported by the {@code bytes} counter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class DataTableExportBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    @Param({"CSV", "JSONL_GZ"})
+    String format;
+
+    private Path workDir;
+    private Path dir;
+    private Occurrences dataTable;
+    private Occurrences.Row[] rows;
+
+    /**
+     * The size of the files written by an export.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class FileSize {
+        public long bytes;
+    }
+
+    /**
+     * A data table similar to the search results: a row per match.
+     */
+    public static class Occurrences extends DataTable<Occurrences.Row> {
+
+        public Occurrences(Recipe recipe) {
+            super(recipe, "Occurrences", "The occurrences found.");
+        }
+
+        public static class Row {
+            @Column(displayName = "Source path", description = "The path of the source file.")
+            private final String sourcePath;
+            @Column(displayName = "Line", description = "The line of the match.")
+            private final int line;
+            @Column(displayName = "Match", description = "The code matched.")
+            private final String match;
+
+            public Row(String sourcePath, int line, String match) {
+                this.sourcePath = sourcePath;
+                this.line = line;
+                this.match = match;
+            }
+
+            public String getSourcePath() {
+                return sourcePath;
+            }
+
+            public int getLine() {
+                return line;
+            }
+
+            public String getMatch() {
+                return match;
+            }
+        }
+    }
+
+    @Setup
+    public void setup() {
+        dataTable = new Occurrences(Recipe.noop());
+        rows = new Occurrences.Row[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            rows[i] = new Occurrences.Row("src/main/java/com/acme/module" + (i % 100) + "/Service" + (i % 1000) + ".java",
+                    i % 500, "@Autowired private Repository" + (i % 50) + " repository;");
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void createDir() throws IOException {
+        // The work folder, parent of the folder of the data tables, is deleted after each export
+        workDir = Files.createTempDirectory("rewrite-datatables");
+        dir = workDir.resolve("datatables");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteDir() throws IOException {
+        BenchmarkProjects.deleteRecursively(workDir);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void export(FileSize fileSize) throws IOException {
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        if ("CSV".equals(format)) {
+            CsvDataTableStore store = new CsvDataTableStore(dir);
+            for (Occurrences.Row row : rows) {
+                store.insertRow(dataTable, ctx, row);
+            }
+            store.close();
+        } else {
+            StreamingDataTableStore store = new StreamingDataTableStore(dir, StreamingDataTableStore.DEFAULT_BUFFER_SIZE,
+                    null, true);
+            for (Occurrences.Row row : rows) {
+                store.insertRow(dataTable, ctx, row);
+            }
+            store.close();
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            fileSize.bytes += files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package dev.snowdrop.rewrite.benchmarks;
+
+import dev.snowdrop.rewrite.toolbox.MavenArtifactResolver;
+import org.apache.maven.model.Model;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the classpath of a project from its pom, with and without the classpath cache. The first iterations
+ * download the missing artifacts to the local Maven repository.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DependencyResolutionBenchmark {
+
+    @Param({"spring-boot-todo-app", "spring-boot-app"})
+    String project;
+
+    private Path projectDir;
+
+    @Setup
+    public void setup() throws IOException {
+        projectDir = BenchmarkProjects.prepare(project);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkProjects.delete(projectDir);
+    }
+
+    @Benchmark
+    public List<Path> resolve() {
+        try (MavenArtifactResolver resolver = new MavenArtifactResolver()) {
+            Model model = resolver.loadModel(projectDir.resolve("pom.xml"));
+            return resolver.resolveArtifactsWithDependencies(model);
+        }
+    }
+
+    @Benchmark
+    public List<Path> resolveCached() {
+        try (MavenArtifactResolver resolver = new MavenArtifactResolver()) {
+            Model model = resolver.loadModel(projectDir.resolve("pom.xml"));
+            return resolver.resolveArtifactsWithDependencies(model, projectDir.resolve("target/rewrite/classpath-cache"));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package dev.snowdrop.rewrite.benchmarks;
+
+import dev.snowdrop.rewrite.toolbox.FileInventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discovery of the files of a project to be parsed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DiscoveryBenchmark {
+
+    @Param({"spring-boot-todo-app", "synthetic-1000", "synthetic-10000"})
+    String project;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    private Path projectDir;
+
+    @Setup
+    public void setup() throws IOException {
+        projectDir = BenchmarkProjects.prepare(project);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkProjects.delete(projectDir);
+    }
+
+    @Benchmark
+    public FileInventory scan() throws IOException {
+        return FileInventory.scan(projectDir, Set.of(), 10, parallelism);
+    }
+}
@@ -0,0 +1,61 @@
+package dev.snowdrop.rewrite.benchmarks;
+
+import dev.snowdrop.rewrite.service.RewriteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openrewrite.LargeSourceSet;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the files of a project. The Java type cache is cleared before each parsing, the classpath resolved from
+ * the pom is reused.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ParsingBenchmark {
+
+    @Param({"spring-boot-todo-app", "synthetic-1000", "synthetic-10000"})
+    String project;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    private Path projectDir;
+    private RewriteService service;
+
+    @Setup
+    public void setup() throws IOException {
+        projectDir = BenchmarkProjects.prepare(project);
+        service = new RewriteService(BenchmarkProjects.config(projectDir, parallelism));
+        service.createExecutionContext();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkProjects.delete(projectDir);
+    }
+
+    @Benchmark
+    public LargeSourceSet parse() {
+        service.clearJavaTypeCache();
+        service.scanLoadResources();
+        return service.getSourceSet();
+    }
+}
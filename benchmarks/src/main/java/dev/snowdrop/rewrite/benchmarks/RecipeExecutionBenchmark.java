@@ -0,0 +1,59 @@
+package dev.snowdrop.rewrite.benchmarks;
+
+import dev.snowdrop.rewrite.service.RewriteService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Recipe;
+import org.openrewrite.RecipeRun;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution of a recipe on the source files parsed from a project.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecipeExecutionBenchmark {
+
+    @Param({"spring-boot-todo-app", "synthetic-1000", "synthetic-10000"})
+    String project;
+
+    private Path projectDir;
+    private RewriteService service;
+    private Recipe recipe;
+
+    @Setup
+    public void setup() throws Exception {
+        projectDir = BenchmarkProjects.prepare(project);
+        service = new RewriteService(BenchmarkProjects.config(projectDir, 0));
+        service.init();
+        recipe = service.getEnvironment().activateRecipes(BenchmarkProjects.RECIPE);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkProjects.delete(projectDir);
+    }
+
+    @Benchmark
+    public RecipeRun run() {
+        return recipe.run(service.getSourceSet(), new InMemoryExecutionContext());
+    }
+}
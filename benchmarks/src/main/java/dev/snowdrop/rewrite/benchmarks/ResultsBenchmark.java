@@ -0,0 +1,82 @@
+package dev.snowdrop.rewrite.benchmarks;
+
+import dev.snowdrop.rewrite.ResultsContainer;
+import dev.snowdrop.rewrite.service.RewriteService;
+import dev.snowdrop.rewrite.toolbox.PatchWriter;
+import dev.snowdrop.rewrite.toolbox.SourceFileWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.RecipeRun;
+import org.openrewrite.Result;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processing of the results of a recipe run: classification of the results, creation of the patch and write-back of
+ * the changed files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ResultsBenchmark {
+
+    @Param({"spring-boot-todo-app", "synthetic-1000", "synthetic-10000"})
+    String project;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    private Path projectDir;
+    private Map<String, RecipeRun> runs;
+    private List<Result> results;
+
+    @Setup
+    public void setup() throws Exception {
+        projectDir = BenchmarkProjects.prepare(project);
+        RewriteService service = new RewriteService(BenchmarkProjects.config(projectDir, 0));
+        service.init();
+        RecipeRun run = service.getEnvironment().activateRecipes(BenchmarkProjects.RECIPE)
+                .run(service.getSourceSet(), new InMemoryExecutionContext());
+        runs = Map.of(BenchmarkProjects.RECIPE, run);
+        results = run.getChangeset().getAllResults();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        BenchmarkProjects.delete(projectDir);
+    }
+
+    @Benchmark
+    public ResultsContainer classify() {
+        return new ResultsContainer(runs);
+    }
+
+    @Benchmark
+    public List<Path> patch() throws IOException {
+        return new PatchWriter(projectDir, projectDir.resolve("target/rewrite"), false, false, parallelism)
+                .write(results, Result::diff);
+    }
+
+    @Benchmark
+    public SourceFileWriter.Stats writeBack() {
+        return new SourceFileWriter(projectDir, new InMemoryExecutionContext(), parallelism).write(results, List.of());
+    }
+}
@@ -0,0 +1,130 @@
+package dev.snowdrop.rewrite.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Generate a Maven project with a given number of Java files, to measure how the pipeline scales with the size of a
+ * project.
+ * <p>
+ * The classes are spread over packages of 100 classes. Each class calls the previous one, so that the parser has to
+ * resolve the types declared in other files, and imports {@code java.util.List} without using it, so that
+ * {@code org.openrewrite.java.RemoveUnusedImports} changes every Java file. A properties and a YAML file are generated
+ * every 10 classes.
+ * <p>
+ * Usage: {@code java -cp benchmarks.jar dev.snowdrop.rewrite.benchmarks.SyntheticProjectGenerator <dir> <javaFiles>}
+ */
+public class SyntheticProjectGenerator {
+
+    private static final int CLASSES_PER_PACKAGE = 100;
+    private static final int CLASSES_PER_RESOURCE = 10;
+
+    private SyntheticProjectGenerator() {
+    }
+
+    /**
+     * Generate the project.
+     *
+     * @param root the folder of the project, created if needed
+     * @param javaFiles the number of Java files to generate
+     * @return the folder of the project
+     * @throws IOException if a file can't be written
+     */
+    public static Path generate(Path root, int javaFiles) throws IOException {
+        Files.createDirectories(root);
+        Files.writeString(root.resolve("pom.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>dev.snowdrop.benchmarks</groupId>
+                    <artifactId>synthetic-%d</artifactId>
+                    <version>1.0.0-SNAPSHOT</version>
+                    <properties>
+                        <maven.compiler.release>21</maven.compiler.release>
+                    </properties>
+                </project>
+                """.formatted(javaFiles));
+
+        Path javaDir = root.resolve("src/main/java");
+        Path resourcesDir = root.resolve("src/main/resources");
+        Files.createDirectories(resourcesDir);
+        for (int i = 0; i < javaFiles; i++) {
+            String pkg = packageOf(i);
+            Path pkgDir = javaDir.resolve(pkg.replace('.', '/'));
+            Files.createDirectories(pkgDir);
+            Files.writeString(pkgDir.resolve("Service" + i + ".java"), javaSource(i));
+
+            if (i % CLASSES_PER_RESOURCE == 0) {
+                Files.writeString(resourcesDir.resolve("service-" + i + ".properties"), """
+                        service.name=Service%1$d
+                        service.enabled=true
+                        service.timeout=%1$d
+                        """.formatted(i));
+                Files.writeString(resourcesDir.resolve("service-" + i + ".yaml"), """
+                        service:
+                          name: Service%1$d
+                          enabled: true
+                          tags:
+                            - generated
+                            - benchmark
+                        """.formatted(i));
+            }
+        }
+        return root;
+    }
+
+    private static String packageOf(int i) {
+        return "com.example.generated.p" + (i / CLASSES_PER_PACKAGE);
+    }
+
+    private static String javaSource(int i) {
+        String previous = i == 0 ? null : packageOf(i - 1) + ".Service" + (i - 1);
+        StringBuilder sb = new StringBuilder();
+        sb.append("package ").append(packageOf(i)).append(";\n\n");
+        sb.append("import java.util.HashMap;\n");
+        sb.append("import java.util.List;\n");
+        sb.append("import java.util.Map;\n\n");
+        sb.append("/**\n * Generated service ").append(i).append("\n */\n");
+        if (i % 7 == 0) {
+            sb.append("@Deprecated\n");
+        }
+        sb.append("public class Service").append(i).append(" {\n\n");
+        sb.append("    private final Map<String, Integer> counters = new HashMap<>();\n");
+        if (previous != null) {
+            sb.append("    private final ").append(previous).append(" delegate = new ").append(previous).append("();\n");
+        }
+        sb.append("\n    public int call(String name) {\n");
+        sb.append("        int count = counters.merge(name, 1, Integer::sum);\n");
+        if (previous != null) {
+            sb.append("        count += delegate.call(name);\n");
+        }
+        sb.append("        return count;\n");
+        sb.append("    }\n\n");
+        sb.append("    public String describe() {\n");
+        sb.append("        StringBuilder sb = new StringBuilder(\"Service").append(i).append("\");\n");
+        sb.append("        for (Map.Entry<String, Integer> entry : counters.entrySet()) {\n");
+        sb.append("            sb.append(' ').append(entry.getKey()).append('=').append(entry.getValue());\n");
+        sb.append("        }\n");
+        sb.append("        return sb.toString();\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Generate a synthetic project from the command line.
+     *
+     * @param args the folder of the project and the number of Java files
+     * @throws IOException if a file can't be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: SyntheticProjectGenerator <dir> <javaFiles>");
+            System.exit(1);
+        }
+        Path root = generate(Paths.get(args[0]), Integer.parseInt(args[1]));
+        System.out.println("Project generated: " + root.toAbsolutePath());
+    }
+}
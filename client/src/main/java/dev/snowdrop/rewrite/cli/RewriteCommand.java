@@ -21,11 +21,19 @@
 
 package dev.snowdrop.rewrite.cli;
 
+import dev.snowdrop.rewrite.RecipeStats;
 import dev.snowdrop.rewrite.ResultsContainer;
+import dev.snowdrop.rewrite.RunProfile;
+import dev.snowdrop.rewrite.batch.BatchRunner;
 import dev.snowdrop.rewrite.cli.logging.LoggerUtils;
 import dev.snowdrop.rewrite.cli.logging.LoggingConfiguration;
 import dev.snowdrop.rewrite.config.RewriteConfig;
+import dev.snowdrop.rewrite.daemon.DaemonClient;
+import dev.snowdrop.rewrite.daemon.DaemonRequest;
+import dev.snowdrop.rewrite.daemon.DaemonResponse;
+import dev.snowdrop.rewrite.daemon.RewriteDaemon;
 import dev.snowdrop.rewrite.service.RewriteService;
+import dev.snowdrop.rewrite.watch.ProjectWatcher;
 import io.quarkus.picocli.runtime.annotations.TopCommand;
 import io.quarkus.runtime.LaunchMode;
 import jakarta.inject.Inject;
@@ -33,6 +41,8 @@ import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import picocli.CommandLine;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 
@@ -56,6 +66,7 @@ public class RewriteCommand implements Runnable {
 
     @CommandLine.Parameters(
             index = "0",
+            arity = "0..1",
             description = "The root directory of the project to analyze"
     )
     Path projectRoot;
@@ -95,6 +106,12 @@ public class RewriteCommand implements Runnable {
     )
     boolean exportDatatables;
 
+    @CommandLine.Option(
+            names = {"--datatable-format"},
+            description = "Format of the datatables exported: csv (default), jsonl-gz (gzip compressed JSON lines with a schema header) or none"
+    )
+    String datatableFormat;
+
     @CommandLine.Option(
             names = {"--exclusions"},
             description = "File patterns to exclude (can be specified multiple times)",
@@ -116,6 +133,142 @@ public class RewriteCommand implements Runnable {
     )
     int sizeThresholdMb;
 
+    @CommandLine.Option(
+            names = {"--parallelism"},
+            description = "Number of workers used to parse the Java files, 0 to use all the available processors (default: 1)"
+    )
+    Integer parallelism;
+
+    @CommandLine.Option(
+            names = {"--lst-cache"},
+            description = "Cache the parsed source files under target/rewrite/lst-cache and only parse the files modified since the previous run"
+    )
+    boolean lstCache;
+
+    @CommandLine.Option(
+            names = {"--patch-gzip"},
+            description = "Compress the patch file using gzip (rewrite.patch.gz)"
+    )
+    boolean patchCompressed;
+
+    @CommandLine.Option(
+            names = {"--patch-per-module"},
+            description = "Create one patch file per Maven module"
+    )
+    boolean patchPerModule;
+
+    @CommandLine.Option(
+            names = {"--recipe-catalog"},
+            arity = "1",
+            defaultValue = "true",
+            description = "Load the recipes of the jars using their catalog (~/.rewrite/recipe-catalog) instead of scanning all their classes (default: ${DEFAULT-VALUE})"
+    )
+    boolean recipeCatalog;
+
+    @CommandLine.Option(
+            names = {"--parallel-recipes"},
+            description = "Run the recipes of the YAML file concurrently when all of them are search recipes, each one being reported separately"
+    )
+    boolean parallelRecipes;
+
+    @CommandLine.Option(
+            names = {"--max-matches"},
+            defaultValue = "0",
+            description = "Stop visiting the source files once the recipes matched this number of files, without creating the patch (default: no limit)"
+    )
+    int maxMatches;
+
+    @CommandLine.Option(
+            names = {"--memory-budget"},
+            defaultValue = "0",
+            description = "Percentage of the heap after which the parsing is degraded (big files skipped, resources parsed as plain text, trees stored on disk) instead of failing with an OutOfMemoryError (default: no budget)"
+    )
+    int memoryBudgetPercent;
+
+    @CommandLine.Option(
+            names = {"--jfr-events"},
+            description = "Emit Java Flight Recorder events for the discovery, parsing, dependency resolution, recipe runs, diffs and writes"
+    )
+    boolean jfrEvents;
+
+    @CommandLine.Option(
+            names = {"--disk-source-set"},
+            description = "Store the parsed source files under target/rewrite/source-set instead of keeping all of them in the heap"
+    )
+    boolean diskSourceSet;
+
+    @CommandLine.Option(
+            names = {"--working-set-size"},
+            defaultValue = "1000",
+            description = "Number of parsed source files kept in the heap when the source set is stored on disk (default: ${DEFAULT-VALUE})"
+    )
+    int workingSetSize;
+
+    @CommandLine.Option(
+            names = {"--daemon"},
+            description = "Start a daemon keeping the recipes and the parsed projects in memory to execute the runs sent using --use-daemon"
+    )
+    boolean daemon;
+
+    @CommandLine.Option(
+            names = {"--use-daemon"},
+            description = "Send the run to the daemon, or run it in process when no daemon is running"
+    )
+    boolean useDaemon;
+
+    @CommandLine.Option(
+            names = {"--daemon-stop"},
+            description = "Stop the daemon"
+    )
+    boolean daemonStop;
+
+    @CommandLine.Option(
+            names = {"--daemon-socket"},
+            description = "Path of the socket of the daemon (default: ~/.rewrite/daemon.sock)"
+    )
+    Path daemonSocket;
+
+    @CommandLine.Option(
+            names = {"--since"},
+            description = "Only parse and process the files changed since this git revision (e.g. main, HEAD~1), with the poms of their modules"
+    )
+    String sinceRevision;
+
+    @CommandLine.Option(
+            names = {"--files"},
+            split = ",",
+            description = "Only parse and process these files (relative to the project), with the poms of their modules"
+    )
+    List<String> changedFiles = new ArrayList<>();
+
+    @CommandLine.Option(
+            names = {"--watch"},
+            description = "Keep the project parsed, and run the recipes again in dry run mode each time files are saved, printing the diffs"
+    )
+    boolean watch;
+
+    @CommandLine.Option(
+            names = {"--batch"},
+            split = ",",
+            description = "Run the recipes on several projects: their root folders, or files listing the root folders (one per line)"
+    )
+    List<Path> batch = new ArrayList<>();
+
+    @CommandLine.Option(
+            names = {"--batch-concurrency"},
+            defaultValue = "2",
+            description = "Number of projects of the batch processed concurrently, 0 to use all the available processors (default: ${DEFAULT-VALUE})"
+    )
+    int batchConcurrency;
+
+    @CommandLine.Option(
+            names = {"--profile"},
+            arity = "0..1",
+            fallbackValue = "table",
+            description = "Report the wall time, CPU time, allocated bytes and peak heap of each phase: table (default) or json"
+    )
+    String profile;
+
     @CommandLine.Option(
             names = {"-d", "--dry-run"},
             arity = "1",
@@ -157,6 +310,23 @@ public class RewriteCommand implements Runnable {
         }
 
         try {
+            Path socketPath = daemonSocket != null ? daemonSocket : RewriteDaemon.defaultSocketPath();
+            if (daemonStop) {
+                DaemonResponse response = new DaemonClient(socketPath).send(DaemonRequest.stop());
+                logger.info(response.message());
+                return;
+            }
+            if (daemon) {
+                try (RewriteDaemon rewriteDaemon = new RewriteDaemon(socketPath, RewriteDaemon.DEFAULT_MAX_PROJECTS)) {
+                    rewriteDaemon.serve();
+                }
+                return;
+            }
+            if (projectRoot == null && batch.isEmpty()) {
+                throw new CommandLine.ParameterException(spec.commandLine(),
+                        "Missing required parameter: the root directory of the project to analyze");
+            }
+
             // Use injected defaults if not specified via command line
             if (sizeThresholdMb == 0) {
                 sizeThresholdMb = config.sizeThresholdMb();
@@ -170,27 +340,148 @@ public class RewriteCommand implements Runnable {
             if (exclusions.isEmpty() && config.exclusions().isPresent()) {
                 exclusions.addAll(Arrays.asList(config.exclusions().get().split(",")));
             }
+            if (parallelism == null) {
+                parallelism = config.parallelism();
+            }
+            if (!lstCache) {
+                lstCache = config.lstCache();
+            }
+
+            RunProfile.Format profileFormat = null;
+            if (profile != null) {
+                try {
+                    profileFormat = RunProfile.Format.valueOf(profile.toUpperCase(Locale.ROOT));
+                } catch (IllegalArgumentException e) {
+                    throw new CommandLine.ParameterException(spec.commandLine(),
+                            "Invalid value for option '--profile': " + profile + " (expected: table or json)");
+                }
+            }
+
+            if (datatableFormat != null) {
+                try {
+                    toDatatableFormat(datatableFormat);
+                } catch (IllegalArgumentException e) {
+                    throw new CommandLine.ParameterException(spec.commandLine(),
+                            "Invalid value for option '--datatable-format': " + datatableFormat + " (expected: csv, jsonl-gz or none)");
+                }
+            }
 
             RewriteConfig cfg = setupRewriteCfg();
+            if (watch && !dryRun) {
+                logger.warn("The recipes are executed in dry run mode when watching the project");
+                cfg.setDryRun(true);
+            }
+
+            if (!batch.isEmpty()) {
+                runBatch(cfg);
+                return;
+            }
+
+            if (useDaemon) {
+                DaemonClient client = new DaemonClient(socketPath);
+                if (client.isRunning()) {
+                    runOnDaemon(client, cfg);
+                    return;
+                }
+                logger.warnf("No rewrite daemon listening on %s, running the recipes in process", socketPath);
+            }
 
             // Use RewriteService class
             logger.info("Launching the rewrite service ...");
-            RewriteService rewriteService;
-            try {
-                rewriteService = new RewriteService(cfg);
+            try (RewriteService rewriteService = new RewriteService(cfg)) {
                 rewriteService.init();
                 ResultsContainer results = rewriteService.runScanner();
                 rewriteService.showResults(results);
+                if (profileFormat != null) {
+                    printProfile(rewriteService.getProfile(), results, profileFormat);
+                }
+                if (watch) {
+                    try (ProjectWatcher watcher = new ProjectWatcher(rewriteService, cfg.getAppPath(), System.out,
+                            ProjectWatcher.DEFAULT_QUIET_PERIOD_MS)) {
+                        watcher.watch();
+                    }
+                }
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
 
+        } catch (CommandLine.ParameterException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Rewrite service failed !", e);
             System.exit(1);
         }
     }
 
+    /**
+     * Print the profile of the run: the table is logged, the JSON document is written to the standard output so that it
+     * can be piped to another tool
+     *
+     * @param runProfile the profile of the run
+     * @param results the results of the run, with the statistics of the recipes
+     * @param format the format of the profile
+     */
+    private void printProfile(RunProfile runProfile, ResultsContainer results, RunProfile.Format format) {
+        if (format == RunProfile.Format.JSON) {
+            System.out.println(runProfile.toJson());
+        } else {
+            logger.info("Profile of the run:\n" + runProfile.toTable());
+            logger.info("Recipes of the run:\n" + RecipeStats.toTable(results.getRecipeStats().values()));
+        }
+    }
+
+    /**
+     * Run the recipes on the projects of the batch and log the summary
+     *
+     * @param cfg the RewriteConfig used for all the projects
+     * @throws IOException if a file listing projects can't be read
+     */
+    private void runBatch(RewriteConfig cfg) throws IOException {
+        List<Path> roots = new ArrayList<>();
+        if (projectRoot != null) {
+            roots.add(projectRoot);
+        }
+        for (Path entry : batch) {
+            if (Files.isRegularFile(entry)) {
+                roots.addAll(BatchRunner.readProjectList(entry));
+            } else {
+                roots.add(entry);
+            }
+        }
+
+        logger.info("Launching the rewrite batch ...");
+        BatchRunner.Summary summary = new BatchRunner(cfg, batchConcurrency).run(roots);
+        logger.info("Summary of the batch:\n" + summary.toTable());
+        if (summary.failed() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Send the run to the daemon and log the files changed
+     *
+     * @param client the client of the daemon
+     * @param cfg the RewriteConfig of the run
+     * @throws IOException if the daemon can't be reached
+     */
+    private void runOnDaemon(DaemonClient client, RewriteConfig cfg) throws IOException {
+        logger.info("Sending the run to the rewrite daemon ...");
+        DaemonResponse response = client.send(DaemonRequest.run(cfg));
+        if (!response.success()) {
+            logger.error("Rewrite daemon failed: " + response.message());
+            System.exit(1);
+        }
+        logger.infof("%s (project %s)", response.message(), response.reparsed() ? "parsed" : "already parsed");
+        response.generated().forEach(path -> logger.info("Generated: " + path));
+        response.deleted().forEach(path -> logger.info("Deleted: " + path));
+        response.moved().forEach(path -> logger.info("Moved: " + path));
+        response.refactored().forEach(path -> logger.info("Changed: " + path));
+    }
+
+    private static RewriteConfig.DatatableFormat toDatatableFormat(String format) {
+        return RewriteConfig.DatatableFormat.valueOf(format.replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
     /**
      * Use the client parameters to create the RewriteConfig
      *
@@ -198,7 +489,10 @@ public class RewriteCommand implements Runnable {
      */
     public RewriteConfig setupRewriteCfg() {
         RewriteConfig cfg = new RewriteConfig();
-        cfg.setAppPath(projectRoot.normalize().toAbsolutePath());
+        // The path is set per project when running a batch
+        if (projectRoot != null) {
+            cfg.setAppPath(projectRoot.normalize().toAbsolutePath());
+        }
         cfg.setAdditionalJarPaths(additionalJarPaths);
         if (recipeName != null) {
             cfg.setFqNameRecipe(recipeName);
@@ -208,9 +502,25 @@ public class RewriteCommand implements Runnable {
             cfg.setYamlRecipesPath(yamlRecipesPath);
         }
         cfg.setExportDatatables(exportDatatables);
+        if (datatableFormat != null) {
+            cfg.setDatatableFormat(toDatatableFormat(datatableFormat));
+        }
         cfg.setExclusions(exclusions);
         cfg.setPlainTextMasks(plainTextMasks);
         cfg.setDryRun(dryRun);
+        cfg.setParallelism(parallelism != null ? parallelism : 1);
+        cfg.setLstCache(lstCache);
+        cfg.setPatchCompressed(patchCompressed);
+        cfg.setPatchPerModule(patchPerModule);
+        cfg.setRecipeCatalog(recipeCatalog);
+        cfg.setJfrEvents(jfrEvents);
+        cfg.setDiskSourceSet(diskSourceSet);
+        cfg.setWorkingSetSize(workingSetSize);
+        cfg.setSinceRevision(sinceRevision);
+        cfg.setChangedFiles(changedFiles);
+        cfg.setParallelRecipes(parallelRecipes);
+        cfg.setMaxMatches(maxMatches);
+        cfg.setMemoryBudgetPercent(memoryBudgetPercent);
         return cfg;
     }
 }
\ No newline at end of file
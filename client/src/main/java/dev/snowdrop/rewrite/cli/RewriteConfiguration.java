@@ -77,6 +77,24 @@ public interface RewriteConfiguration {
     @WithDefault("false")
     boolean failOnInvalidActiveRecipes();
 
+    /**
+     * Number of workers used to parse the Java files, 0 to use all the available processors.
+     * Can be overridden with REWRITE_PARALLELISM environment variable.
+     *
+     * @return the parsing parallelism
+     */
+    @WithDefault("1")
+    int parallelism();
+
+    /**
+     * Whether to cache the parsed source files under target/rewrite/lst-cache.
+     * Can be overridden with REWRITE_LST_CACHE environment variable.
+     *
+     * @return true if the LST cache is enabled
+     */
+    @WithDefault("false")
+    boolean lstCache();
+
     /**
      * Comma-separated list of plain text file masks.
      * Can be overridden with REWRITE_PLAIN_TEXT_MASKS environment variable.
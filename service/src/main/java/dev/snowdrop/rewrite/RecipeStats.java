@@ -0,0 +1,146 @@
+package dev.snowdrop.rewrite;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.snowdrop.rewrite.toolbox.StreamingDataTableStore;
+import org.openrewrite.RecipeRun;
+import org.openrewrite.Result;
+import org.openrewrite.config.RecipeDescriptor;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * The work done by a recipe during a run: the files it changed, the rows it inserted in the data tables, the number of
+ * source files it visited and the time spent visiting them.
+ * <p>
+ * The statistics are collected from what OpenRewrite records anyway: the recipes which made the changes of each result,
+ * the {@code org.openrewrite.table.RecipeRunStats} data table and the rows counted by the
+ * {@link StreamingDataTableStore}, so that collecting them doesn't slow down the run. The recipes nested in a declarative
+ * recipe get their own statistics.
+ *
+ * @param recipe the name of the recipe
+ * @param filesChanged the number of files changed by the recipe or by the recipes it contains
+ * @param datatableRows the number of rows inserted by the recipe in the data tables
+ * @param sourceFiles the number of source files visited by the recipe
+ * @param sourceFilesWithResults the number of source files visited for which the recipe produced a result
+ * @param scanNanos the cumulative time spent scanning the source files
+ * @param editNanos the cumulative time spent editing the source files
+ */
+public record RecipeStats(String recipe, int filesChanged, long datatableRows, long sourceFiles, long sourceFilesWithResults,
+                          long scanNanos, long editNanos) {
+
+    private static final String RECIPE_RUN_STATS = "org.openrewrite.table.RecipeRunStats";
+
+    /**
+     * Returns the cumulative time spent visiting the source files.
+     *
+     * @return the scan and edit time
+     */
+    public long visitNanos() {
+        return scanNanos + editNanos;
+    }
+
+    /**
+     * Collects the statistics of the recipes from their runs. The statistics of a recipe run several times (e.g. the
+     * same recipe declared twice) are summed.
+     *
+     * @param recipeRuns the recipe runs
+     * @return the statistics keyed by recipe name, the slowest recipes first
+     */
+    public static Map<String, RecipeStats> collect(Collection<RecipeRun> recipeRuns) {
+        Map<String, Counters> counters = new LinkedHashMap<>();
+        ObjectMapper mapper = new ObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        for (RecipeRun recipeRun : recipeRuns) {
+            if (recipeRun == null) {
+                continue;
+            }
+            for (Result result : recipeRun.getChangeset().getAllResults()) {
+                // A recipe is counted once per file, even when it is nested in several recipes which made changes
+                Set<String> recipes = new HashSet<>();
+                collectNames(result.getRecipeDescriptorsThatMadeChanges(), recipes);
+                recipes.forEach(name -> counters.computeIfAbsent(name, Counters::new).filesChanged++);
+            }
+            if (!(recipeRun.getDataTableStore() instanceof StreamingDataTableStore store)) {
+                continue;
+            }
+            store.getRowCountsByRecipe().forEach((name, rows) -> counters.computeIfAbsent(name, Counters::new).datatableRows += rows);
+            try (Stream<?> rows = store.getRows(RECIPE_RUN_STATS, null)) {
+                rows.forEach(row -> {
+                    Map<?, ?> values = mapper.convertValue(row, Map.class);
+                    if (!(values.get("recipe") instanceof String name)) {
+                        return;
+                    }
+                    Counters recipe = counters.computeIfAbsent(name, Counters::new);
+                    recipe.sourceFiles += longValue(values.get("sourceFiles"));
+                    recipe.sourceFilesWithResults += longValue(values.get("sourceFilesWithResults"));
+                    recipe.scanNanos += longValue(values.get("scanTotalTime"));
+                    recipe.editNanos += longValue(values.get("editTotalTime"));
+                });
+            }
+        }
+        Map<String, RecipeStats> stats = new LinkedHashMap<>();
+        counters.values().stream()
+                .map(Counters::toStats)
+                .sorted(Comparator.comparingLong(RecipeStats::visitNanos).reversed())
+                .forEach(recipe -> stats.put(recipe.recipe(), recipe));
+        return stats;
+    }
+
+    /**
+     * Formats the statistics of the recipes as a table.
+     *
+     * @param stats the statistics of the recipes
+     * @return the table
+     */
+    public static String toTable(Collection<RecipeStats> stats) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-60s %10s %10s %10s %12s %12s%n", "Recipe", "Changed", "Rows", "Visited", "Scan (ms)", "Edit (ms)"));
+        for (RecipeStats recipe : stats) {
+            sb.append(String.format("%-60s %10d %10d %10d %12d %12d%n", recipe.recipe(), recipe.filesChanged(),
+                    recipe.datatableRows(), recipe.sourceFiles(), recipe.scanNanos() / 1_000_000,
+                    recipe.editNanos() / 1_000_000));
+        }
+        return sb.toString();
+    }
+
+    private static void collectNames(List<RecipeDescriptor> descriptors, Set<String> names) {
+        for (RecipeDescriptor descriptor : descriptors) {
+            names.add(descriptor.getName());
+            collectNames(descriptor.getRecipeList() != null ? descriptor.getRecipeList() : List.of(), names);
+        }
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number number ? number.longValue() : 0;
+    }
+
+    /**
+     * The statistics of a recipe being collected.
+     */
+    private static class Counters {
+        private final String recipe;
+        private int filesChanged;
+        private long datatableRows;
+        private long sourceFiles;
+        private long sourceFilesWithResults;
+        private long scanNanos;
+        private long editNanos;
+
+        Counters(String recipe) {
+            this.recipe = recipe;
+        }
+
+        RecipeStats toStats() {
+            return new RecipeStats(recipe, filesChanged, datatableRows, sourceFiles, sourceFilesWithResults, scanNanos,
+                    editNanos);
+        }
+    }
+}
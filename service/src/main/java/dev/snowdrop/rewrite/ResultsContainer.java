@@ -1,13 +1,16 @@
 package dev.snowdrop.rewrite;
 
+import dev.snowdrop.rewrite.jfr.DiffEvent;
+import dev.snowdrop.rewrite.jfr.RewriteEvents;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.*;
 import org.openrewrite.marker.Markers;
 import org.openrewrite.marker.Markup;
 
+import java.lang.ref.SoftReference;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -21,6 +24,11 @@ public class ResultsContainer {
     private List<Result> moved = new ArrayList<>();
     private List<Result> refactoredInPlace = new ArrayList<>();
     private Map<String, RecipeRun> recipeRuns;
+    private Map<String, RecipeStats> recipeStats = Map.of();
+    private RunProfile profile;
+    // Diffs computed on demand, keyed by the identity of the Result. They are softly referenced to let the GC reclaim
+    // them when a big patch is streamed to a file
+    private final Map<Result, SoftReference<String>> diffs = new IdentityHashMap<>();
 
     /**
      * Creates a new container from a map of recipe runs, categorizing each result.
@@ -28,28 +36,84 @@ public class ResultsContainer {
      * @param runs the map of recipe name to recipe run results
      */
     public ResultsContainer(Map<String, RecipeRun> runs) {
+        this(runs, runs.values().stream().flatMap(run -> run.getChangeset().getAllResults().stream()).toList());
+    }
+
+    /**
+     * Creates a new container from a map of recipe runs and their results, e.g. the results of recipes run concurrently
+     * merged per source file, categorizing each result.
+     *
+     * @param runs the map of recipe name to recipe run results
+     * @param results the results of the runs
+     */
+    public ResultsContainer(Map<String, RecipeRun> runs, List<Result> results) {
         this.recipeRuns = runs;
 
-        runs.forEach((k, v) -> {
-            List<Result> results = v.getChangeset().getAllResults();
-            for (Result result : results) {
-                if (result.getBefore() == null && result.getAfter() == null) {
-                    continue;
-                }
-                if (result.getBefore() == null && result.getAfter() != null) {
-                    generated.add(result);
-                } else if (result.getBefore() != null && result.getAfter() == null) {
-                    deleted.add(result);
-                } else if (result.getBefore() != null && result.getAfter() != null &&
-                    !result.getBefore().getSourcePath().equals(result.getAfter().getSourcePath())) {
-                    moved.add(result);
-                } else {
-                    if (!result.diff(Paths.get("")).isEmpty()) {
-                        refactoredInPlace.add(result);
-                    }
-                }
+        for (Result result : results) {
+            if (result.getBefore() == null && result.getAfter() == null) {
+                continue;
+            }
+            if (result.getBefore() == null && result.getAfter() != null) {
+                generated.add(result);
+            } else if (result.getBefore() != null && result.getAfter() == null) {
+                deleted.add(result);
+            } else if (result.getBefore() != null && result.getAfter() != null &&
+                !result.getBefore().getSourcePath().equals(result.getAfter().getSourcePath())) {
+                moved.add(result);
+            } else if (hasChanged(result.getBefore(), result.getAfter())) {
+                refactoredInPlace.add(result);
+            }
+        }
+    }
+
+    /**
+     * Checks if a source file has been changed without computing the unified diff: the trees are the same or their
+     * printed output is the same (e.g. only markers which are not printed have been added).
+     */
+    static boolean hasChanged(SourceFile before, SourceFile after) {
+        if (before == after) {
+            return false;
+        }
+        if (!before.printAll().equals(after.printAll())) {
+            return true;
+        }
+        FileAttributes beforeAttributes = before.getFileAttributes();
+        FileAttributes afterAttributes = after.getFileAttributes();
+        return beforeAttributes != null && afterAttributes != null &&
+               beforeAttributes.isExecutable() != afterAttributes.isExecutable();
+    }
+
+    /**
+     * Returns the unified diff of a result. The diff is computed the first time it is requested and then memoized, unless
+     * the memory is needed by the JVM.
+     *
+     * @param result the result
+     * @return the diff of the result
+     */
+    public String getDiff(Result result) {
+        String diff = null;
+        synchronized (diffs) {
+            SoftReference<String> ref = diffs.get(result);
+            if (ref != null) {
+                diff = ref.get();
+            }
+        }
+        if (diff == null) {
+            // Computed outside the lock to allow different results to be diffed concurrently
+            DiffEvent event = new DiffEvent();
+            event.begin();
+            diff = result.diff();
+            if (RewriteEvents.isEnabled() && event.shouldCommit()) {
+                SourceFile sourceFile = result.getAfter() != null ? result.getAfter() : result.getBefore();
+                event.path = sourceFile == null ? null : sourceFile.getSourcePath().toString();
+                event.bytes = diff.length();
+                event.commit();
             }
-        });
+            synchronized (diffs) {
+                diffs.put(result, new SoftReference<>(diff));
+            }
+        }
+        return diff;
     }
 
     /**
@@ -196,4 +260,41 @@ public class ResultsContainer {
     public void setRecipeRuns(Map<String, RecipeRun> recipeRuns) {
         this.recipeRuns = recipeRuns;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the statistics of each recipe executed, including the recipes declared in a YAML file or nested in
+     * another recipe: the files changed, the data table rows inserted, the source files visited and the time spent.
+     *
+     * @return the statistics keyed by recipe name, the slowest recipes first
+     */
+    public Map<String, RecipeStats> getRecipeStats() {
+        return recipeStats;
+    }
+
+    /**
+     * Sets the statistics of the recipes executed.
+     *
+     * @param recipeStats the statistics keyed by recipe name
+     */
+    public void setRecipeStats(Map<String, RecipeStats> recipeStats) {
+        this.recipeStats = recipeStats;
+    }
+
+    /**
+     * Returns the profile of the run: the time and memory spent by each phase.
+     *
+     * @return the profile, or null if the run was not profiled
+     */
+    public @Nullable RunProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Sets the profile of the run.
+     *
+     * @param profile the profile
+     */
+    public void setProfile(RunProfile profile) {
+        this.profile = profile;
+    }
+}
@@ -0,0 +1,238 @@
+package dev.snowdrop.rewrite;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import dev.snowdrop.rewrite.toolbox.ThreadPools;
+import org.jspecify.annotations.Nullable;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Profile of a rewrite run: the wall time, CPU time, allocated bytes and peak heap of each phase (environment, parsing,
+ * recipes, results, patch) and of their sub-phases.
+ * <p>
+ * The name of a sub-phase is prefixed by the name of its phase, e.g. {@code parse/java}. The CPU time and the allocated
+ * bytes are measured for the whole JVM, as the phases can use several threads (e.g. parsing in parallel). The peak heap
+ * is the highest usage of the heap sampled every {@value #SAMPLE_INTERVAL_MS} ms while the phase runs, and when it
+ * starts and ends: a shorter spike may be missed. The peak usage of the memory pools is not used, as resetting it for
+ * each phase would erase the peaks of the other profiles of the JVM, e.g. the projects of a batch or of the daemon.
+ * As the heap is shared, the peak includes the memory used by the other services running at the same time.
+ */
+public class RunProfile {
+
+    /**
+     * The output format of a profile.
+     */
+    public enum Format {
+        /** A summary table */
+        TABLE,
+        /** A JSON document */
+        JSON
+    }
+
+    /**
+     * The metrics of a phase.
+     *
+     * @param name the name of the phase, e.g. {@code parse/java}
+     * @param wallNanos the elapsed time
+     * @param cpuNanos the CPU time consumed by the JVM, or -1 if not supported
+     * @param allocatedBytes the bytes allocated by all the threads, or -1 if not supported
+     * @param peakHeapBytes the peak usage of the heap
+     */
+    public record PhaseMetrics(String name, long wallNanos, long cpuNanos, long allocatedBytes, long peakHeapBytes) {
+    }
+
+    /** The interval between two samples of the heap usage */
+    public static final long SAMPLE_INTERVAL_MS = 10;
+
+    // Samples the heap usage of the profiles having phases running
+    private static final ScheduledExecutorService SAMPLER = ThreadPools.newScheduledThread("rewrite-profile-sampler");
+
+    private final List<PhaseMetrics> phases = Collections.synchronizedList(new ArrayList<>());
+    // The phases started and not ended yet, whose peak heap is updated by the samples
+    private final Set<Phase> openPhases = new LinkedHashSet<>();
+    private @Nullable ScheduledFuture<?> sampling;
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+            .toList();
+
+    /**
+     * Creates a new empty RunProfile.
+     */
+    public RunProfile() {
+    }
+
+    /**
+     * Starts to measure a phase. The phase ends when the returned {@link Phase} is closed.
+     *
+     * @param name the name of the phase, prefixed by the name of its parent for a sub-phase, e.g. {@code parse/java}
+     * @return the phase measured
+     */
+    public Phase start(String name) {
+        Phase phase = new Phase(name);
+        synchronized (openPhases) {
+            openPhases.add(phase);
+            sampleHeap();
+            if (sampling == null) {
+                sampling = SAMPLER.scheduleAtFixedRate(this::sampleHeap, SAMPLE_INTERVAL_MS, SAMPLE_INTERVAL_MS,
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+        return phase;
+    }
+
+    /**
+     * Returns the metrics of the phases, in the order they ended.
+     *
+     * @return the metrics of the phases
+     */
+    public List<PhaseMetrics> getPhases() {
+        synchronized (phases) {
+            return List.copyOf(phases);
+        }
+    }
+
+    /**
+     * Formats the profile.
+     *
+     * @param format the format
+     * @return the formatted profile
+     */
+    public String format(Format format) {
+        return format == Format.JSON ? toJson() : toTable();
+    }
+
+    /**
+     * Formats the profile as a table, the sub-phases being indented below their phase.
+     *
+     * @return the table
+     */
+    public String toTable() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-40s %12s %12s %14s %14s%n", "Phase", "Wall (ms)", "CPU (ms)", "Allocated (MB)", "Peak heap (MB)"));
+        for (PhaseMetrics phase : sortedPhases()) {
+            int depth = phase.name().split("/").length - 1;
+            String name = "  ".repeat(depth) + phase.name().substring(phase.name().lastIndexOf('/') + 1);
+            sb.append(String.format("%-40s %12d %12s %14s %14.1f%n",
+                    name,
+                    phase.wallNanos() / 1_000_000,
+                    phase.cpuNanos() < 0 ? "n/a" : String.valueOf(phase.cpuNanos() / 1_000_000),
+                    phase.allocatedBytes() < 0 ? "n/a" : String.format("%.1f", phase.allocatedBytes() / (1024.0 * 1024.0)),
+                    phase.peakHeapBytes() / (1024.0 * 1024.0)));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Formats the profile as JSON: an array of the metrics of the phases.
+     *
+     * @return the JSON document
+     */
+    public String toJson() {
+        try {
+            return new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(sortedPhases());
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Unable to format the profile", e);
+        }
+    }
+
+    /**
+     * Returns the phases with each sub-phase after its phase: a phase ends after its sub-phases, so it is moved before
+     * them.
+     */
+    private List<PhaseMetrics> sortedPhases() {
+        List<PhaseMetrics> sorted = new ArrayList<>();
+        for (PhaseMetrics phase : getPhases()) {
+            int index = sorted.size();
+            while (index > 0 && sorted.get(index - 1).name().startsWith(phase.name() + "/")) {
+                index--;
+            }
+            sorted.add(index, phase);
+        }
+        return sorted;
+    }
+
+    private void sampleHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            used += pool.getUsage().getUsed();
+        }
+        synchronized (openPhases) {
+            for (Phase phase : openPhases) {
+                phase.peakHeapBytes = Math.max(phase.peakHeapBytes, used);
+            }
+        }
+    }
+
+    private static long cpuTime() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getTotalThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * A phase being measured.
+     */
+    public class Phase implements AutoCloseable {
+        private final String name;
+        private final long startWall;
+        private final long startCpu;
+        private final long startAllocated;
+        private long peakHeapBytes;
+        private boolean closed;
+
+        private Phase(String name) {
+            this.name = name;
+            this.startWall = System.nanoTime();
+            this.startCpu = cpuTime();
+            this.startAllocated = allocatedBytes();
+        }
+
+        /**
+         * Ends the phase and records its metrics.
+         */
+        @Override
+        public void close() {
+            long wall = System.nanoTime() - startWall;
+            long cpu = cpuTime();
+            long allocated = allocatedBytes();
+            synchronized (openPhases) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                sampleHeap();
+                openPhases.remove(this);
+                if (openPhases.isEmpty() && sampling != null) {
+                    sampling.cancel(false);
+                    sampling = null;
+                }
+            }
+            phases.add(new PhaseMetrics(name, wall,
+                    startCpu < 0 || cpu < 0 ? -1 : cpu - startCpu,
+                    startAllocated < 0 || allocated < 0 ? -1 : allocated - startAllocated,
+                    peakHeapBytes));
+        }
+    }
+}
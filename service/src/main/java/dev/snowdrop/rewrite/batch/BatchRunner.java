@@ -0,0 +1,249 @@
+package dev.snowdrop.rewrite.batch;
+
+import dev.snowdrop.rewrite.ResultsContainer;
+import dev.snowdrop.rewrite.config.RewriteConfig;
+import dev.snowdrop.rewrite.service.RewriteService;
+import dev.snowdrop.rewrite.toolbox.MavenArtifactResolver;
+import dev.snowdrop.rewrite.toolbox.SharedJavaTypeCache;
+import dev.snowdrop.rewrite.toolbox.ThreadPools;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the same recipes on many projects in one JVM.
+ * <p>
+ * The OpenRewrite environment and the recipe are created once and used by the {@link RewriteService} of each project.
+ * The projects are processed concurrently by a bounded pool of workers: each project gets its own execution context,
+ * parsed source files, {@link ResultsContainer} and patch file, while the Java types of the common libraries are cached
+ * in a {@link SharedJavaTypeCache}. The types declared by the sources of a project are kept by its service, so the
+ * projects declaring classes with the same names (e.g. generated from the same archetype) can run concurrently. A
+ * project which fails doesn't stop the batch, it is reported in the summary.
+ */
+public class BatchRunner {
+    private static final Logger LOG = Logger.getLogger(BatchRunner.class.getName());
+
+    /** The default number of projects processed concurrently */
+    public static final int DEFAULT_CONCURRENCY = 2;
+
+    /**
+     * The outcome of the run of a project.
+     *
+     * @param appPath the root folder of the project
+     * @param success false if the project couldn't be parsed or the recipes failed
+     * @param generated the number of files generated
+     * @param deleted the number of files deleted
+     * @param moved the number of files moved
+     * @param changed the number of files changed in place
+     * @param elapsedMs the time spent on the project
+     * @param error the error message when the run failed
+     */
+    public record ProjectResult(Path appPath, boolean success, int generated, int deleted, int moved, int changed,
+                                long elapsedMs, String error) {
+
+        /**
+         * Returns the number of files generated, deleted, moved or changed.
+         *
+         * @return the number of files
+         */
+        public int files() {
+            return generated + deleted + moved + changed;
+        }
+
+        static ProjectResult failure(Path appPath, long elapsedMs, String error) {
+            return new ProjectResult(appPath, false, 0, 0, 0, 0, elapsedMs, error);
+        }
+    }
+
+    /**
+     * The summary of a batch.
+     *
+     * @param projects the result of each project, in the order of the batch
+     * @param elapsedMs the time spent on the batch
+     */
+    public record Summary(List<ProjectResult> projects, long elapsedMs) {
+
+        /**
+         * Returns the number of projects run successfully.
+         *
+         * @return the number of projects
+         */
+        public long succeeded() {
+            return projects.stream().filter(ProjectResult::success).count();
+        }
+
+        /**
+         * Returns the number of projects whose run failed.
+         *
+         * @return the number of projects
+         */
+        public long failed() {
+            return projects.size() - succeeded();
+        }
+
+        /**
+         * Returns the number of files generated, deleted, moved or changed in all the projects.
+         *
+         * @return the number of files
+         */
+        public int files() {
+            return projects.stream().mapToInt(ProjectResult::files).sum();
+        }
+
+        /**
+         * Formats the summary as a table, a row per project.
+         *
+         * @return the table
+         */
+        public String toTable() {
+            StringBuilder table = new StringBuilder();
+            table.append(String.format("%-60s %-7s %9s %9s %9s %9s %10s%n",
+                    "Project", "Status", "Generated", "Deleted", "Moved", "Changed", "Time (ms)"));
+            for (ProjectResult project : projects) {
+                table.append(String.format("%-60s %-7s %9d %9d %9d %9d %10d%n", project.appPath(),
+                        project.success() ? "OK" : "FAILED", project.generated(), project.deleted(), project.moved(),
+                        project.changed(), project.elapsedMs()));
+            }
+            table.append(String.format("%d project(s): %d succeeded, %d failed, %d file(s) changed in %d ms",
+                    projects.size(), succeeded(), failed(), files(), elapsedMs));
+            return table.toString();
+        }
+    }
+
+    private final RewriteConfig template;
+    private final int concurrency;
+    private final SharedJavaTypeCache javaTypeCache = new SharedJavaTypeCache(SharedJavaTypeCache.DEFAULT_BUDGET_BYTES);
+
+    /**
+     * Creates a new BatchRunner.
+     *
+     * @param template the configuration of the runs, its path being replaced by the root folder of each project
+     * @param concurrency the number of projects processed concurrently, a value lower or equal to 0 meaning: number of
+     *                    available processors
+     */
+    public BatchRunner(RewriteConfig template, int concurrency) {
+        this.template = template.copy();
+        // The YAML recipes file is shared by the projects, so it is not resolved against the folder of each project
+        if (template.getYamlRecipesPath() != null && !template.getYamlRecipesPath().isEmpty()) {
+            this.template.setYamlRecipesPath(Paths.get(template.getYamlRecipesPath()).toAbsolutePath().normalize().toString());
+        }
+        this.concurrency = ThreadPools.effectiveParallelism(concurrency);
+    }
+
+    /**
+     * Reads the root folders of the projects listed in a file, one per line. The blank lines and the lines starting
+     * with {@code #} are ignored, and the relative paths are resolved against the folder of the file.
+     *
+     * @param listFile the file listing the projects
+     * @return the root folders of the projects
+     * @throws IOException if the file can't be read
+     */
+    public static List<Path> readProjectList(Path listFile) throws IOException {
+        Path baseDir = listFile.toAbsolutePath().getParent();
+        List<Path> roots = new ArrayList<>();
+        for (String line : Files.readAllLines(listFile)) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            roots.add(baseDir.resolve(trimmed).normalize());
+        }
+        return roots;
+    }
+
+    /**
+     * Runs the recipes on the projects.
+     *
+     * @param projectRoots the root folders of the projects
+     * @return the summary of the batch
+     */
+    public Summary run(List<Path> projectRoots) {
+        long start = System.nanoTime();
+        if (projectRoots.isEmpty()) {
+            return new Summary(List.of(), 0);
+        }
+
+        // The environment, the recipe and the resolver of the Maven artifacts are created once for all the projects
+        MavenArtifactResolver artifactResolver = new MavenArtifactResolver();
+        RewriteService shared = new RewriteService(configOf(projectRoots.getFirst()));
+        shared.setArtifactResolver(artifactResolver);
+
+        List<ProjectResult> results = new ArrayList<>();
+        ExecutorService executor = ThreadPools.newFixedPool("rewrite-batch", Math.min(concurrency, projectRoots.size()));
+        try {
+            shared.createEnvironment();
+            if (shared.getEnvironment() == null) {
+                throw new IllegalStateException("Unable to create the OpenRewrite environment of the batch");
+            }
+            shared.getRecipe();
+            LOG.infof("Running the recipes on %d project(s), %d at a time", projectRoots.size(), concurrency);
+
+            List<Future<ProjectResult>> futures = new ArrayList<>();
+            for (Path root : projectRoots) {
+                futures.add(executor.submit(() -> runProject(root, shared, artifactResolver)));
+            }
+            for (Future<ProjectResult> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("The batch has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to run the batch", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            artifactResolver.close();
+        }
+
+        SharedJavaTypeCache.Stats stats = javaTypeCache.getStats();
+        LOG.debugf("Shared Java type cache: %d types, hit rate %.1f%%", stats.entries(), stats.hitRate() * 100);
+        return new Summary(List.copyOf(results), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private ProjectResult runProject(Path root, RewriteService shared, MavenArtifactResolver artifactResolver) {
+        long start = System.nanoTime();
+        Path appPath = root.toAbsolutePath().normalize();
+        try {
+            if (!Files.isDirectory(appPath)) {
+                return ProjectResult.failure(appPath, elapsedSince(start), "Not a folder");
+            }
+            LOG.infof("Processing the project %s", appPath);
+            RewriteService service = new RewriteService(configOf(appPath));
+            service.setJavaTypeCache(javaTypeCache);
+            service.setArtifactResolver(artifactResolver);
+            service.useEnvironmentOf(shared);
+            service.createExecutionContext();
+            service.scanLoadResources();
+            if (!service.isSourceSetInitialized()) {
+                return ProjectResult.failure(appPath, elapsedSince(start), "Unable to parse the project");
+            }
+
+            ResultsContainer results = service.runScanner();
+            // Only the types of the libraries are kept for the next projects
+            service.clearJavaTypeCache();
+            return new ProjectResult(appPath, true, results.getGenerated().size(), results.getDeleted().size(),
+                    results.getMoved().size(), results.getRefactoredInPlace().size(), elapsedSince(start), null);
+        } catch (Exception e) {
+            LOG.errorf(e, "The run of the project %s failed", appPath);
+            return ProjectResult.failure(appPath, elapsedSince(start), e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    private RewriteConfig configOf(Path root) {
+        RewriteConfig cfg = template.copy();
+        cfg.setAppPath(root.toAbsolutePath().normalize());
+        return cfg;
+    }
+
+    private static long elapsedSince(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
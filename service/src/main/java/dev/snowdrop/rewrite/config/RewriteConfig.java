@@ -15,6 +15,18 @@ public class RewriteConfig {
     public RewriteConfig() {
     }
 
+    /**
+     * The format of the datatables exported under target/rewrite/datatables.
+     */
+    public enum DatatableFormat {
+        /** The datatables are not exported */
+        NONE,
+        /** A CSV file per datatable */
+        CSV,
+        /** A gzip compressed file of JSON lines per datatable, starting with a schema header */
+        JSONL_GZ
+    }
+
     private Path appPath;
 
     // Additional jar containing recipes
@@ -29,13 +41,53 @@ public class RewriteConfig {
     // Path of the Yaml Recipes file
     private String yamlRecipesPath;
 
-    private Boolean exportDatatables = true;
+    // Format of the datatables exported
+    private DatatableFormat datatableFormat = DatatableFormat.CSV;
     private int sizeThresholdMb = 10;
     private Set<String> exclusions = new HashSet<>();
     private Set<String> plainTextMasks = new HashSet<>();
     private boolean dryRun = true;
     private boolean verbose = false;
 
+    // Number of workers used to parse the Java files. A value <= 0 means: number of available processors
+    private int parallelism = 1;
+
+    // Cache the parsed source files under target/rewrite/lst-cache to only parse again the files modified
+    private boolean lstCache = false;
+
+    // Compress the patch file using gzip
+    private boolean patchCompressed = false;
+
+    // Create one patch file per Maven module
+    private boolean patchPerModule = false;
+
+    // Use the catalog of the recipe jars (~/.rewrite/recipe-catalog) instead of scanning all their classes
+    private boolean recipeCatalog = true;
+
+    // Emit the JFR events of the client (discovery, parsing, dependency resolution, recipes, diffs, writes)
+    private boolean jfrEvents = false;
+
+    // Store the parsed source files under target/rewrite/source-set instead of keeping all of them in the heap
+    private boolean diskSourceSet = false;
+
+    // Number of parsed source files kept in the heap when the source set is stored on disk
+    private int workingSetSize = 1000;
+
+    // Only parse the files changed since this git revision, with the poms of their modules
+    private String sinceRevision;
+
+    // Only parse these files (relative to the project or absolute), with the poms of their modules
+    private List<String> changedFiles = new ArrayList<>();
+
+    // Run the recipes of the YAML file concurrently when all of them are search recipes which don't modify the files
+    private boolean parallelRecipes = false;
+
+    // Stop visiting the source files once the recipes matched this number of files. A value <= 0 means: no limit
+    private int maxMatches = 0;
+
+    // Percentage of the heap after which the parsing is degraded to save memory. A value <= 0 means: no budget
+    private int memoryBudgetPercent = 0;
+
     /**
      * Returns the application project path.
      *
@@ -114,16 +166,20 @@ public class RewriteConfig {
      * @return true if datatables export is enabled
      */
     public Boolean canExportDatatables() {
-        return exportDatatables;
+        return datatableFormat != DatatableFormat.NONE;
     }
 
     /**
-     * Sets whether to export datatables.
+     * Sets whether to export datatables. Enabling the export keeps the format configured, CSV by default.
      *
      * @param exportDatatables true to enable datatables export
      */
     public void setExportDatatables(Boolean exportDatatables) {
-        this.exportDatatables = exportDatatables;
+        if (!Boolean.TRUE.equals(exportDatatables)) {
+            this.datatableFormat = DatatableFormat.NONE;
+        } else if (datatableFormat == DatatableFormat.NONE) {
+            this.datatableFormat = DatatableFormat.CSV;
+        }
     }
 
     /**
@@ -204,7 +260,25 @@ public class RewriteConfig {
      * @return true if datatables export is enabled
      */
     public Boolean getExportDatatables() {
-        return exportDatatables;
+        return canExportDatatables();
+    }
+
+    /**
+     * Returns the format of the datatables exported.
+     *
+     * @return the format, NONE if the datatables are not exported
+     */
+    public DatatableFormat getDatatableFormat() {
+        return datatableFormat;
+    }
+
+    /**
+     * Sets the format of the datatables exported.
+     *
+     * @param datatableFormat the format, NONE to not export the datatables
+     */
+    public void setDatatableFormat(DatatableFormat datatableFormat) {
+        this.datatableFormat = datatableFormat;
     }
 
     /**
@@ -242,4 +316,300 @@ public class RewriteConfig {
     public void setVerbose(boolean verbose) {
         this.verbose = verbose;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the number of workers used to parse the Java files.
+     *
+     * @return the parallelism, a value lower or equal to 0 means the number of available processors
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of workers used to parse the Java files.
+     *
+     * @param parallelism the parallelism, a value lower or equal to 0 means the number of available processors
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Returns whether the parsed source files are cached on disk.
+     *
+     * @return true if the LST cache is enabled
+     */
+    public boolean isLstCache() {
+        return lstCache;
+    }
+
+    /**
+     * Sets whether the parsed source files are cached on disk under target/rewrite/lst-cache.
+     *
+     * @param lstCache true to enable the LST cache
+     */
+    public void setLstCache(boolean lstCache) {
+        this.lstCache = lstCache;
+    }
+
+    /**
+     * Returns whether the patch file is compressed using gzip.
+     *
+     * @return true if the patch file is compressed
+     */
+    public boolean isPatchCompressed() {
+        return patchCompressed;
+    }
+
+    /**
+     * Sets whether the patch file is compressed using gzip (rewrite.patch.gz).
+     *
+     * @param patchCompressed true to compress the patch file
+     */
+    public void setPatchCompressed(boolean patchCompressed) {
+        this.patchCompressed = patchCompressed;
+    }
+
+    /**
+     * Returns whether one patch file is created per Maven module.
+     *
+     * @return true if the patch is split per module
+     */
+    public boolean isPatchPerModule() {
+        return patchPerModule;
+    }
+
+    /**
+     * Sets whether one patch file is created per Maven module.
+     *
+     * @param patchPerModule true to split the patch per module
+     */
+    public void setPatchPerModule(boolean patchPerModule) {
+        this.patchPerModule = patchPerModule;
+    }
+
+    /**
+     * Returns whether the recipes are loaded using the catalog of the recipe jars.
+     *
+     * @return true if the recipe catalog is used
+     */
+    public boolean isRecipeCatalog() {
+        return recipeCatalog;
+    }
+
+    /**
+     * Sets whether the recipes are loaded using the catalog of the recipe jars.
+     *
+     * @param recipeCatalog true to use the recipe catalog
+     */
+    public void setRecipeCatalog(boolean recipeCatalog) {
+        this.recipeCatalog = recipeCatalog;
+    }
+
+    /**
+     * Returns whether the JFR events of the client are emitted.
+     *
+     * @return true if the JFR events are emitted
+     */
+    public boolean isJfrEvents() {
+        return jfrEvents;
+    }
+
+    /**
+     * Sets whether the JFR events of the client are emitted. They are only recorded when a Java Flight Recorder
+     * recording is running.
+     *
+     * @param jfrEvents true to emit the JFR events
+     */
+    public void setJfrEvents(boolean jfrEvents) {
+        this.jfrEvents = jfrEvents;
+    }
+
+    /**
+     * Returns whether the parsed source files are stored on disk instead of being kept in the heap.
+     *
+     * @return true if the source set is stored on disk
+     */
+    public boolean isDiskSourceSet() {
+        return diskSourceSet;
+    }
+
+    /**
+     * Sets whether the parsed source files are stored on disk under target/rewrite/source-set instead of being kept in
+     * the heap, for the projects whose LST doesn't fit in memory.
+     *
+     * @param diskSourceSet true to store the source set on disk
+     */
+    public void setDiskSourceSet(boolean diskSourceSet) {
+        this.diskSourceSet = diskSourceSet;
+    }
+
+    /**
+     * Returns the number of parsed source files kept in the heap when the source set is stored on disk.
+     *
+     * @return the size of the working set
+     */
+    public int getWorkingSetSize() {
+        return workingSetSize;
+    }
+
+    /**
+     * Sets the number of parsed source files kept in the heap when the source set is stored on disk.
+     *
+     * @param workingSetSize the size of the working set
+     */
+    public void setWorkingSetSize(int workingSetSize) {
+        this.workingSetSize = workingSetSize;
+    }
+
+    /**
+     * Returns the git revision since which the files changed are parsed.
+     *
+     * @return the revision, or null to parse all the files
+     */
+    public String getSinceRevision() {
+        return sinceRevision;
+    }
+
+    /**
+     * Sets the git revision since which the files changed are parsed, e.g. the target branch of a pull request. Only
+     * these files and the poms of their modules are parsed and processed by the recipes.
+     *
+     * @param sinceRevision the revision, or null to parse all the files
+     */
+    public void setSinceRevision(String sinceRevision) {
+        this.sinceRevision = sinceRevision;
+    }
+
+    /**
+     * Returns the files to be parsed instead of all the files of the project.
+     *
+     * @return the paths of the files, relative to the project or absolute
+     */
+    public List<String> getChangedFiles() {
+        return changedFiles;
+    }
+
+    /**
+     * Sets the files to be parsed instead of all the files of the project. Only these files and the poms of their
+     * modules are parsed and processed by the recipes.
+     *
+     * @param changedFiles the paths of the files, relative to the project or absolute
+     */
+    public void setChangedFiles(List<String> changedFiles) {
+        this.changedFiles = changedFiles;
+    }
+
+    /**
+     * Returns whether only the files changed are parsed, using a git revision or a list of files.
+     *
+     * @return true if the run is incremental
+     */
+    public boolean isIncremental() {
+        return (sinceRevision != null && !sinceRevision.isEmpty()) || (changedFiles != null && !changedFiles.isEmpty());
+    }
+
+    /**
+     * Returns whether the recipes of the YAML file are run concurrently when all of them are search recipes.
+     *
+     * @return true if the search recipes are run concurrently
+     */
+    public boolean isParallelRecipes() {
+        return parallelRecipes;
+    }
+
+    /**
+     * Sets whether the recipes of the YAML file are run concurrently when all of them are search recipes. Each recipe
+     * is run with its own execution context and data tables over the same source files, and its run is reported
+     * separately in the results.
+     *
+     * @param parallelRecipes true to run the search recipes concurrently
+     */
+    public void setParallelRecipes(boolean parallelRecipes) {
+        this.parallelRecipes = parallelRecipes;
+    }
+
+    /**
+     * Returns the number of source files matched by the recipes after which the run stops.
+     *
+     * @return the number of matches, a value lower or equal to 0 means no limit
+     */
+    public int getMaxMatches() {
+        return maxMatches;
+    }
+
+    /**
+     * Sets the number of source files matched by the recipes after which the run stops, e.g. 1 to check if a search
+     * recipe finds something. The remaining source files are not visited, and no patch is created.
+     *
+     * @param maxMatches the number of matches, a value lower or equal to 0 means no limit
+     */
+    public void setMaxMatches(int maxMatches) {
+        this.maxMatches = maxMatches;
+    }
+
+    /**
+     * Returns whether the run stops after a number of matches.
+     *
+     * @return true if the matches are limited
+     */
+    public boolean isMatchLimited() {
+        return maxMatches > 0;
+    }
+
+    /**
+     * Returns the percentage of the heap which can be used before the run is degraded to save memory.
+     *
+     * @return the percentage of the heap, a value lower or equal to 0 means no budget
+     */
+    public int getMemoryBudgetPercent() {
+        return memoryBudgetPercent;
+    }
+
+    /**
+     * Sets the percentage of the heap which can be used before the run is degraded to save memory. When the heap used
+     * after a garbage collection exceeds the budget, the Java types cached are dropped, the big files are not parsed
+     * (they are reported in the {@code SkippedSourceFiles} data table), the resources are parsed as plain text and the
+     * parsed source files are stored on disk.
+     *
+     * @param memoryBudgetPercent the percentage of the heap, a value lower or equal to 0 means no budget
+     */
+    public void setMemoryBudgetPercent(int memoryBudgetPercent) {
+        this.memoryBudgetPercent = memoryBudgetPercent;
+    }
+
+    /**
+     * Creates a copy of this configuration, e.g. to run the same recipes on another project.
+     *
+     * @return the copy
+     */
+    public RewriteConfig copy() {
+        RewriteConfig copy = new RewriteConfig();
+        copy.appPath = appPath;
+        copy.additionalJarPaths = new ArrayList<>(additionalJarPaths);
+        copy.fqNameRecipe = fqNameRecipe;
+        copy.recipeOptions = recipeOptions != null ? new HashSet<>(recipeOptions) : null;
+        copy.yamlRecipesPath = yamlRecipesPath;
+        copy.datatableFormat = datatableFormat;
+        copy.sizeThresholdMb = sizeThresholdMb;
+        copy.exclusions = new HashSet<>(exclusions);
+        copy.plainTextMasks = new HashSet<>(plainTextMasks);
+        copy.dryRun = dryRun;
+        copy.verbose = verbose;
+        copy.parallelism = parallelism;
+        copy.lstCache = lstCache;
+        copy.patchCompressed = patchCompressed;
+        copy.patchPerModule = patchPerModule;
+        copy.recipeCatalog = recipeCatalog;
+        copy.jfrEvents = jfrEvents;
+        copy.diskSourceSet = diskSourceSet;
+        copy.workingSetSize = workingSetSize;
+        copy.sinceRevision = sinceRevision;
+        copy.changedFiles = changedFiles != null ? new ArrayList<>(changedFiles) : null;
+        copy.parallelRecipes = parallelRecipes;
+        copy.maxMatches = maxMatches;
+        copy.memoryBudgetPercent = memoryBudgetPercent;
+        return copy;
+    }
+}
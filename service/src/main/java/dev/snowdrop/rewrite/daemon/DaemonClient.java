@@ -0,0 +1,63 @@
+package dev.snowdrop.rewrite.daemon;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Client sending the requests of the CLI to the {@link RewriteDaemon}.
+ */
+public class DaemonClient {
+
+    private final Path socketPath;
+
+    /**
+     * Creates a new DaemonClient connecting to the default socket: ~/.rewrite/daemon.sock
+     */
+    public DaemonClient() {
+        this(DaemonProtocol.defaultSocketPath());
+    }
+
+    /**
+     * Creates a new DaemonClient.
+     *
+     * @param socketPath the path of the Unix domain socket of the daemon
+     */
+    public DaemonClient(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * Checks whether a daemon is listening on the socket.
+     *
+     * @return true if the daemon answered
+     */
+    public boolean isRunning() {
+        if (!Files.exists(socketPath)) {
+            return false;
+        }
+        try {
+            return send(DaemonRequest.ping()).success();
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Sends a request to the daemon and waits for its response.
+     *
+     * @param request the request
+     * @return the response of the daemon
+     * @throws IOException if the daemon can't be reached
+     */
+    public DaemonResponse send(DaemonRequest request) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socketPath));
+            DaemonProtocol.write(channel, request);
+            return DaemonProtocol.read(channel, DaemonResponse.class);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package dev.snowdrop.rewrite.daemon;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The messages exchanged between the CLI and the daemon: one line of JSON for the request followed by one line of JSON
+ * for the response, over a Unix domain socket.
+ */
+final class DaemonProtocol {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * Returns the default path of the socket: ~/.rewrite/daemon.sock
+     */
+    static Path defaultSocketPath() {
+        return Paths.get(System.getProperty("user.home"), ".rewrite", "daemon.sock");
+    }
+
+    static <T> T read(SocketChannel channel, Class<T> type) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+        String line = reader.readLine();
+        if (line == null) {
+            throw new EOFException("The connection has been closed before receiving the message");
+        }
+        return MAPPER.readValue(line, type);
+    }
+
+    static void write(SocketChannel channel, Object message) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+        writer.write(MAPPER.writeValueAsString(message));
+        writer.write('\n');
+        writer.flush();
+    }
+}
@@ -0,0 +1,52 @@
+package dev.snowdrop.rewrite.daemon;
+
+import dev.snowdrop.rewrite.config.RewriteConfig;
+
+/**
+ * Request sent by the CLI to the daemon, serialized as one line of JSON.
+ *
+ * @param command the command to execute
+ * @param config the configuration of the run, only needed by the {@link Command#RUN} command
+ */
+public record DaemonRequest(Command command, RewriteConfig config) {
+
+    /**
+     * The commands supported by the daemon.
+     */
+    public enum Command {
+        /** Run the recipes on a project */
+        RUN,
+        /** Check that the daemon is running */
+        PING,
+        /** Stop the daemon */
+        STOP
+    }
+
+    /**
+     * Creates a request to run the recipes configured.
+     *
+     * @param config the configuration of the run
+     * @return the request
+     */
+    public static DaemonRequest run(RewriteConfig config) {
+        return new DaemonRequest(Command.RUN, config);
+    }
+
+    /**
+     * Creates a request to check that the daemon is running.
+     *
+     * @return the request
+     */
+    public static DaemonRequest ping() {
+        return new DaemonRequest(Command.PING, null);
+    }
+
+    /**
+     * Creates a request to stop the daemon.
+     *
+     * @return the request
+     */
+    public static DaemonRequest stop() {
+        return new DaemonRequest(Command.STOP, null);
+    }
+}
@@ -0,0 +1,40 @@
+package dev.snowdrop.rewrite.daemon;
+
+import java.util.List;
+
+/**
+ * Response returned by the daemon, serialized as one line of JSON.
+ *
+ * @param success true if the command succeeded
+ * @param message the error message, or a short description of what has been done
+ * @param reparsed true if the project had to be parsed, false if the parsed source files were reused
+ * @param elapsedMillis the time spent by the daemon to execute the command
+ * @param generated the paths of the files generated by the recipes
+ * @param deleted the paths of the files deleted by the recipes
+ * @param moved the paths of the files moved by the recipes, as {@code from -> to}
+ * @param refactored the paths of the files changed in place by the recipes
+ */
+public record DaemonResponse(boolean success, String message, boolean reparsed, long elapsedMillis,
+                             List<String> generated, List<String> deleted, List<String> moved,
+                             List<String> refactored) {
+
+    /**
+     * Creates a successful response without results.
+     *
+     * @param message the description of what has been done
+     * @return the response
+     */
+    public static DaemonResponse ok(String message) {
+        return new DaemonResponse(true, message, false, 0, List.of(), List.of(), List.of(), List.of());
+    }
+
+    /**
+     * Creates a failed response.
+     *
+     * @param message the error message
+     * @return the response
+     */
+    public static DaemonResponse failure(String message) {
+        return new DaemonResponse(false, message, false, 0, List.of(), List.of(), List.of(), List.of());
+    }
+}
@@ -0,0 +1,72 @@
+package dev.snowdrop.rewrite.daemon;
+
+import dev.snowdrop.rewrite.config.RewriteConfig;
+import dev.snowdrop.rewrite.toolbox.FileInventory;
+import dev.snowdrop.rewrite.toolbox.ThreadPools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The size and last modification time of the files of a project, used by the daemon to find out whether the project
+ * must be parsed again before running the recipes.
+ */
+public class ProjectSnapshot {
+
+    private final Map<FileInventory.Kind, Map<Path, Stamp>> stamps;
+
+    private ProjectSnapshot(Map<FileInventory.Kind, Map<Path, Stamp>> stamps) {
+        this.stamps = stamps;
+    }
+
+    /**
+     * Takes a snapshot of the files of the project which are parsed using the configuration.
+     *
+     * @param cfg the rewrite configuration
+     * @return the snapshot
+     * @throws IOException if the files of the project can't be read
+     */
+    public static ProjectSnapshot of(RewriteConfig cfg) throws IOException {
+        FileInventory inventory = FileInventory.scan(cfg.getAppPath(), cfg.getExclusions(), cfg.getSizeThresholdMb(),
+                ThreadPools.effectiveParallelism(cfg.getParallelism()));
+        Map<FileInventory.Kind, Map<Path, Stamp>> stamps = new EnumMap<>(FileInventory.Kind.class);
+        for (FileInventory.Kind kind : FileInventory.Kind.values()) {
+            List<Path> files = inventory.get(kind);
+            Map<Path, Stamp> kindStamps = new HashMap<>(files.size() * 2);
+            for (Path file : files) {
+                BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+                kindStamps.put(file, new Stamp(attrs.size(), attrs.lastModifiedTime().toMillis()));
+            }
+            stamps.put(kind, kindStamps);
+        }
+        return new ProjectSnapshot(stamps);
+    }
+
+    /**
+     * Returns the kinds of files which have been added, removed or modified between this snapshot and a newer one.
+     *
+     * @param newer the newer snapshot
+     * @return the kinds of files changed, empty if nothing changed
+     */
+    public Set<FileInventory.Kind> changes(ProjectSnapshot newer) {
+        Set<FileInventory.Kind> changed = EnumSet.noneOf(FileInventory.Kind.class);
+        for (FileInventory.Kind kind : FileInventory.Kind.values()) {
+            if (!Objects.equals(stamps.get(kind), newer.stamps.get(kind))) {
+                changed.add(kind);
+            }
+        }
+        return changed;
+    }
+
+    private record Stamp(long size, long lastModified) {
+    }
+}
@@ -0,0 +1,320 @@
+package dev.snowdrop.rewrite.daemon;
+
+import dev.snowdrop.rewrite.ResultsContainer;
+import dev.snowdrop.rewrite.RunProfile;
+import dev.snowdrop.rewrite.config.RewriteConfig;
+import dev.snowdrop.rewrite.service.RewriteService;
+import dev.snowdrop.rewrite.toolbox.FileInventory;
+import dev.snowdrop.rewrite.toolbox.MavenArtifactResolver;
+import dev.snowdrop.rewrite.toolbox.SharedJavaTypeCache;
+import org.jboss.logging.Logger;
+import org.openrewrite.Result;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Resident process running the recipes requested by the CLI over a Unix domain socket.
+ * <p>
+ * The daemon keeps, per project, the {@link RewriteService} with its OpenRewrite environment, the resolved classpath,
+ * and the parsed source files. A request for a project already known only parses the project again when its files
+ * changed since the previous request (e.g. after a run which is not a dry run). The Java types of the libraries are
+ * cached in a {@link SharedJavaTypeCache} shared by the projects using the same classpath, while the types declared by
+ * a project are kept by its service and discarded when its Java files or poms changed. The requests are executed one
+ * at a time.
+ */
+public class RewriteDaemon implements Closeable {
+    private static final Logger LOG = Logger.getLogger(RewriteDaemon.class.getName());
+
+    /** The default number of projects kept by the daemon */
+    public static final int DEFAULT_MAX_PROJECTS = 4;
+
+    private final Path socketPath;
+    private final Map<String, Project> projects;
+    private final SharedJavaTypeCache javaTypeCache = new SharedJavaTypeCache(SharedJavaTypeCache.DEFAULT_BUDGET_BYTES);
+    // Shared by the projects, so that the Maven settings are read and the repository system is created once
+    private MavenArtifactResolver artifactResolver;
+    private ServerSocketChannel server;
+    private volatile boolean running;
+
+    /**
+     * Creates a new RewriteDaemon listening on the default socket: ~/.rewrite/daemon.sock
+     */
+    public RewriteDaemon() {
+        this(defaultSocketPath(), DEFAULT_MAX_PROJECTS);
+    }
+
+    /**
+     * Creates a new RewriteDaemon.
+     *
+     * @param socketPath the path of the Unix domain socket
+     * @param maxProjects the number of projects kept, the least recently used being discarded
+     */
+    public RewriteDaemon(Path socketPath, int maxProjects) {
+        this.socketPath = socketPath;
+        this.projects = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Project> eldest) {
+                if (size() > maxProjects) {
+                    LOG.infof("Discarding the project %s", eldest.getValue().appPath);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the default path of the socket: ~/.rewrite/daemon.sock
+     *
+     * @return the path of the socket
+     */
+    public static Path defaultSocketPath() {
+        return DaemonProtocol.defaultSocketPath();
+    }
+
+    /**
+     * Listens on the socket and executes the requests until a stop request is received.
+     *
+     * @throws IOException if the socket can't be created
+     * @throws IllegalStateException if the folder of the socket can be accessed by other users
+     */
+    public void serve() throws IOException {
+        createSocketFolder(socketPath.getParent());
+        if (Files.exists(socketPath)) {
+            if (new DaemonClient(socketPath).isRunning()) {
+                throw new IllegalStateException("A daemon is already listening on " + socketPath);
+            }
+            // Left by a daemon which has not been stopped properly
+            Files.delete(socketPath);
+        }
+
+        server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(socketPath));
+        try {
+            // The folder already denies the access to the other users, the socket is restricted as well
+            Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system
+        }
+        running = true;
+        LOG.infof("Rewrite daemon listening on %s", socketPath);
+
+        try {
+            while (running) {
+                try (SocketChannel channel = server.accept()) {
+                    DaemonResponse response;
+                    try {
+                        response = handle(DaemonProtocol.read(channel, DaemonRequest.class));
+                    } catch (IOException e) {
+                        response = DaemonResponse.failure("Invalid request: " + e.getMessage());
+                    }
+                    DaemonProtocol.write(channel, response);
+                } catch (IOException e) {
+                    if (running) {
+                        LOG.warnf("Unable to answer the request: %s", e.getMessage());
+                    }
+                }
+            }
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Creates the folder of the socket, only accessible by the user running the daemon: the socket is created with the
+     * default permissions when it is bound, and the requests can run the code of any recipe jar as this user.
+     */
+    private static void createSocketFolder(Path folder) throws IOException {
+        Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rwx------");
+        try {
+            if (!Files.isDirectory(folder)) {
+                Files.createDirectories(folder, PosixFilePermissions.asFileAttribute(ownerOnly));
+            }
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(folder);
+            String owner = Files.getOwner(folder).getName();
+            if (!ownerOnly.containsAll(permissions) || !owner.equals(System.getProperty("user.name"))) {
+                throw new IllegalStateException("The folder " + folder + " of the socket must be owned by the user and "
+                        + "only accessible by this user (chmod 700), its permissions are "
+                        + PosixFilePermissions.toString(permissions) + " and its owner is " + owner);
+            }
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system
+            Files.createDirectories(folder);
+        }
+    }
+
+    /**
+     * Executes a request.
+     *
+     * @param request the request
+     * @return the response
+     */
+    public DaemonResponse handle(DaemonRequest request) {
+        if (request.command() == null) {
+            return DaemonResponse.failure("No command");
+        }
+        return switch (request.command()) {
+            case PING -> DaemonResponse.ok("Rewrite daemon running with " + projects.size() + " project(s) loaded");
+            case STOP -> {
+                running = false;
+                yield DaemonResponse.ok("Rewrite daemon stopped");
+            }
+            case RUN -> run(request.config());
+        };
+    }
+
+    private DaemonResponse run(RewriteConfig cfg) {
+        if (cfg == null || cfg.getAppPath() == null) {
+            return DaemonResponse.failure("The path of the project is required");
+        }
+        long start = System.nanoTime();
+        String key = key(cfg);
+        try {
+            // The snapshot is taken before the parsing, so that the files changed meanwhile are detected next time
+            ProjectSnapshot snapshot = ProjectSnapshot.of(cfg);
+            FileTime yamlTime = yamlTime(cfg);
+            boolean reparsed = false;
+
+            Project project = projects.get(key);
+            if (project == null) {
+                LOG.infof("Loading the project %s", cfg.getAppPath());
+                RewriteService service = new RewriteService(cfg);
+                service.setJavaTypeCache(javaTypeCache);
+                if (artifactResolver == null) {
+                    artifactResolver = new MavenArtifactResolver();
+                }
+                service.setArtifactResolver(artifactResolver);
+                service.init();
+                if (!service.isSourceSetInitialized()) {
+                    return DaemonResponse.failure("Unable to parse the project " + cfg.getAppPath());
+                }
+                project = new Project(cfg.getAppPath(), service, snapshot, yamlTime);
+                projects.put(key, project);
+                reparsed = true;
+            } else {
+                RewriteService service = project.service;
+                service.updateConfig(cfg);
+                // Only the phases of this request are profiled
+                service.setProfile(new RunProfile());
+                if (!Objects.equals(yamlTime, project.yamlTime)) {
+                    LOG.info("The YAML recipes changed, creating the environment again");
+                    service.createEnvironment();
+                    project.yamlTime = yamlTime;
+                }
+                service.createExecutionContext();
+                Set<FileInventory.Kind> changes = project.snapshot.changes(snapshot);
+                if (!changes.isEmpty()) {
+                    LOG.infof("Files changed in the project (%s), parsing it again", changes);
+                    if (changes.contains(FileInventory.Kind.JAVA) || changes.contains(FileInventory.Kind.XML)) {
+                        service.clearJavaTypeCache();
+                    }
+                    service.scanLoadResources();
+                    reparsed = true;
+                }
+                project.snapshot = snapshot;
+            }
+
+            ResultsContainer results = project.service.runScanner();
+            project.service.showResults(results);
+            if (!cfg.isDryRun() && results.isNotEmpty()) {
+                LOG.info("The files of the project have been changed, it will be parsed again on the next request");
+            }
+
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            return new DaemonResponse(true, "Recipes executed in " + elapsed + " ms", reparsed, elapsed,
+                    paths(results.getGenerated(), false), paths(results.getDeleted(), true),
+                    results.getMoved().stream()
+                            .map(r -> r.getBefore().getSourcePath() + " -> " + r.getAfter().getSourcePath())
+                            .toList(),
+                    paths(results.getRefactoredInPlace(), true));
+        } catch (Exception e) {
+            LOG.error("Rewrite service failed !", e);
+            // The state of the service is unknown, so the project is loaded again by the next request
+            projects.remove(key);
+            return DaemonResponse.failure(e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+    }
+
+    /**
+     * Stops listening on the socket and deletes it.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        if (artifactResolver != null) {
+            artifactResolver.close();
+            artifactResolver = null;
+        }
+        if (server != null) {
+            server.close();
+            server = null;
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    /**
+     * Returns the key of the project: the requests having the same key share the environment and the parsed files.
+     */
+    private static String key(RewriteConfig cfg) {
+        return String.join("|",
+                cfg.getAppPath().normalize().toAbsolutePath().toString(),
+                String.join(",", cfg.getAdditionalJarPaths()),
+                String.valueOf(cfg.getYamlRecipesPath()),
+                String.join(",", new TreeSet<>(cfg.getExclusions())),
+                String.join(",", new TreeSet<>(cfg.getPlainTextMasks())),
+                String.valueOf(cfg.getSizeThresholdMb()),
+                String.valueOf(cfg.getSinceRevision()),
+                cfg.getChangedFiles() != null ? String.join(",", cfg.getChangedFiles()) : "");
+    }
+
+    private static FileTime yamlTime(RewriteConfig cfg) throws IOException {
+        if (cfg.getYamlRecipesPath() == null || cfg.getYamlRecipesPath().isEmpty()) {
+            return null;
+        }
+        Path yamlPath = Paths.get(cfg.getYamlRecipesPath());
+        if (!yamlPath.isAbsolute()) {
+            yamlPath = cfg.getAppPath().resolve(yamlPath);
+        }
+        return Files.exists(yamlPath) ? Files.getLastModifiedTime(yamlPath) : null;
+    }
+
+    private static List<String> paths(List<Result> results, boolean before) {
+        return results.stream()
+                .map(r -> (before ? r.getBefore() : r.getAfter()).getSourcePath().toString())
+                .toList();
+    }
+
+    /**
+     * The state kept for a project.
+     */
+    private static class Project {
+        private final Path appPath;
+        private final RewriteService service;
+        private ProjectSnapshot snapshot;
+        private FileTime yamlTime;
+
+        Project(Path appPath, RewriteService service, ProjectSnapshot snapshot, FileTime yamlTime) {
+            this.appPath = appPath;
+            this.service = service;
+            this.snapshot = snapshot;
+            this.yamlTime = yamlTime;
+        }
+    }
+}
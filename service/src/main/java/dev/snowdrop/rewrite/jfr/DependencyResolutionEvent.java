@@ -0,0 +1,30 @@
+package dev.snowdrop.rewrite.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Resolution of the classpath of the project used to parse the Java files.
+ */
+@Name("dev.snowdrop.rewrite.DependencyResolution")
+@Label("Dependency Resolution")
+@Description("Resolution of the classpath used to parse the Java files")
+@Category(RewriteEvents.CATEGORY)
+@StackTrace(false)
+public class DependencyResolutionEvent extends jdk.jfr.Event {
+
+    /** The pom of the project */
+    @Label("Pom")
+    public String pom;
+
+    /** The number of artifacts of the classpath */
+    @Label("Artifacts")
+    public int artifacts;
+
+    /** True when the classpath resolved by a previous run has been reused */
+    @Label("Reused")
+    public boolean reused;
+}
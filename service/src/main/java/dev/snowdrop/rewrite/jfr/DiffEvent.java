@@ -0,0 +1,28 @@
+package dev.snowdrop.rewrite.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Computation of the unified diff of a result.
+ */
+@Name("dev.snowdrop.rewrite.Diff")
+@Label("Diff")
+@Description("Computation of the unified diff of a result")
+@Category(RewriteEvents.CATEGORY)
+@StackTrace(false)
+public class DiffEvent extends jdk.jfr.Event {
+
+    /** The path of the file changed */
+    @Label("Path")
+    public String path;
+
+    /** The size of the diff */
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
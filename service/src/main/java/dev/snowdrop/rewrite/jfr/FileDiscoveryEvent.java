@@ -0,0 +1,38 @@
+package dev.snowdrop.rewrite.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Walk of the project to find the files to be parsed.
+ */
+@Name("dev.snowdrop.rewrite.FileDiscovery")
+@Label("File Discovery")
+@Description("Walk of the project to find the files to be parsed")
+@Category(RewriteEvents.CATEGORY)
+@StackTrace(false)
+public class FileDiscoveryEvent extends jdk.jfr.Event {
+
+    /** The root folder of the project */
+    @Label("Root")
+    public String root;
+
+    /** The number of Java files found */
+    @Label("Java Files")
+    public int javaFiles;
+
+    /** The number of Kotlin files found */
+    @Label("Kotlin Files")
+    public int kotlinFiles;
+
+    /** The number of Maven poms found */
+    @Label("Maven Files")
+    public int mavenFiles;
+
+    /** The number of other resources found */
+    @Label("Resources")
+    public int resources;
+}
@@ -0,0 +1,28 @@
+package dev.snowdrop.rewrite.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Write of a changed source file to the project.
+ */
+@Name("dev.snowdrop.rewrite.FileWrite")
+@Label("File Write")
+@Description("Write of a changed source file to the project")
+@Category(RewriteEvents.CATEGORY)
+@StackTrace(false)
+public class FileWriteEvent extends jdk.jfr.Event {
+
+    /** The path of the file, relative to the root of the project */
+    @Label("Path")
+    public String path;
+
+    /** The number of bytes written */
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
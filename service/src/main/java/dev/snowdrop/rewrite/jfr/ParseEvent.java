@@ -0,0 +1,42 @@
+package dev.snowdrop.rewrite.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Parsing of a source file.
+ * <p>
+ * The parsers process the files by batches, so the parse time of a file is the time elapsed on the thread of the parser
+ * since the previous file was parsed, or since the parser started for the first one. It is recorded as a field, the
+ * event itself being committed when the file has been parsed.
+ */
+@Name("dev.snowdrop.rewrite.Parse")
+@Label("Parse")
+@Description("Parsing of a source file")
+@Category(RewriteEvents.CATEGORY)
+@StackTrace(false)
+public class ParseEvent extends jdk.jfr.Event {
+
+    /** The path of the file, relative to the root of the project */
+    @Label("Path")
+    public String path;
+
+    /** The parser, e.g. java, kotlin, maven, resources */
+    @Label("Parser")
+    public String parser;
+
+    /** The size of the file */
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    /** The time spent to parse the file */
+    @Label("Parse Time")
+    @Timespan
+    public long parseTime;
+}
@@ -0,0 +1,66 @@
+package dev.snowdrop.rewrite.jfr;
+
+import org.openrewrite.Parser;
+import org.openrewrite.ParsingEventListener;
+import org.openrewrite.SourceFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Listener of the parsers emitting a {@link ParseEvent} for each source file parsed. It is registered on the execution
+ * context using {@code ParsingExecutionContextView.view(ctx).setParsingListener(listener)}.
+ * <p>
+ * The parsers can run on several threads (e.g. the shards of the Java files), so the time of the previous file is kept
+ * per thread.
+ */
+public class ParseEventListener implements ParsingEventListener {
+
+    private final Path root;
+    private final ThreadLocal<Long> previous = new ThreadLocal<>();
+    private volatile String parser = "unknown";
+    private volatile long parserStart = System.nanoTime();
+
+    /**
+     * Creates a new ParseEventListener.
+     *
+     * @param root the root folder of the project
+     */
+    public ParseEventListener(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Sets the parser of the files parsed next.
+     *
+     * @param parser the name of the parser, e.g. java
+     */
+    public void startParser(String parser) {
+        this.parser = parser;
+        this.parserStart = System.nanoTime();
+    }
+
+    @Override
+    public void parsed(Parser.Input input, SourceFile sourceFile) {
+        long now = System.nanoTime();
+        Long last = previous.get();
+        previous.set(now);
+        if (!RewriteEvents.isEnabled()) {
+            return;
+        }
+        ParseEvent event = new ParseEvent();
+        if (event.shouldCommit()) {
+            Path path = root.resolve(input.getPath()).normalize();
+            event.path = root.relativize(path).toString();
+            event.parser = parser;
+            try {
+                event.bytes = Files.size(path);
+            } catch (IOException e) {
+                event.bytes = -1;
+            }
+            event.parseTime = now - (last == null ? parserStart : Math.max(last, parserStart));
+            event.commit();
+        }
+    }
+}
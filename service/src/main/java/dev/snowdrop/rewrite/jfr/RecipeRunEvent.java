@@ -0,0 +1,30 @@
+package dev.snowdrop.rewrite.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Run of a recipe against the source files of the project, including all its cycles.
+ */
+@Name("dev.snowdrop.rewrite.RecipeRun")
+@Label("Recipe Run")
+@Description("Run of a recipe against the source files of the project")
+@Category(RewriteEvents.CATEGORY)
+@StackTrace(false)
+public class RecipeRunEvent extends jdk.jfr.Event {
+
+    /** The name of the recipe */
+    @Label("Recipe")
+    public String recipe;
+
+    /** The number of results (files changed, generated, deleted) */
+    @Label("Results")
+    public int results;
+
+    /** True if the run failed */
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,37 @@
+package dev.snowdrop.rewrite.jfr;
+
+/**
+ * Switch of the Java Flight Recorder events of the client, set from {@code RewriteConfig.isJfrEvents()}.
+ * <p>
+ * The events are declared in the category {@code OpenRewrite} and are only recorded when they are enabled and a
+ * recording is running, e.g. {@code java -XX:StartFlightRecording=filename=rewrite.jfr -jar ...}. When they are
+ * disabled, the code emitting them only checks this flag.
+ */
+public final class RewriteEvents {
+
+    /** The category of the events, as shown by JDK Mission Control */
+    static final String CATEGORY = "OpenRewrite";
+
+    private static volatile boolean enabled;
+
+    private RewriteEvents() {
+    }
+
+    /**
+     * Returns whether the events are emitted.
+     *
+     * @return true if the events are emitted
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets whether the events are emitted.
+     *
+     * @param enabled true to emit the events
+     */
+    public static void setEnabled(boolean enabled) {
+        RewriteEvents.enabled = enabled;
+    }
+}
@@ -1,15 +1,37 @@
 package dev.snowdrop.rewrite.service;
 
 import dev.snowdrop.rewrite.config.RewriteConfig;
+import dev.snowdrop.rewrite.RecipeStats;
 import dev.snowdrop.rewrite.ResultsContainer;
+import dev.snowdrop.rewrite.RunProfile;
+import dev.snowdrop.rewrite.jfr.DependencyResolutionEvent;
+import dev.snowdrop.rewrite.jfr.FileDiscoveryEvent;
+import dev.snowdrop.rewrite.jfr.ParseEventListener;
+import dev.snowdrop.rewrite.jfr.RecipeRunEvent;
+import dev.snowdrop.rewrite.jfr.RewriteEvents;
 import dev.snowdrop.rewrite.toolbox.ClassLoaderUtils;
+import dev.snowdrop.rewrite.toolbox.DiskLargeSourceSet;
+import dev.snowdrop.rewrite.toolbox.FileInventory;
+import dev.snowdrop.rewrite.toolbox.GitChanges;
+import dev.snowdrop.rewrite.toolbox.LstCache;
+import dev.snowdrop.rewrite.toolbox.MatchLimitedSourceSet;
 import dev.snowdrop.rewrite.toolbox.MavenArtifactResolver;
-import dev.snowdrop.rewrite.toolbox.SanitizedMarkerPrinter;
+import dev.snowdrop.rewrite.toolbox.MavenReactor;
+import dev.snowdrop.rewrite.toolbox.MemoryBudget;
+import dev.snowdrop.rewrite.toolbox.PatchWriter;
+import dev.snowdrop.rewrite.toolbox.ProjectJavaTypeCache;
+import dev.snowdrop.rewrite.toolbox.RecipeCatalog;
+import dev.snowdrop.rewrite.toolbox.ShardedJavaParser;
+import dev.snowdrop.rewrite.toolbox.SharedJavaTypeCache;
+import dev.snowdrop.rewrite.toolbox.SkippedSourceFiles;
+import dev.snowdrop.rewrite.toolbox.SourceFileWriter;
+import dev.snowdrop.rewrite.toolbox.StreamingDataTableStore;
+import dev.snowdrop.rewrite.toolbox.SynchronizedJavaTypeCache;
+import dev.snowdrop.rewrite.toolbox.ThreadPools;
 
 import org.jboss.logging.Logger;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.*;
-import org.openrewrite.binary.Binary;
 import org.openrewrite.config.*;
 import org.openrewrite.internal.InMemoryLargeSourceSet;
 import org.openrewrite.java.JavaParser;
@@ -17,37 +39,41 @@ import org.openrewrite.java.internal.JavaTypeCache;
 import org.openrewrite.java.marker.JavaProject;
 import org.openrewrite.java.marker.JavaSourceSet;
 import org.openrewrite.java.marker.JavaVersion;
+import org.openrewrite.java.tree.J;
 import org.openrewrite.kotlin.KotlinParser;
 import org.openrewrite.marker.BuildTool;
 import org.openrewrite.marker.Marker;
 import org.openrewrite.marker.Markers;
 import org.openrewrite.marker.OperatingSystemProvenance;
+import org.openrewrite.marker.RecipesThatMadeChanges;
 import org.openrewrite.marker.ci.BuildEnvironment;
 import org.openrewrite.maven.MavenParser;
 import org.openrewrite.polyglot.OmniParser;
-import org.openrewrite.quark.Quark;
-import org.openrewrite.remote.Remote;
 import org.openrewrite.table.SearchResults;
 import org.openrewrite.text.PlainTextParser;
 
-import java.io.BufferedWriter;
 import java.io.InputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
 import java.net.URLClassLoader;
-import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.jar.JarFile;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -58,17 +84,63 @@ import static org.openrewrite.Tree.randomId;
  * Service that orchestrates OpenRewrite recipe execution including environment setup, resources parsing, recipe running, and
  * result processing.
  */
-public class RewriteService {
+public class RewriteService implements AutoCloseable {
     private final Logger LOG = Logger.getLogger(RewriteService.class.getName());
+    // The recipes which only search the source files outside the search packages
+    private static final Set<String> SEARCH_RECIPES = Set.of(
+            "org.openrewrite.text.Find",
+            "org.openrewrite.FindSourceFiles",
+            "org.openrewrite.FindParseFailures",
+            "org.openrewrite.FindQuarks",
+            "org.openrewrite.FindLstProvenance",
+            "org.openrewrite.FindCollidingSourceFiles");
+
+    // The number of files parsed or loaded from the LST cache at a time
+    private static final int PARSE_BATCH_SIZE = 1000;
 
     private ExecutionContext ctx;
-    private final List<Throwable> throwables = new ArrayList<>();
+    // Errors can be reported by the parsers running on different threads
+    private final List<Throwable> throwables = Collections.synchronizedList(new ArrayList<>());
     private Environment env;
     private LargeSourceSet sourceSet;
     private RewriteConfig rewriteConfig;
     private boolean sourceSetInitialized;
     private final List<String> yamlDefinedRecipeNames = new ArrayList<>();
     private URLClassLoader rewriteURLClassLoader;
+    private LstCache lstCache;
+    // Kept between the parsing of the project, e.g. when the service is reused by the daemon
+    private JavaTypeCache javaTypeCache;
+    // A cache set using setJavaTypeCache() is shared with other services: the project uses it through a
+    // ProjectJavaTypeCache, so that only the types of the libraries are shared
+    private @Nullable JavaTypeCache sharedJavaTypeCache;
+    // The fingerprint of the classpaths of the project, partitioning the types of the libraries in the shared cache
+    private @Nullable String classpathFingerprint;
+    // Monitors the heap while the project is parsed or the recipes are run, when a memory budget is configured
+    private @Nullable MemoryBudget memoryBudget;
+    // The files not parsed because the memory budget was exceeded, reported in a data table. The modules can be parsed
+    // on different threads
+    private final List<SkippedSourceFiles.Row> skippedFiles = Collections.synchronizedList(new ArrayList<>());
+    // Store the parsed source files on disk because the memory budget was exceeded while parsing the project
+    private boolean spillSourceSet;
+    // The folder of the data table rows of the previous run, deleted when the recipes are run again
+    private @Nullable Path previousRowsDir;
+    // The types declared by the Java sources of the project, never stored in the shared cache
+    private final Set<String> projectTypeNames = new HashSet<>();
+    // Resolves the recipe jars and the classpath of the modules, created once and reused by the next runs
+    private @Nullable MavenArtifactResolver artifactResolver;
+    // A resolver set using setArtifactResolver() is shared with other services, so it is never closed by this service
+    private boolean sharedArtifactResolver;
+    private MavenReactor reactor;
+    private final Map<MavenReactor.Module, List<Path>> moduleClasspaths = new HashMap<>();
+    private Map<Path, FileTime> resolvedPomTimes;
+    // The Java recipes found using the recipe catalog, instantiated without scanning the jars
+    private final Map<String, String> catalogRecipeClasses = new HashMap<>();
+    private RunProfile profile = new RunProfile();
+    // The recipe created from the environment, reused by the next runs
+    private Recipe recipe;
+    // The markers of the modules, reused when the files changed are parsed again
+    private final Map<Path, JavaProject> javaProjects = new HashMap<>();
+    private final Map<String, List<Marker>> provenances = new HashMap<>();
 
     /**
      * Creates a new RewriteService with the given configuration.
@@ -77,6 +149,7 @@ public class RewriteService {
      */
     public RewriteService(RewriteConfig cfg) {
         this.rewriteConfig = cfg;
+        RewriteEvents.setEnabled(cfg.isJfrEvents());
     }
 
     /**
@@ -88,6 +161,7 @@ public class RewriteService {
     public RewriteService(RewriteConfig cfg, URLClassLoader rewriteURLClassLoader) {
         this.rewriteConfig = cfg;
         this.rewriteURLClassLoader = rewriteURLClassLoader;
+        RewriteEvents.setEnabled(cfg.isJfrEvents());
     }
 
     /**
@@ -99,13 +173,53 @@ public class RewriteService {
         return sourceSetInitialized;
     }
 
+    /**
+     * Returns the OpenRewrite environment holding the recipes loaded.
+     *
+     * @return the environment, or null if not created yet
+     */
+    public Environment getEnvironment() {
+        return env;
+    }
+
+    /**
+     * Returns the source files parsed from the project.
+     *
+     * @return the source set, or null if the project has not been parsed yet
+     */
+    public LargeSourceSet getSourceSet() {
+        return sourceSet;
+    }
+
+    /**
+     * Returns the profile recording the time and memory spent by each phase of the run.
+     *
+     * @return the profile
+     */
+    public RunProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Sets the profile recording the time and memory spent by each phase, e.g. a new profile for each run of a service
+     * reused.
+     *
+     * @param profile the profile
+     */
+    public void setProfile(RunProfile profile) {
+        this.profile = profile;
+    }
+
     /**
      * Updates the rewrite configuration.
      *
      * @param cfg the new configuration
      */
-    public void updateConfig(RewriteConfig cfg) {
+    public synchronized void updateConfig(RewriteConfig cfg) {
         this.rewriteConfig = cfg;
+        // The recipe or its options may have changed
+        this.recipe = null;
+        RewriteEvents.setEnabled(cfg.isJfrEvents());
     }
 
     /**
@@ -122,9 +236,25 @@ public class RewriteService {
 
         LOG.warnf("Recipe executed in dry run mode: %s", rewriteConfig.isDryRun());
 
-        ResultsContainer results = processRecipes();
-        // Create the patch file and apply the changes
-        createPatchFile(results);
+        ResultsContainer results;
+        try (RunProfile.Phase phase = profile.start("recipes"); MemoryBudget budget = startMemoryBudget()) {
+            results = processRecipes();
+        } finally {
+            memoryBudget = null;
+        }
+        results.setProfile(profile);
+        // Create the patch file and apply the changes, unless the run only checks if the recipes match
+        if (rewriteConfig.isMatchLimited()) {
+            LOG.infof("%d file(s) matched, no patch is created as the matches are limited", results.getRefactoredInPlace().size());
+        } else {
+            try (RunProfile.Phase phase = profile.start("patch")) {
+                createPatchFile(results);
+            }
+        }
+
+        if (lstCache != null) {
+            LOG.infof("LST cache hits: %d, misses: %d", lstCache.getHits(), lstCache.getMisses());
+        }
         return results;
     }
 
@@ -147,28 +277,196 @@ public class RewriteService {
      * Creates the OpenRewrite environment where the Recipe loaders are created using the URLClassLoader
      */
     public void createEnvironment() {
-        try {
+        try (RunProfile.Phase phase = profile.start("environment")) {
             env = buildOpenRewriteEnvironment();
+            recipe = null;
         } catch (Exception ex) {
             LOG.error("Error while building the OpenRewrite Environment", ex);
         }
     }
 
     /**
-     * Creates the execution context for collecting recipe execution messages.
+     * Creates the execution context for collecting recipe execution messages. The errors collected by the previous
+     * execution context are discarded.
      */
     public void createExecutionContext() {
+        throwables.clear();
         ctx = createExecutionContext(throwables);
     }
 
+    /**
+     * Discards the Java types cached while parsing the project, so that the next parsing doesn't use the types of
+     * classes which have been modified since.
+     */
+    public void clearJavaTypeCache() {
+        // The types of the libraries stay in the shared cache, if any, as they are used by the other services
+        javaTypeCache = null;
+    }
+
+    /**
+     * Sets the cache of the Java types shared by several services, e.g. a {@link SharedJavaTypeCache}, which avoids to
+     * create again the types of the libraries used by all the projects. The types declared by the sources of the
+     * project are not stored in the shared cache, see {@link ProjectJavaTypeCache}.
+     *
+     * @param javaTypeCache the cache of the Java types shared with other services
+     */
+    public void setJavaTypeCache(JavaTypeCache javaTypeCache) {
+        this.sharedJavaTypeCache = javaTypeCache;
+        this.javaTypeCache = null;
+    }
+
+    /**
+     * Returns the cache of the Java types used to parse the project.
+     *
+     * @return the cache of the Java types, or null if no Java file has been parsed yet
+     */
+    public JavaTypeCache getJavaTypeCache() {
+        return javaTypeCache;
+    }
+
+    /**
+     * Sets the resolver of the Maven artifacts: the recipe jars and the classpath of the modules. A resolver shared by
+     * several services avoids to read the Maven settings and create the repository system for each of them. The
+     * resolver is not closed by the service.
+     *
+     * @param artifactResolver the resolver of the Maven artifacts
+     */
+    public synchronized void setArtifactResolver(MavenArtifactResolver artifactResolver) {
+        if (!sharedArtifactResolver && this.artifactResolver != null) {
+            this.artifactResolver.close();
+        }
+        this.artifactResolver = artifactResolver;
+        this.sharedArtifactResolver = artifactResolver != null;
+    }
+
+    /**
+     * Returns the resolver of the Maven artifacts, created the first time it is used when no resolver has been set.
+     *
+     * @return the resolver of the Maven artifacts
+     */
+    public synchronized MavenArtifactResolver getArtifactResolver() {
+        if (artifactResolver == null) {
+            artifactResolver = new MavenArtifactResolver();
+        }
+        return artifactResolver;
+    }
+
+    /**
+     * Closes the resolver of the Maven artifacts created by the service.
+     */
+    @Override
+    public synchronized void close() {
+        if (!sharedArtifactResolver && artifactResolver != null) {
+            artifactResolver.close();
+            artifactResolver = null;
+        }
+    }
+
     /**
      * Scans and loads source files from the project.
      */
     public void scanLoadResources() {
-        try {
+        try (RunProfile.Phase phase = profile.start("parse"); MemoryBudget budget = startMemoryBudget()) {
             sourceSet = loadSourceSet(ctx);
         } catch (Exception ex) {
             LOG.error("Error while initializing", ex);
+        } finally {
+            memoryBudget = null;
+        }
+    }
+
+    /**
+     * Parses again the files of the project which changed, e.g. while the project is watched, and replaces them in the
+     * source set: the other files are not parsed again. The Java files of a module are parsed again together when one
+     * of them changed, as the compiled classes of the module are stale while it is edited. The whole project is parsed
+     * again when a pom changed, as the classpath of the modules may have changed.
+     *
+     * @param changedFiles the absolute paths of the files added, modified or deleted
+     */
+    public void updateSourceSet(Collection<Path> changedFiles) {
+        boolean pomChanged = changedFiles.stream().anyMatch(file -> file.getFileName().toString().equals("pom.xml"));
+        if (sourceSet == null || pomChanged) {
+            clearJavaTypeCache();
+            scanLoadResources();
+            return;
+        }
+
+        Path appPath = rewriteConfig.getAppPath().toAbsolutePath().normalize();
+        // A path which doesn't exist anymore can be a folder deleted with its files
+        Set<Path> sourcePaths = changedFiles.stream()
+                .map(file -> appPath.relativize(file.toAbsolutePath().normalize()))
+                .collect(Collectors.toSet());
+        Set<Path> deletedPaths = sourcePaths.stream()
+                .filter(path -> !Files.exists(appPath.resolve(path)))
+                .collect(Collectors.toSet());
+        try (RunProfile.Phase phase = profile.start("parse")) {
+            List<SourceFile> current = new ArrayList<>();
+            sourceSet.edit(sourceFile -> {
+                current.add(sourceFile);
+                return sourceFile;
+            });
+
+            // The other Java files of the modules edited use the types changed: they are parsed again with the files
+            // changed instead of being attributed using the compiled classes of the modules
+            Function<Path, Path> moduleDirOf = sourcePath -> reactor == null
+                    ? appPath
+                    : reactor.moduleOf(appPath.resolve(sourcePath)).dir();
+            Set<Path> editedModules = sourcePaths.stream()
+                    .filter(sourcePath -> sourcePath.getFileName().toString().endsWith(".java"))
+                    .map(moduleDirOf)
+                    .collect(Collectors.toSet());
+            Set<Path> changedPaths = new HashSet<>(sourcePaths);
+            for (SourceFile sourceFile : current) {
+                Path sourcePath = sourceFile.getSourcePath();
+                if (sourcePath.getFileName().toString().endsWith(".java") && editedModules.contains(moduleDirOf.apply(sourcePath))
+                        && Files.isRegularFile(appPath.resolve(sourcePath))) {
+                    changedPaths.add(sourcePath);
+                }
+            }
+            Predicate<Path> isChanged = sourcePath -> changedPaths.contains(sourcePath)
+                    || deletedPaths.stream().anyMatch(sourcePath::startsWith);
+
+            // The types declared by the Java files parsed again are created again by the parser
+            Set<String> changedTypeNames = new HashSet<>();
+            for (SourceFile sourceFile : current) {
+                if (isChanged.test(sourceFile.getSourcePath()) && sourceFile instanceof J.CompilationUnit cu) {
+                    cu.getClasses().stream()
+                            .filter(classDeclaration -> classDeclaration.getType() != null)
+                            .forEach(classDeclaration -> changedTypeNames.add(classDeclaration.getType().getFullyQualifiedName()));
+                }
+            }
+            if (javaTypeCache instanceof ProjectJavaTypeCache projectCache) {
+                projectCache.evictReferencing(changedTypeNames);
+            } else if (!changedTypeNames.isEmpty()) {
+                javaTypeCache = null;
+            }
+
+            List<Path> filesToParse = changedPaths.stream().map(appPath::resolve).toList();
+            FileInventory inventory = FileInventory.of(appPath, filesToParse, rewriteConfig.getExclusions(),
+                    rewriteConfig.getSizeThresholdMb(), false);
+            ParsedSourceFiles parsedFiles = new ParsedSourceFiles(false);
+            parseInventory(ctx, inventory, true, parsedFiles);
+            Map<Path, SourceFile> parsed = new LinkedHashMap<>();
+            for (SourceFile sourceFile : parsedFiles.getSourceFiles()) {
+                parsed.put(sourceFile.getSourcePath(), sourceFile);
+            }
+
+            List<SourceFile> updated = new ArrayList<>(current.size() + parsed.size());
+            for (SourceFile sourceFile : current) {
+                if (!isChanged.test(sourceFile.getSourcePath())) {
+                    updated.add(sourceFile);
+                } else if (parsed.containsKey(sourceFile.getSourcePath())) {
+                    // Keep the position of the file in the source set
+                    updated.add(parsed.remove(sourceFile.getSourcePath()));
+                }
+            }
+            updated.addAll(parsed.values());
+            LOG.infof("Parsed %d changed file(s) or file(s) of the modules changed, %d source file(s) in total", inventory.getJavaFiles().size()
+                    + inventory.getKotlinFiles().size() + inventory.getXmlFiles().size() + inventory.getResources().size(),
+                    updated.size());
+            sourceSet = createSourceSet(updated);
+        } catch (Exception ex) {
+            LOG.error("Error while parsing the files changed", ex);
         }
     }
 
@@ -178,14 +476,18 @@ public class RewriteService {
         // The rewriteURLClassLoader is null when we use the Java Service Lib, a Test class, etc
         if (hasAdditionalRecipesJars && rewriteURLClassLoader == null) {
             rewriteURLClassLoader = new ClassLoaderUtils().loadAdditionalJars(rewriteConfig.getAdditionalJarPaths(),
-                    this.getClass().getClassLoader());
+                    this.getClass().getClassLoader(), getArtifactResolver());
         }
 
         Environment.Builder builder = Environment.builder();
+        yamlDefinedRecipeNames.clear();
+        catalogRecipeClasses.clear();
 
         // Create the ResourceLoaders
         if (hasAdditionalRecipesJars) {
-            builder.load(new ClasspathScanningLoader(new Properties(), rewriteURLClassLoader));
+            if (!rewriteConfig.isRecipeCatalog() || !loadRecipesFromCatalog(builder)) {
+                builder.load(new ClasspathScanningLoader(new Properties(), rewriteURLClassLoader));
+            }
         } else {
             builder.scanRuntimeClasspath();
         }
@@ -206,18 +508,7 @@ public class RewriteService {
      * @throws Exception
      */
     private void loadRecipesFromYAML(Environment.Builder envBuilder, ClassLoader additionalJarsClassloader) throws Exception {
-        Path configPath;
-        if (Paths.get(rewriteConfig.getYamlRecipesPath()).isAbsolute()) {
-            configPath = Paths.get(rewriteConfig.getYamlRecipesPath());
-        } else {
-            String appProject = System.getenv("APP_PROJECT");
-            if (appProject != null && !appProject.isEmpty()) {
-                configPath = Paths.get(appProject);
-            } else {
-                // Fall back to resolving against current working directory + YAML path
-                configPath = rewriteConfig.getAppPath().resolve(rewriteConfig.getYamlRecipesPath());
-            }
-        }
+        Path configPath = resolveYamlRecipesPath();
 
         if (Files.exists(configPath)) {
             try (InputStream is = Files.newInputStream(configPath)) {
@@ -232,6 +523,100 @@ public class RewriteService {
         }
     }
 
+    private Path resolveYamlRecipesPath() {
+        if (Paths.get(rewriteConfig.getYamlRecipesPath()).isAbsolute()) {
+            return Paths.get(rewriteConfig.getYamlRecipesPath());
+        }
+        String appProject = System.getenv("APP_PROJECT");
+        if (appProject != null && !appProject.isEmpty()) {
+            return Paths.get(appProject);
+        }
+        // Fall back to resolving against current working directory + YAML path
+        return rewriteConfig.getAppPath().resolve(rewriteConfig.getYamlRecipesPath());
+    }
+
+    /**
+     * Load from the recipe jars only the recipes needed to run the configured recipe or the recipes of the YAML file,
+     * using the recipe catalog of the jars instead of scanning all their classes. The catalog is built the first time
+     * the jars are used.
+     *
+     * @param envBuilder the builder of the environment
+     * @return false if a recipe is not in the catalog and the jars must be scanned
+     */
+    private boolean loadRecipesFromCatalog(Environment.Builder envBuilder) {
+        Set<String> requested = new LinkedHashSet<>();
+        if (rewriteConfig.getYamlRecipesPath() != null && !rewriteConfig.getYamlRecipesPath().isEmpty()) {
+            Path configPath = resolveYamlRecipesPath();
+            if (!Files.exists(configPath)) {
+                return false;
+            }
+            try (InputStream is = Files.newInputStream(configPath)) {
+                Map<String, List<String>> yamlRecipes = RecipeCatalog.readYamlRecipes(is);
+                yamlRecipes.values().forEach(requested::addAll);
+                // The recipes of the YAML file are loaded from the file itself
+                requested.removeAll(yamlRecipes.keySet());
+            } catch (IOException | RuntimeException e) {
+                LOG.warnf("Unable to read the YAML recipes %s: %s", configPath, e.getMessage());
+                return false;
+            }
+        } else if (rewriteConfig.getFqNameRecipe() != null && !rewriteConfig.getFqNameRecipe().isEmpty()) {
+            requested.add(rewriteConfig.getFqNameRecipe());
+        } else {
+            return false;
+        }
+
+        try {
+            List<Path> jars = new ArrayList<>();
+            for (URL url : rewriteURLClassLoader.getURLs()) {
+                jars.add(Paths.get(url.toURI()));
+            }
+            RecipeCatalog catalog = RecipeCatalog.load(RecipeCatalog.defaultCatalogDir(), jars, rewriteURLClassLoader);
+            Optional<Set<RecipeCatalog.Entry>> needed = catalog.closure(requested, rewriteURLClassLoader);
+            if (needed.isEmpty()) {
+                LOG.info("Some recipes are not in the recipe catalog, scanning all the recipe jars");
+                return false;
+            }
+
+            // Several recipes can be declared by the same YAML resource
+            Set<URI> yamlResources = new HashSet<>();
+            for (RecipeCatalog.Entry entry : needed.get()) {
+                if (entry.kind() == RecipeCatalog.Kind.CLASS) {
+                    catalogRecipeClasses.put(entry.name(), entry.source());
+                } else if (yamlResources.add(entry.sourceUri())) {
+                    try (JarFile jarFile = new JarFile(entry.jar().toFile());
+                         InputStream is = jarFile.getInputStream(jarFile.getJarEntry(entry.source()))) {
+                        envBuilder.load(new YamlResourceLoader(is, entry.sourceUri(), new Properties(), rewriteURLClassLoader));
+                    }
+                }
+            }
+            LOG.infof("Recipes loaded using the recipe catalog: %d recipe(s) from %d YAML resource(s)",
+                    needed.get().size(), yamlResources.size());
+            return true;
+        } catch (Exception e) {
+            LOG.warnf("Unable to use the recipe catalog, scanning all the recipe jars: %s", e.getMessage());
+            catalogRecipeClasses.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Activate a recipe, instantiating it directly when it is a Java recipe found using the recipe catalog.
+     *
+     * @param name the name of the recipe
+     * @return the recipe
+     */
+    private Recipe activateRecipe(String name) {
+        String recipeClass = catalogRecipeClasses.get(name);
+        if (recipeClass == null) {
+            return env.activateRecipes(name);
+        }
+        try {
+            return RecipeIntrospectionUtils.constructRecipe(Class.forName(recipeClass, true, rewriteURLClassLoader));
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Unable to load the recipe " + name, e);
+        }
+    }
+
     /**
      * Runs the configured recipes and optionally generates a patch file.
      *
@@ -243,8 +628,11 @@ public class RewriteService {
             LOG.warn("Recipe executed in dry run mode !");
         }
         ResultsContainer results = processRecipes();
+        results.setProfile(profile);
         // Create the patch file and apply the changes
-        createPatchFile(results);
+        try (RunProfile.Phase phase = profile.start("patch")) {
+            createPatchFile(results);
+        }
         return results;
     }
 
@@ -260,59 +648,145 @@ public class RewriteService {
             return new ResultsContainer(Collections.emptyMap());
         }
 
-        RecipeRun recipeRun = null;
-        Recipe recipe = null;
-        boolean yamlRecipes = false;
-        Map<String, RecipeRun> allResults = new HashMap<>();
-
-        // Process the Yaml recipes file if it has been defined
-        if (rewriteConfig.getYamlRecipesPath() != null && !rewriteConfig.getYamlRecipesPath().isEmpty()) {
-            yamlRecipes = true;
-        } else {
-            // Check if we got a recipe with a FQName string and load it
-            if (rewriteConfig.getFqNameRecipe() != null && !rewriteConfig.getFqNameRecipe().isEmpty()) {
-                recipe = env.activateRecipes(rewriteConfig.getFqNameRecipe());
-
-                // When we use `activeRecipe` parameter, we can also optionally configure the parameters of the recipe where the fields will be set
-                // using the parameter "options"
-                // Set<String> options = Collections.singleton("annotationPattern=@org.springframework.boot.autoconfigure.SpringBootApplication");
-                if (rewriteConfig.getRecipeOptions() != null && !rewriteConfig.getRecipeOptions().isEmpty()) {
-                    configureRecipeOptions(recipe, rewriteConfig.getRecipeOptions());
-                }
-            }
-        }
+        boolean yamlRecipes = rewriteConfig.getYamlRecipesPath() != null && !rewriteConfig.getYamlRecipesPath().isEmpty();
+        Recipe recipe = getRecipe();
+        Map<String, RecipeRun> allResults = new LinkedHashMap<>();
 
-        var listRecipes = env.listRecipes();
-        if (env.listRecipes().isEmpty()) {
+        // Listing the recipes instantiates all of them, so it is only done when no recipe has been activated
+        if (recipe == null && env.listRecipes().isEmpty()) {
             LOG.warn(String.format("No recipes found in active selection or YAML configuration for path: %s",
                     rewriteConfig.getAppPath()));
             return new ResultsContainer(Collections.emptyMap());
         }
 
-        // Run the recipe created using the FQName
-        if (!yamlRecipes) {
-            LOG.info("Using active recipe(s): " + recipe.getName());
-
-            if ("org.openrewrite.Recipe$Noop".equals(recipe.getName())) {
+        if (yamlRecipes) {
+            LOG.info("Using recipes from YAML configuration");
+            LOG.info("Running recipe: " + recipe.getName());
+        } else {
+            // Run the recipe created using the FQName
+            if (recipe == null || "org.openrewrite.Recipe$Noop".equals(recipe.getName())) {
                 LOG.error("No recipes were activated. " +
                         "Activate a recipe by providing it as a command line argument.");
                 return new ResultsContainer(Collections.emptyMap());
             }
+            LOG.info("Using active recipe(s): " + recipe.getName());
+        }
 
-            validatingRecipe(recipe);
-            recipeRun = runRecipe(recipe);
+        validatingRecipe(recipe);
+        // The source files stored on disk are read by one recipe at a time
+        boolean parallel = yamlRecipes && rewriteConfig.isParallelRecipes() && !(sourceSet instanceof DiskLargeSourceSet);
+        List<Recipe> searchRecipes = parallel ? searchRecipesOf(recipe) : null;
+        List<Result> searchResults = null;
+        if (searchRecipes != null && searchRecipes.size() > 1) {
+            SearchRuns searchRuns = runSearchRecipes(searchRecipes);
+            allResults.putAll(searchRuns.recipeRuns());
+            searchResults = searchRuns.results();
+        } else {
+            if (parallel && searchRecipes == null) {
+                LOG.info("Some recipes may modify the files, the recipes are run sequentially");
+            }
+            RecipeRun recipeRun = runRecipe(recipe);
             allResults.put(recipe.getName(), recipeRun);
+        }
 
-        } else {
-            LOG.info("Using recipes from YAML configuration");
-            Recipe yamlRecipe = env.activateRecipes(yamlDefinedRecipeNames.toArray(new String[0]));
-            LOG.info("Running recipe: " + yamlRecipe.getName());
-            validatingRecipe(yamlRecipe);
-            RecipeRun currentRun = runRecipe(yamlRecipe);
-            allResults.put(yamlRecipe.getName(), currentRun);
+        try (RunProfile.Phase phase = profile.start("recipes/results")) {
+            ResultsContainer results = searchResults != null ? new ResultsContainer(allResults, searchResults)
+                    : new ResultsContainer(allResults);
+            results.setRecipeStats(RecipeStats.collect(allResults.values()));
+            return results;
+        }
+    }
+
+    /**
+     * Returns the recipe run by the service: the recipes of the YAML file, or the recipe configured using its FQName and
+     * its options. The recipe is created from the environment the first time, then reused by the next runs.
+     *
+     * @return the recipe, or null if the environment is not created or no recipe is configured
+     */
+    public synchronized @Nullable Recipe getRecipe() {
+        if (recipe != null || env == null) {
+            return recipe;
+        }
+        // Process the Yaml recipes file if it has been defined
+        if (rewriteConfig.getYamlRecipesPath() != null && !rewriteConfig.getYamlRecipesPath().isEmpty()) {
+            recipe = env.activateRecipes(yamlDefinedRecipeNames.toArray(new String[0]));
+        } else if (rewriteConfig.getFqNameRecipe() != null && !rewriteConfig.getFqNameRecipe().isEmpty()) {
+            // Check if we got a recipe with a FQName string and load it
+            Recipe fqNameRecipe = activateRecipe(rewriteConfig.getFqNameRecipe());
+
+            // When we use `activeRecipe` parameter, we can also optionally configure the parameters of the recipe where the fields will be set
+            // using the parameter "options"
+            // Set<String> options = Collections.singleton("annotationPattern=@org.springframework.boot.autoconfigure.SpringBootApplication");
+            if (rewriteConfig.getRecipeOptions() != null && !rewriteConfig.getRecipeOptions().isEmpty()) {
+                configureRecipeOptions(fqNameRecipe, rewriteConfig.getRecipeOptions());
+            }
+            recipe = fqNameRecipe;
+        }
+        return recipe;
+    }
+
+    /**
+     * Uses the environment, the class loader of the recipe jars and the recipe of another service instead of creating
+     * them again, e.g. to run the same recipes on the projects of a batch. The recipe keeps its state in the execution
+     * context of each run, so it can be run by several services concurrently.
+     *
+     * @param service the service whose environment has been created
+     */
+    public void useEnvironmentOf(RewriteService service) {
+        Recipe sharedRecipe = service.getRecipe();
+        synchronized (this) {
+            env = service.env;
+            rewriteURLClassLoader = service.rewriteURLClassLoader;
+            yamlDefinedRecipeNames.clear();
+            yamlDefinedRecipeNames.addAll(service.yamlDefinedRecipeNames);
+            catalogRecipeClasses.clear();
+            catalogRecipeClasses.putAll(service.catalogRecipeClasses);
+            recipe = sharedRecipe;
         }
+    }
 
-        return new ResultsContainer(allResults);
+    /**
+     * Returns the recipes listed by a composite or declarative recipe when all of them only search the source files, e.g.
+     * {@code org.openrewrite.java.search.FindAnnotations}: the recipes of the {@code search} packages and the text
+     * search recipes. They add search markers and data table rows but don't modify the content of the files, so they
+     * can be run independently.
+     *
+     * @param recipe the recipe activated
+     * @return the search recipes, or null if one of the recipes may modify the files
+     */
+    static @Nullable List<Recipe> searchRecipesOf(Recipe recipe) {
+        List<Recipe> searchRecipes = new ArrayList<>();
+        return collectSearchRecipes(recipe, searchRecipes) ? searchRecipes : null;
+    }
+
+    private static boolean collectSearchRecipes(Recipe recipe, List<Recipe> searchRecipes) {
+        if (recipe instanceof CompositeRecipe || recipe instanceof DeclarativeRecipe) {
+            // The recipes of a declarative recipe having preconditions are decorated, so they are not split
+            for (Recipe child : recipe.getRecipeList()) {
+                if (!collectSearchRecipes(child, searchRecipes)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (!isSearchRecipe(recipe)) {
+            return false;
+        }
+        searchRecipes.add(recipe);
+        return true;
+    }
+
+    private static boolean isSearchRecipe(Recipe recipe) {
+        Class<?> recipeClass = recipe.getClass();
+        if (!recipeClass.getPackageName().endsWith(".search") && !SEARCH_RECIPES.contains(recipeClass.getName())) {
+            return false;
+        }
+        for (Recipe child : recipe.getRecipeList()) {
+            if (!isSearchRecipe(child)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     private void validatingRecipe(Recipe recipe) {
@@ -341,32 +815,248 @@ public class RewriteService {
      */
     private RecipeRun runRecipe(Recipe recipe) {
         LOG.info("Running recipe(s)...");
-        RecipeRun rr = null;
+        DataTableDirs dirs = dataTableDirs();
+        return runRecipe(recipe, sourceSet, ctx, dirs.datatables(), dirs.rows());
+    }
 
-        CsvDataTableStore csvDataTableStore = null;
-        if (rewriteConfig.canExportDatatables()) {
-            String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS"));
-            Path datatableDirectoryPath = rewriteConfig.getAppPath().resolve("target").resolve("rewrite").resolve("datatables")
-                    .resolve(timestamp);
+    /**
+     * The runs of the search recipes and their results, one per source file.
+     *
+     * @param recipeRuns the RecipeRun results keyed by recipe name, in the order of the recipes
+     * @param results the results of the runs, the results of the recipes matching the same source file being merged
+     */
+    private record SearchRuns(Map<String, RecipeRun> recipeRuns, List<Result> results) {
+    }
 
-            csvDataTableStore = new CsvDataTableStore(datatableDirectoryPath);
-            DataTableExecutionContextView.view(ctx).setDataTableStore(csvDataTableStore);
+    /**
+     * Run the search recipes concurrently over the same source files. Each recipe is run with its own execution context,
+     * data table store and view of the source set, as the source set records the recipe being run.
+     *
+     * @param searchRecipes the recipes which don't modify the source files
+     * @return the RecipeRun results keyed by recipe name, in the order of the recipes, and their merged results
+     */
+    private SearchRuns runSearchRecipes(List<Recipe> searchRecipes) {
+        int parallelism = Math.min(searchRecipes.size(), ThreadPools.effectiveParallelism(0));
+        LOG.infof("Running %d search recipe(s) using %d worker(s)...", searchRecipes.size(), parallelism);
+        DataTableDirs dirs = dataTableDirs();
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        sourceSet.edit(sourceFile -> {
+            sourceFiles.add(sourceFile);
+            return sourceFile;
+        });
+
+        Map<String, Future<RecipeRun>> futures = new LinkedHashMap<>();
+        Map<String, Recipe> recipesByName = new HashMap<>();
+        ExecutorService executor = ThreadPools.newFixedPool("rewrite-recipe", parallelism);
+        try {
+            for (int i = 0; i < searchRecipes.size(); i++) {
+                Recipe searchRecipe = searchRecipes.get(i);
+                // The same recipe may be declared several times with different options
+                String name = futures.containsKey(searchRecipe.getName()) ? searchRecipe.getName() + "#" + (i + 1)
+                        : searchRecipe.getName();
+                String dirName = (i + 1) + "-" + searchRecipe.getName().replaceAll("[^A-Za-z0-9._-]", "_");
+                recipesByName.put(name, searchRecipe);
+                futures.put(name, executor.submit(() -> runRecipe(searchRecipe,
+                        new InMemoryLargeSourceSet(new ArrayList<>(sourceFiles)), createExecutionContext(throwables),
+                        dirs.datatables().resolve(dirName), dirs.rows().resolve(dirName))));
+            }
+            Map<String, RecipeRun> recipeRuns = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<RecipeRun>> future : futures.entrySet()) {
+                RecipeRun recipeRun = future.getValue().get();
+                if (recipeRun != null) {
+                    recipeRuns.put(future.getKey(), recipeRun);
+                }
+            }
+            return new SearchRuns(recipeRuns, mergeSearchResults(recipeRuns, recipesByName));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Execution of the search recipes interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Execution of the search recipes failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
         }
+    }
 
-        if (rewriteURLClassLoader != null) {
-            ClassLoader previousCl = Thread.currentThread().getContextClassLoader();
-            try {
-                Thread.currentThread().setContextClassLoader(rewriteURLClassLoader);
-                rr = recipe.run(sourceSet, ctx);
-            } catch (Exception e) {
-                LOG.error("Execution of recipe(s) failed !", e);
-            } finally {
-                Thread.currentThread().setContextClassLoader(previousCl);
+    /**
+     * Merges the results of the search recipes matching the same source file, so that the file is only changed once, as
+     * when the recipes are run sequentially. The markers added by the recipes are merged when they only added markers to
+     * the same trees. Otherwise, e.g. when a recipe converted the file to plain text, the recipes matching the file are
+     * run again sequentially on the file.
+     *
+     * @param recipeRuns the RecipeRun results keyed by recipe name, in the order of the recipes
+     * @param recipesByName the recipes keyed by the names of their runs
+     * @return the results, one per source file
+     */
+    private List<Result> mergeSearchResults(Map<String, RecipeRun> recipeRuns, Map<String, Recipe> recipesByName) {
+        List<Result> results = new ArrayList<>();
+        Map<Path, Result> inPlace = new LinkedHashMap<>();
+        Map<Path, List<Recipe>> matchingRecipes = new HashMap<>();
+        Set<Path> unmerged = new HashSet<>();
+        recipeRuns.forEach((name, recipeRun) -> {
+            for (Result result : recipeRun.getChangeset().getAllResults()) {
+                if (result.getBefore() == null || result.getAfter() == null
+                        || !result.getBefore().getSourcePath().equals(result.getAfter().getSourcePath())) {
+                    results.add(result);
+                    continue;
+                }
+                Path sourcePath = result.getBefore().getSourcePath();
+                matchingRecipes.computeIfAbsent(sourcePath, path -> new ArrayList<>()).add(recipesByName.get(name));
+                Result previous = inPlace.get(sourcePath);
+                if (previous == null) {
+                    inPlace.put(sourcePath, result);
+                } else if (!unmerged.contains(sourcePath)) {
+                    Result merged = mergeMarkers(previous, result);
+                    if (merged == null) {
+                        unmerged.add(sourcePath);
+                    } else {
+                        inPlace.put(sourcePath, merged);
+                    }
+                }
             }
-        } else {
-            rr = recipe.run(sourceSet, ctx);
+        });
+
+        for (Path sourcePath : unmerged) {
+            SourceFile before = inPlace.get(sourcePath).getBefore();
+            RecipeRun recipeRun = new CompositeRecipe(matchingRecipes.get(sourcePath))
+                    .run(new InMemoryLargeSourceSet(List.of(before)), createExecutionContext(throwables));
+            recipeRun.getChangeset().getAllResults().stream()
+                    .filter(result -> result.getAfter() != null)
+                    .findFirst()
+                    .ifPresent(result -> inPlace.put(sourcePath, result));
+        }
+        if (!unmerged.isEmpty()) {
+            LOG.debugf("Ran again sequentially the search recipes matching %d file(s)", unmerged.size());
         }
+        results.addAll(inPlace.values());
+        return results;
+    }
 
+    /**
+     * Adds the markers of the trees of a result to the same trees of another result of the same source file.
+     *
+     * @return the merged result, or null if the trees of the results are not the same
+     */
+    private static @Nullable Result mergeMarkers(Result first, Result second) {
+        if (first.getAfter().getClass() != second.getAfter().getClass()) {
+            return null;
+        }
+        Map<UUID, List<Marker>> markersById = new HashMap<>();
+        new TreeVisitor<Tree, Integer>() {
+            @Override
+            public Tree preVisit(Tree tree, Integer p) {
+                markersById.put(tree.getId(), tree.getMarkers().getMarkers());
+                return tree;
+            }
+        }.visit(second.getAfter(), 0);
+
+        Set<UUID> visited = new HashSet<>();
+        Tree after = new TreeVisitor<Tree, Integer>() {
+            @Override
+            public Tree preVisit(Tree tree, Integer p) {
+                visited.add(tree.getId());
+                List<Marker> added = markersById.get(tree.getId());
+                if (added == null) {
+                    return tree;
+                }
+                List<Marker> markers = new ArrayList<>(tree.getMarkers().getMarkers());
+                for (Marker marker : added) {
+                    Optional<RecipesThatMadeChanges> recipes = tree.getMarkers().findFirst(RecipesThatMadeChanges.class);
+                    if (marker instanceof RecipesThatMadeChanges addedRecipes && recipes.isPresent()) {
+                        // The recipe stacks of both results
+                        List<List<Recipe>> stacks = new ArrayList<>(recipes.get().getRecipes());
+                        stacks.addAll(addedRecipes.getRecipes());
+                        markers.set(markers.indexOf(recipes.get()), recipes.get().withRecipes(stacks));
+                    } else if (markers.stream().noneMatch(existing -> existing.getId().equals(marker.getId()))) {
+                        markers.add(marker);
+                    }
+                }
+                return tree.withMarkers(tree.getMarkers().withMarkers(markers));
+            }
+        }.visit(first.getAfter(), 0);
+        return visited.equals(markersById.keySet()) ? new Result(first.getBefore(), (SourceFile) after) : null;
+    }
+
+    /**
+     * The folders of the data tables of a run.
+     *
+     * @param datatables the folder where the datatables are exported
+     * @param rows the folder where the rows are kept when they are not exported
+     */
+    private record DataTableDirs(Path datatables, Path rows) {
+    }
+
+    private DataTableDirs dataTableDirs() {
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss-SSS"));
+        Path datatableDirectoryPath = rewriteConfig.getAppPath().resolve("target").resolve("rewrite").resolve("datatables")
+                .resolve(timestamp);
+        // The rows are kept on disk and read back lazily. Only the rows of the previous run of this service are
+        // discarded, as the results of the other services using the same project may still be read
+        if (previousRowsDir != null) {
+            LstCache.deleteRecursively(previousRowsDir);
+        }
+        Path rowsDir = rewriteConfig.getAppPath().resolve("target").resolve("rewrite").resolve("datatable-rows")
+                .resolve(timestamp + "-" + UUID.randomUUID().toString().substring(0, 8));
+        previousRowsDir = rewriteConfig.getDatatableFormat() == RewriteConfig.DatatableFormat.CSV ? rowsDir : null;
+        return new DataTableDirs(datatableDirectoryPath, rowsDir);
+    }
+
+    /**
+     * Run the recipe using an execution context and its own data table store
+     *
+     * @param recipe The recipe object to be executed
+     * @param sourceSet the source files processed by the recipe
+     * @param ctx the execution context of the recipe
+     * @param datatableDirectoryPath the folder where the datatables are exported
+     * @param rowsDir the folder where the rows are kept when they are not exported
+     * @return the RecipeRun result, or null if the execution failed
+     */
+    private RecipeRun runRecipe(Recipe recipe, LargeSourceSet sourceSet, ExecutionContext ctx, Path datatableDirectoryPath,
+                                Path rowsDir) {
+        RecipeRun rr = null;
+        CsvDataTableStore csvDataTableStore = null;
+        StreamingDataTableStore dataTableStore = switch (rewriteConfig.getDatatableFormat()) {
+            case CSV -> {
+                csvDataTableStore = new CsvDataTableStore(datatableDirectoryPath);
+                yield new StreamingDataTableStore(rowsDir, StreamingDataTableStore.DEFAULT_BUFFER_SIZE, csvDataTableStore);
+            }
+            // The compressed files are both the export and the rows read back
+            case JSONL_GZ -> new StreamingDataTableStore(datatableDirectoryPath, StreamingDataTableStore.DEFAULT_BUFFER_SIZE,
+                    null, true);
+            // Nothing is written to disk when the datatables are not exported
+            case NONE -> new StreamingDataTableStore();
+        };
+        DataTableExecutionContextView.view(ctx).setDataTableStore(dataTableStore);
+        if (!skippedFiles.isEmpty()) {
+            SkippedSourceFiles skippedSourceFiles = new SkippedSourceFiles(Recipe.noop());
+            skippedFiles.forEach(row -> dataTableStore.insertRow(skippedSourceFiles, ctx, row));
+        }
+
+        RecipeRunEvent event = new RecipeRunEvent();
+        event.begin();
+        try (RunProfile.Phase phase = profile.start("recipes/" + recipe.getName())) {
+            if (rewriteURLClassLoader != null) {
+                ClassLoader previousCl = Thread.currentThread().getContextClassLoader();
+                try {
+                    Thread.currentThread().setContextClassLoader(rewriteURLClassLoader);
+                    rr = recipe.run(limitMatches(sourceSet), ctx);
+                } catch (Exception e) {
+                    LOG.error("Execution of recipe(s) failed !", e);
+                } finally {
+                    Thread.currentThread().setContextClassLoader(previousCl);
+                }
+            } else {
+                rr = recipe.run(limitMatches(sourceSet), ctx);
+            }
+        }
+        if (RewriteEvents.isEnabled() && event.shouldCommit()) {
+            event.recipe = recipe.getName();
+            event.results = rr == null ? 0 : rr.getChangeset().getAllResults().size();
+            event.failed = rr == null;
+            event.commit();
+        }
+
+        dataTableStore.close();
         if (csvDataTableStore != null) {
             csvDataTableStore.close();
         }
@@ -374,6 +1064,13 @@ public class RewriteService {
         return rr;
     }
 
+    /**
+     * Stops the visit of the source files once the recipe matched the number of files configured.
+     */
+    private LargeSourceSet limitMatches(LargeSourceSet sourceSet) {
+        return rewriteConfig.isMatchLimited() ? new MatchLimitedSourceSet(sourceSet, rewriteConfig.getMaxMatches()) : sourceSet;
+    }
+
     /**
      * Invokes {@code OpenRewriteLauncher.init()} and {@code apply()} via reflection using the merged classloader so that
      * additional-JAR recipes are visible.
@@ -427,9 +1124,6 @@ public class RewriteService {
 
             for (Result result : results.getGenerated()) {
                 assert result.getAfter() != null;
-                if (!rewriteConfig.isDryRun()) {
-                    writeAfter(rewriteConfig.getAppPath(), result, ctx);
-                }
                 LOG.info("These recipes would generate a new file " +
                         result.getAfter().getSourcePath() + ":");
                 logRecipesThatMadeChanges(result);
@@ -455,9 +1149,6 @@ public class RewriteService {
                 logRecipesThatMadeChanges(result);
                 estimateTimeSaved = estimateTimeSaved.plus(result.getTimeSavings() != null ?
                         result.getTimeSavings() : Duration.ZERO);
-                if (!rewriteConfig.isDryRun()) {
-                    writeAfter(rewriteConfig.getAppPath(), result, ctx);
-                }
             }
 
             for (Result result : results.getRefactoredInPlace()) {
@@ -467,8 +1158,11 @@ public class RewriteService {
                 logRecipesThatMadeChanges(result);
                 estimateTimeSaved = estimateTimeSaved.plus(result.getTimeSavings() != null ?
                         result.getTimeSavings() : Duration.ZERO);
-                if (!rewriteConfig.isDryRun()) {
-                    writeAfter(rewriteConfig.getAppPath(), result, ctx);
+            }
+
+            if (!rewriteConfig.isDryRun()) {
+                try (RunProfile.Phase phase = profile.start("patch/write-back")) {
+                    writeResults(results);
                 }
             }
 
@@ -480,26 +1174,23 @@ public class RewriteService {
                 throw new RuntimeException("Could not create the folder [" + outPath + "].", e);
             }
 
-            Path patchFile = outPath.resolve("rewrite.patch");
-            try (BufferedWriter writer = Files.newBufferedWriter(patchFile)) {
-                Stream.concat(
-                                Stream.concat(results.getGenerated().stream(), results.getDeleted().stream()),
-                                Stream.concat(results.getMoved().stream(), results.getRefactoredInPlace().stream())
-                        )
-                        .map(Result::diff)
-                        .forEach(diff -> {
-                            try {
-                                writer.write(diff + "\n");
-                            } catch (IOException e) {
-                                throw new RuntimeException(e);
-                            }
-                        });
+            // Stream the diffs of the results to the patch file(s)
+            List<Result> patchResults = Stream.of(results.getGenerated(), results.getDeleted(),
+                            results.getMoved(), results.getRefactoredInPlace())
+                    .flatMap(List::stream)
+                    .toList();
+            PatchWriter patchWriter = new PatchWriter(rewriteConfig.getAppPath(), outPath,
+                    rewriteConfig.isPatchCompressed(), rewriteConfig.isPatchPerModule(),
+                    ThreadPools.effectiveParallelism(rewriteConfig.getParallelism()));
+            List<Path> patchFiles;
+            try (RunProfile.Phase phase = profile.start("patch/patch-file")) {
+                patchFiles = patchWriter.write(patchResults, results::getDiff);
             } catch (Exception e) {
                 throw new RuntimeException("Unable to generate rewrite result.", e);
             }
 
             LOG.info("Patch file available:");
-            LOG.info("    " + patchFile.normalize());
+            patchFiles.forEach(patchFile -> LOG.info("    " + patchFile.normalize()));
             LOG.info("Estimate time saved: " + formatDuration(estimateTimeSaved));
         } else {
             LOG.info("Applying recipe would make no changes. No patch file generated.");
@@ -510,61 +1201,277 @@ public class RewriteService {
         // TODO: Do we need such Styles for the Java parser. To be investigated !
         // List<NamedStyles> styles = env.activateStyles(emptySet());
 
-        Set<Path> alreadyParsed = new HashSet<>();
-        Stream<SourceFile> sourceFiles = Stream.of();
-        //Set<SourceFile> sourceFiles = new LinkedHashSet<>();
-
         LOG.info("Application absolute path: " + rewriteConfig.getAppPath());
         LOG.info("Parsing source files...");
 
+        // Walk the project once to find the files to be parsed by the different parsers
+        int parallelism = ThreadPools.effectiveParallelism(rewriteConfig.getParallelism());
+        FileInventory inventory;
+        try (RunProfile.Phase phase = profile.start("parse/discovery")) {
+            FileDiscoveryEvent event = new FileDiscoveryEvent();
+            event.begin();
+            if (rewriteConfig.isIncremental()) {
+                List<Path> changed = changedFiles();
+                inventory = FileInventory.of(rewriteConfig.getAppPath(), changed, rewriteConfig.getExclusions(),
+                        rewriteConfig.getSizeThresholdMb(), true);
+                LOG.infof("Incremental run: %d file(s) changed, %d file(s) to parse with the poms of their modules",
+                        changed.size(), inventory.getJavaFiles().size() + inventory.getKotlinFiles().size()
+                                + inventory.getXmlFiles().size() + inventory.getResources().size());
+            } else {
+                inventory = FileInventory.scan(rewriteConfig.getAppPath(), rewriteConfig.getExclusions(),
+                        rewriteConfig.getSizeThresholdMb(), parallelism);
+            }
+            if (RewriteEvents.isEnabled() && event.shouldCommit()) {
+                event.root = rewriteConfig.getAppPath().toString();
+                event.javaFiles = inventory.getJavaFiles().size();
+                event.kotlinFiles = inventory.getKotlinFiles().size();
+                event.mavenFiles = inventory.getXmlFiles().size();
+                event.resources = inventory.getResources().size();
+                event.commit();
+            }
+        }
+
+        // The markers of the modules are created again
+        javaProjects.clear();
+        provenances.clear();
+        skippedFiles.clear();
+        // The source files are stored on disk while they are parsed when the source set is stored on disk
+        ParsedSourceFiles parsed = new ParsedSourceFiles(true);
+        if (rewriteConfig.isDiskSourceSet()) {
+            parsed.spill();
+        }
+        parseInventory(ctx, inventory, false, parsed);
+        spillSourceSet = parsed.isSpilled() && !rewriteConfig.isDiskSourceSet();
+
+        LOG.info("Total source files parsed: " + parsed.size());
+        if (parsed.size() > 0) {
+            sourceSetInitialized = true;
+        } else {
+            throw new IllegalStateException("No source files parsed from the project scanned !");
+        }
+        return parsed.toSourceSet();
+    }
+
+    /**
+     * Receives the source files while they are parsed and adds their provenance. They are kept in the heap, or stored
+     * on disk once {@link #spill()} is called, so that the trees parsed don't all need to fit in the heap.
+     */
+    private class ParsedSourceFiles implements Consumer<SourceFile> {
+        private final boolean spillable;
+        private final List<Marker> provenance = generateProvenance();
+        // The ids of the files received, as a file may be returned by several parsers
+        private final Set<UUID> ids = new HashSet<>();
+        private final List<SourceFile> sourceFiles = new ArrayList<>();
+        private DiskLargeSourceSet.@Nullable Builder store;
+
+        /**
+         * @param spillable false if the files are always kept in the heap, e.g. the files parsed again
+         */
+        private ParsedSourceFiles(boolean spillable) {
+            this.spillable = spillable;
+        }
+
+        @Override
+        public void accept(SourceFile sourceFile) {
+            if (!ids.add(sourceFile.getId())) {
+                return;
+            }
+            // The next files are stored on disk as soon as the memory budget is exceeded
+            if (memoryBudget != null && memoryBudget.isExceeded()) {
+                spill();
+            }
+            // The markers are shared by the files of the same module and source set, including the files parsed again
+            SourceFile withProvenance = addProvenance(sourceFile, provenanceOf(sourceFile, provenance, javaProjects, provenances));
+            LOG.debug(withProvenance.getSourcePath().toString());
+            if (store != null) {
+                store.add(withProvenance);
+            } else {
+                sourceFiles.add(withProvenance);
+            }
+        }
+
+        /**
+         * Stores the files received on disk, as well as the next ones.
+         */
+        private void spill() {
+            if (!spillable || store != null) {
+                return;
+            }
+            if (!rewriteConfig.isDiskSourceSet()) {
+                LOG.warn("The memory budget is exceeded, the parsed source files are stored on disk");
+            }
+            try (RunProfile.Phase phase = profile.start("parse/store")) {
+                store = DiskLargeSourceSet.builder(rewriteConfig.getAppPath().resolve("target").resolve("rewrite")
+                        .resolve("source-set"), rewriteConfig.getWorkingSetSize());
+                sourceFiles.forEach(store::add);
+                sourceFiles.clear();
+            }
+        }
+
+        private boolean isSpilled() {
+            return store != null;
+        }
+
+        private int size() {
+            return store != null ? store.size() : sourceFiles.size();
+        }
+
+        // The files kept in the heap
+        private List<SourceFile> getSourceFiles() {
+            return sourceFiles;
+        }
+
+        private LargeSourceSet toSourceSet() {
+            return store != null ? store.build() : new InMemoryLargeSourceSet(new ArrayList<>(sourceFiles));
+        }
+    }
+
+    private LargeSourceSet createSourceSet(Collection<SourceFile> sourceFiles) {
+        if (rewriteConfig.isDiskSourceSet() || spillSourceSet) {
+            if (!rewriteConfig.isDiskSourceSet()) {
+                LOG.warn("The memory budget is exceeded, the parsed source files are stored on disk");
+            }
+            try (RunProfile.Phase phase = profile.start("parse/store")) {
+                return DiskLargeSourceSet.create(rewriteConfig.getAppPath().resolve("target").resolve("rewrite").resolve("source-set"),
+                        rewriteConfig.getWorkingSetSize(), sourceFiles);
+            }
+        }
+        return new InMemoryLargeSourceSet(new ArrayList<>(sourceFiles));
+    }
+
+    /**
+     * Parse the files of the inventory and add their provenance.
+     *
+     * @param ctx the execution context collecting the parsing errors
+     * @param inventory the files to parse
+     * @param partial true when only the files changed are parsed again, the classpaths of the modules being reused
+     * @param parsed receives the source files parsed, one module or parser at a time
+     */
+    private void parseInventory(ExecutionContext ctx, FileInventory inventory, boolean partial,
+                                ParsedSourceFiles parsed) throws Exception {
+        // Emit a JFR event for each file parsed
+        ParseEventListener parseEvents = new ParseEventListener(rewriteConfig.getAppPath());
+        if (RewriteEvents.isEnabled()) {
+            ParsingExecutionContextView.view(ctx).setParsingListener(parseEvents);
+        }
+
+        int parallelism = ThreadPools.effectiveParallelism(rewriteConfig.getParallelism());
+
         // Parse Java files
-        List<Path> javaFiles = findFiles(rewriteConfig.getAppPath(), ".java");
-        alreadyParsed.addAll(javaFiles);
-
-        if (!javaFiles.isEmpty()) {
-            // If we have java files, then we assume that we have a pom and dependencies
-            // Collect the GAVs and their transitive dependencies
-            List<Path> classpaths;
-            try (MavenArtifactResolver mar = new MavenArtifactResolver()) {
-                classpaths = mar.resolveArtifactsWithDependencies(
-                        mar.loadModel(Paths.get(rewriteConfig.getAppPath().toString(), "pom.xml")));
-            }
-
-            LOG.trace("Classpath jar entries size: " + classpaths.size());
-            LOG.trace("Classpath entries of the application scanned");
-            classpaths.forEach(cp -> {
-                LOG.trace(cp.toString());
-            });
+        List<Path> javaFiles = withinMemoryBudget(inventory.getJavaFiles());
+
+        // Discover the modules of the project and resolve the classpath of the modules having Java files. They are
+        // reused as long as the poms did not change, e.g. when the service is reused by the daemon
+        Path rootPom = rewriteConfig.getAppPath().resolve("pom.xml");
+        Map<Path, FileTime> pomTimes = pomTimes(inventory.getXmlFiles());
+        // The poms are not part of the inventory when only the files changed are parsed again
+        if (!partial && !pomTimes.equals(resolvedPomTimes)) {
+            reactor = null;
+            moduleClasspaths.clear();
+            // The types cached were resolved using the previous classpaths, the types of the libraries of a shared
+            // cache being partitioned by the fingerprint of the classpaths
+            javaTypeCache = null;
+            resolvedPomTimes = pomTimes;
+        }
 
-            // Create the JavaParser and set the classpaths
-            JavaParser.Builder<? extends JavaParser, ?> javaParserBuilder = JavaParser.fromJavaVersion()
-                    .logCompilationWarningsAndErrors(false);
-            JavaTypeCache typeCache = new JavaTypeCache();
-            javaParserBuilder.classpath(classpaths).typeCache(typeCache);
+        List<JavaModule> javaModules = new ArrayList<>();
+        if (Files.isRegularFile(rootPom)) {
+            DependencyResolutionEvent resolutionEvent = new DependencyResolutionEvent();
+            resolutionEvent.begin();
+            boolean reused = reactor != null && moduleClasspaths.keySet().containsAll(reactor.partition(javaFiles).keySet());
+            if (!reused) {
+                try (RunProfile.Phase phase = profile.start("parse/classpath")) {
+                    MavenArtifactResolver mar = getArtifactResolver();
+                    if (reactor == null) {
+                        reactor = MavenReactor.discover(rewriteConfig.getAppPath(), mar);
+                    }
+                    List<MavenReactor.Module> unresolved = reactor.partition(javaFiles).keySet().stream()
+                            .filter(module -> !moduleClasspaths.containsKey(module))
+                            .toList();
+                    moduleClasspaths.putAll(reactor.resolveClasspaths(unresolved, mar,
+                            rewriteConfig.getAppPath().resolve("target").resolve("rewrite").resolve("classpath-cache"),
+                            parallelism));
+                }
+            }
+            Set<String> uncompiled = new LinkedHashSet<>();
+            reactor.partition(javaFiles).forEach((module, files) ->
+                    javaModules.add(new JavaModule(module.dir(), files, classpathOf(module),
+                            uncompiledDependencySources(module, uncompiled))));
+            if (!uncompiled.isEmpty()) {
+                LOG.infof("The modules %s are not compiled, their sources are parsed with the modules depending on them",
+                        uncompiled);
+            }
+            if (RewriteEvents.isEnabled() && resolutionEvent.shouldCommit()) {
+                resolutionEvent.pom = rootPom.toString();
+                resolutionEvent.artifacts = (int) javaModules.stream().flatMap(module -> module.classpath().stream()).distinct().count();
+                resolutionEvent.reused = reused;
+                resolutionEvent.commit();
+            }
+        } else if (!javaFiles.isEmpty()) {
+            LOG.warn("No pom.xml found in " + rewriteConfig.getAppPath() + ", the Java files are parsed without classpath");
+            javaModules.add(new JavaModule(rewriteConfig.getAppPath(), javaFiles, emptyList(), emptyList()));
+        }
 
-            // Load the Java source files
-            JavaParser jp = javaParserBuilder.build();
+        javaModules.forEach(module -> {
+            LOG.tracef("Classpath entries of the module %s: %d", module.dir(), module.classpath().size());
+            module.classpath().forEach(cp -> LOG.trace(cp.toString()));
+        });
 
-            sourceFiles = Stream.concat(sourceFiles, jp.parse(javaFiles, rewriteConfig.getAppPath(), ctx));
-            LOG.info("Parsed " + javaFiles.size() + " Java files");
+        // The entries of the cache are only valid for the classpaths used to parse the Java files
+        Set<Path> classpaths = new LinkedHashSet<>();
+        javaModules.forEach(module -> classpaths.addAll(module.classpath()));
+        lstCache = rewriteConfig.isLstCache()
+                ? LstCache.open(rewriteConfig.getAppPath().resolve("target").resolve("rewrite").resolve("lst-cache"), classpaths)
+                : null;
+
+        if (!javaModules.isEmpty()) {
+            if (sharedJavaTypeCache != null) {
+                useSharedJavaTypeCache(javaModules, classpaths, partial);
+            } else if (javaTypeCache == null) {
+                javaTypeCache = new SynchronizedJavaTypeCache();
+            }
+            try (RunProfile.Phase phase = profile.start("parse/java")) {
+                parseEvents.startParser("java");
+                parseJavaModules(javaModules, parallelism, partial, parsed);
+            }
+            LOG.info("Parsed " + javaFiles.size() + " Java files of " + javaModules.size() + " module(s) using "
+                    + parallelism + " worker(s)");
+
+            if (sharedJavaTypeCache instanceof SharedJavaTypeCache shared) {
+                SharedJavaTypeCache.Stats stats = shared.getStats();
+                LOG.infof("Shared Java type cache: %d type(s), %d MB of %d MB, hit rate %.1f%%, %d eviction(s)",
+                        stats.entries(), stats.estimatedBytes() / (1024 * 1024), stats.budgetBytes() / (1024 * 1024),
+                        stats.hitRate() * 100, stats.evictions());
+            }
         }
 
         // Parse Kotlin files
-        List<Path> kotlinFiles = findFiles(rewriteConfig.getAppPath(), ".kt");
-        alreadyParsed.addAll(kotlinFiles);
+        List<Path> kotlinFiles = withinMemoryBudget(inventory.getKotlinFiles());
 
         if (!kotlinFiles.isEmpty()) {
             KotlinParser kotlinParser = KotlinParser.builder().build();
-            sourceFiles = Stream.concat(sourceFiles, kotlinParser.parse(kotlinFiles, rewriteConfig.getAppPath(), ctx));
+            try (RunProfile.Phase phase = profile.start("parse/kotlin")) {
+                parseEvents.startParser("kotlin");
+                parseFilesTogether(kotlinFiles, emptyList(),
+                        files -> kotlinParser.parse(files, rewriteConfig.getAppPath(), ctx)).forEach(parsed);
+            }
             LOG.info("Parsed " + kotlinFiles.size() + " Kotlin files");
         }
 
-        List<Path> poms = findFiles(rewriteConfig.getAppPath(), ".xml");
-        alreadyParsed.addAll(poms);
+        List<Path> poms = inventory.getXmlFiles();
 
+        // The poms are resolved together (parent, modules), so they are all parsed again when one of them changed
         MavenParser.Builder mavenParserBuilder = MavenParser.builder();
-        sourceFiles = Stream.concat(sourceFiles, mavenParserBuilder.build()
-                .parse(poms, rewriteConfig.getAppPath(), ctx));
+        Function<List<Path>, Stream<SourceFile>> mavenParser = files -> mavenParserBuilder.build()
+                .parse(files, rewriteConfig.getAppPath(), ctx);
+        try (RunProfile.Phase phase = profile.start("parse/maven")) {
+            parseEvents.startParser("maven");
+            if (lstCache != null) {
+                lstCache.parseAll(poms, rewriteConfig.getAppPath(), mavenParser).forEach(parsed);
+            } else {
+                mavenParser.apply(poms).forEach(parsed);
+            }
+        }
 
         // Parse other files like XML, YAML, properties, etc. using the following parsers:
         // JsonParser, XmlParser, YamlParser, PropertiesParser, ProtoParser, TomlParser, DockerParser, HclParser, GroovyParser, GradleParser
@@ -578,79 +1485,350 @@ public class RewriteService {
                                 .plainTextMasks(rewriteConfig.getAppPath(), masks)
                                 .build()
                 )
-                .exclusions(alreadyParsed)
                 .sizeThresholdMb(rewriteConfig.getSizeThresholdMb())
                 .build();
 
-        List<Path> accepted = omniParser.acceptedPaths(rewriteConfig.getAppPath());
-        sourceFiles = Stream.concat(sourceFiles, omniParser.parse(accepted, rewriteConfig.getAppPath(), ctx));
+        // The resources of the inventory are already filtered using the exclusions and the size threshold
+        List<Path> accepted = inventory.getResources().stream()
+                .filter(omniParser::accept)
+                .toList();
+        try (RunProfile.Phase phase = profile.start("parse/resources")) {
+            parseEvents.startParser("resources");
+            // The memory budget is checked before each batch, as it may be exceeded while the resources are parsed
+            for (int start = 0; start < accepted.size(); start += PARSE_BATCH_SIZE) {
+                List<Path> batch = withinMemoryBudget(accepted.subList(start, Math.min(start + PARSE_BATCH_SIZE, accepted.size())));
+                if (memoryBudget != null && memoryBudget.isExceeded()) {
+                    // The resources are parsed as plain text, whose trees are much smaller. They are not cached, as the
+                    // next runs may have enough memory to parse them
+                    LOG.warnf("The memory budget is exceeded, %d resource(s) are parsed as plain text", batch.size());
+                    PlainTextParser.builder().build().parse(batch, rewriteConfig.getAppPath(), ctx).forEach(parsed);
+                } else {
+                    parseFiles(batch, files -> omniParser.parse(files, rewriteConfig.getAppPath(), ctx), parsed);
+                }
+            }
+        }
 
-        // Add provenance markers otherwise openrewrite don't parse the sources !!
-        // The provenance contains information about the OS, JDK, version, project, build tool, etc
-        List<Marker> provenance = generateProvenance();
-        Set<SourceFile> sourceFileSet = sourceFiles
-                .map(sf -> addProvenance(sf, provenance))
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (RewriteEvents.isEnabled()) {
+            // The files parsed by the recipes are not reported
+            ParsingExecutionContextView.view(ctx).setParsingListener((input, sourceFile) -> {
+            });
+        }
+    }
 
-        LOG.info("Total source files parsed: " + sourceFileSet.size());
-        if (!sourceFileSet.isEmpty()) {
-            sourceSetInitialized = true;
+    /**
+     * Layers the cache of the project over the shared cache: the types declared by the Java files parsed and by the
+     * context files are kept by the project, and the types of the libraries are shared with the services using the
+     * same classpaths.
+     *
+     * @param javaModules the Java modules to parse
+     * @param classpaths the classpaths of the modules
+     * @param partial true if only the files changed are parsed again
+     */
+    private void useSharedJavaTypeCache(List<JavaModule> javaModules, Set<Path> classpaths, boolean partial) {
+        List<Path> projectFiles = new ArrayList<>();
+        javaModules.forEach(module -> {
+            projectFiles.addAll(module.files());
+            projectFiles.addAll(module.contextFiles());
+        });
+        Set<String> typeNames = ProjectJavaTypeCache.declaredTypeNames(projectFiles);
+        // The classpaths of the modules parsed again are a subset of the ones of the project
+        if (!partial || classpathFingerprint == null) {
+            String fingerprint = LstCache.fingerprint(classpaths, "");
+            if (!fingerprint.equals(classpathFingerprint)) {
+                classpathFingerprint = fingerprint;
+                projectTypeNames.clear();
+                javaTypeCache = null;
+            }
+        }
+        projectTypeNames.addAll(typeNames);
+        if (javaTypeCache instanceof ProjectJavaTypeCache projectCache) {
+            projectCache.addProjectTypeNames(typeNames);
         } else {
-            throw new IllegalStateException("No source files parsed from the project scanned !");
+            javaTypeCache = new ProjectJavaTypeCache(sharedJavaTypeCache, classpathFingerprint, projectTypeNames);
         }
+    }
 
-        LOG.debug("List of resources loaded");
-        sourceFileSet.forEach(f -> {
-            LOG.debug(f.getSourcePath().toString());
+    /**
+     * Starts monitoring the heap when a memory budget is configured. When the budget is exceeded, the Java types cached
+     * for the project are dropped, and the parsing of the next files is degraded. The types of the libraries of a shared
+     * cache are kept, as they are used by the other services.
+     *
+     * @return the memory budget to be closed, or null if no budget is configured
+     */
+    private @Nullable MemoryBudget startMemoryBudget() {
+        if (rewriteConfig.getMemoryBudgetPercent() <= 0) {
+            return null;
+        }
+        memoryBudget = new MemoryBudget(rewriteConfig.getMemoryBudgetPercent(), () -> {
+            JavaTypeCache cache = javaTypeCache;
+            // Only drops the types of the project when the cache is layered over a shared one
+            if (cache != null) {
+                cache.clear();
+            }
         });
+        return memoryBudget;
+    }
 
-        return new InMemoryLargeSourceSet(new ArrayList<>(sourceFileSet));
+    /**
+     * Skips the Java files of a module bigger than {@link MemoryBudget#DEGRADED_FILE_SIZE_BYTES} when the memory budget
+     * has been exceeded while the previous modules were parsed.
+     *
+     * @param module the module to parse
+     * @return the module with the files which can be parsed
+     */
+    private JavaModule withinMemoryBudget(JavaModule module) {
+        List<Path> files = withinMemoryBudget(module.files());
+        return files.size() == module.files().size() ? module
+                : new JavaModule(module.dir(), files, module.classpath(), module.contextFiles());
     }
 
-    private List<Path> findFiles(Path root, String extension) throws IOException {
-        List<Path> files = new ArrayList<>();
+    /**
+     * Skips the files bigger than {@link MemoryBudget#DEGRADED_FILE_SIZE_BYTES} once the memory budget is exceeded, and
+     * reports them in the {@link SkippedSourceFiles} data table.
+     *
+     * @param files the files to parse
+     * @return the files which can be parsed
+     */
+    private List<Path> withinMemoryBudget(List<Path> files) {
+        if (memoryBudget == null || !memoryBudget.isExceeded()) {
+            return files;
+        }
+        Path appPath = rewriteConfig.getAppPath().toAbsolutePath().normalize();
+        List<Path> kept = new ArrayList<>(files.size());
+        for (Path file : files) {
+            long size = file.toFile().length();
+            if (size > MemoryBudget.DEGRADED_FILE_SIZE_BYTES) {
+                skippedFiles.add(new SkippedSourceFiles.Row(appPath.relativize(file.toAbsolutePath().normalize()).toString(),
+                        size, "The memory budget was exceeded"));
+            } else {
+                kept.add(file);
+            }
+        }
+        if (kept.size() < files.size()) {
+            LOG.warnf("The memory budget is exceeded, %d file(s) bigger than %d KB are not parsed", files.size() - kept.size(),
+                    MemoryBudget.DEGRADED_FILE_SIZE_BYTES / 1024);
+        }
+        return kept;
+    }
 
-        Collection<PathMatcher> exclusionMatchers = rewriteConfig.getExclusions().stream()
-                .map(pattern -> root.getFileSystem().getPathMatcher("glob:" + pattern))
+    /**
+     * Returns the files changed since the configured revision, or the files configured.
+     */
+    private List<Path> changedFiles() {
+        Path appPath = rewriteConfig.getAppPath();
+        if (rewriteConfig.getSinceRevision() != null && !rewriteConfig.getSinceRevision().isEmpty()) {
+            return GitChanges.changedFiles(appPath, rewriteConfig.getSinceRevision());
+        }
+        return rewriteConfig.getChangedFiles().stream()
+                .map(file -> appPath.resolve(file).normalize())
                 .toList();
+    }
 
-        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
-            @Override
-            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                if (file.toString().endsWith(extension)) {
-                    // Check if file is excluded
-                    boolean excluded = false;
-                    Path relativePath = root.relativize(file);
-                    for (PathMatcher matcher : exclusionMatchers) {
-                        if (matcher.matches(relativePath)) {
-                            excluded = true;
-                            break;
-                        }
-                    }
+    /**
+     * Returns the classpath used to parse the Java files of a module. When only the files changed since a revision are
+     * parsed, the compiled classes of the module, if any, provide the types of its other sources.
+     */
+    private List<Path> classpathOf(MavenReactor.Module module) {
+        List<Path> classpath = moduleClasspaths.get(module);
+        Path classes = module.dir().resolve("target").resolve("classes");
+        if (!rewriteConfig.isIncremental() || !Files.isDirectory(classes)) {
+            return classpath;
+        }
+        List<Path> withClasses = new ArrayList<>(classpath);
+        withClasses.add(classes);
+        return withClasses;
+    }
 
-                    if (!excluded) {
-                        files.add(file);
-                    }
+    /**
+     * Returns the Java sources of the modules of the reactor which a module depends on and which have not been compiled:
+     * their types are not on the classpath of the module, so their sources are compiled with the files of the module.
+     *
+     * @param module the module
+     * @param uncompiled collects the keys of the modules not compiled
+     * @return the Java sources of the modules not compiled
+     */
+    private List<Path> uncompiledDependencySources(MavenReactor.Module module, Set<String> uncompiled) {
+        List<Path> sources = new ArrayList<>();
+        for (MavenReactor.Module dependency : reactor.reactorDependencies(module)) {
+            Path sourceDir = MavenReactor.sourceDirectory(dependency);
+            if (Files.isDirectory(dependency.dir().resolve("target").resolve("classes")) || !Files.isDirectory(sourceDir)) {
+                continue;
+            }
+            uncompiled.add(dependency.key());
+            try (Stream<Path> files = Files.walk(sourceDir)) {
+                files.filter(file -> file.getFileName().toString().endsWith(".java") && Files.isRegularFile(file))
+                        .sorted()
+                        .forEach(sources::add);
+            } catch (IOException e) {
+                LOG.warnf("Unable to list the sources of the module %s: %s", dependency.key(), e.getMessage());
+            }
+        }
+        return sources;
+    }
+
+    /**
+     * The Java files of a module with the classpath used to parse them, and the sources of the modules it depends on
+     * which are compiled with them.
+     */
+    private record JavaModule(Path dir, List<Path> files, List<Path> classpath, List<Path> contextFiles) {
+    }
+
+    /**
+     * Parse the Java files of the modules, each module with its own classpath. The modules are parsed concurrently
+     * when there are several of them, otherwise the files of the module are split in shards parsed concurrently.
+     *
+     * @param javaModules the modules to parse
+     * @param parallelism the number of workers
+     * @param partial true when only the files changed are parsed again
+     * @param parsed receives the source files of each module, in the order of the modules
+     */
+    private void parseJavaModules(List<JavaModule> javaModules, int parallelism, boolean partial, ParsedSourceFiles parsed) {
+        if (parallelism <= 1 || javaModules.size() == 1) {
+            for (JavaModule module : javaModules) {
+                parseJavaModule(withinMemoryBudget(module), parallelism, partial).forEach(parsed);
+            }
+            return;
+        }
+
+        ExecutorService executor = ThreadPools.newFixedPool("rewrite-module-parser", Math.min(parallelism, javaModules.size()));
+        try {
+            List<Future<List<SourceFile>>> futures = new ArrayList<>();
+            for (JavaModule module : javaModules) {
+                futures.add(executor.submit(() -> parseJavaModule(withinMemoryBudget(module), 1, partial)));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                futures.get(i).get().forEach(parsed);
+                // The trees of the module are only referenced by the parsed source files from now on
+                futures.set(i, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("The parsing of the modules has been interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException("Unable to parse the Java files of the modules", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<SourceFile> parseJavaModule(JavaModule module, int parallelism, boolean partial) {
+        List<Path> classpath = module.classpath();
+        // The shards are compiled separately, so they need the compiled classes of the module to resolve the types
+        // declared within another shard. The test classes are also needed when the module has test files. The classes
+        // are not used when they are older than the sources, e.g. while the module is edited, as the parallelism would
+        // then change the types attributed
+        Path classesDir = module.dir().resolve("target").resolve("classes");
+        Path testClassesDir = module.dir().resolve("target").resolve("test-classes");
+        Path testDir = module.dir().resolve("src").resolve("test");
+        List<Path> testFiles = module.files().stream().filter(file -> file.startsWith(testDir)).toList();
+        List<Path> mainFiles = module.files().stream().filter(file -> !file.startsWith(testDir)).toList();
+        boolean hasTestFiles = !testFiles.isEmpty();
+        boolean compiled = parallelism > 1 && !partial && isUpToDate(classesDir, mainFiles)
+                && (!hasTestFiles || isUpToDate(testClassesDir, testFiles));
+        if (compiled) {
+            classpath = new ArrayList<>(classpath);
+            for (Path dir : hasTestFiles ? List.of(classesDir, testClassesDir) : List.of(classesDir)) {
+                if (!classpath.contains(dir)) {
+                    classpath.add(dir);
                 }
-                return FileVisitResult.CONTINUE;
             }
+        }
 
-            @Override
-            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-                // Skip target directories and .git directories
-                String dirName = dir.getFileName().toString();
-                if (dirName.equals("target") || dirName.equals(".git") || dirName.startsWith(".")) {
-                    return FileVisitResult.SKIP_SUBTREE;
+        // Create the JavaParser builder and set the classpath. The type cache is shared by the parsers of the modules
+        JavaParser.Builder<? extends JavaParser, ?> javaParserBuilder = JavaParser.fromJavaVersion()
+                .logCompilationWarningsAndErrors(false)
+                .classpath(classpath)
+                .typeCache(javaTypeCache);
+        ShardedJavaParser jp = new ShardedJavaParser(javaParserBuilder, parallelism, compiled);
+        return parseFilesTogether(module.files(), module.contextFiles(),
+                files -> jp.parse(files, module.contextFiles(), rewriteConfig.getAppPath(), ctx).stream());
+    }
+
+    /**
+     * Checks if the classes of a folder have been compiled after the last modification of the sources: the newest class
+     * must not be older than the newest source.
+     *
+     * @param classesDir the folder of the compiled classes
+     * @param sources the Java files compiled in the folder
+     * @return true if the folder exists and is up to date
+     */
+    private boolean isUpToDate(Path classesDir, List<Path> sources) {
+        if (!Files.isDirectory(classesDir)) {
+            return false;
+        }
+        try (Stream<Path> classes = Files.walk(classesDir)) {
+            long newestSource = 0;
+            for (Path source : sources) {
+                newestSource = Math.max(newestSource, Files.getLastModifiedTime(source).toMillis());
+            }
+            long newestClass = 0;
+            for (Path file : (Iterable<Path>) classes::iterator) {
+                if (file.getFileName().toString().endsWith(".class")) {
+                    newestClass = Math.max(newestClass, Files.getLastModifiedTime(file).toMillis());
                 }
-                return FileVisitResult.CONTINUE;
             }
-        });
+            return newestClass >= newestSource;
+        } catch (IOException | UncheckedIOException e) {
+            LOG.debugf("Unable to compare the classes of %s with their sources: %s", classesDir, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns the last modified time of the poms of the project, to detect when the modules and their classpath must be
+     * resolved again.
+     */
+    private static Map<Path, FileTime> pomTimes(List<Path> xmlFiles) throws IOException {
+        Map<Path, FileTime> pomTimes = new HashMap<>();
+        for (Path file : xmlFiles) {
+            if ("pom.xml".equals(file.getFileName().toString())) {
+                pomTimes.put(file, Files.getLastModifiedTime(file));
+            }
+        }
+        return pomTimes;
+    }
 
-        return files;
+    /**
+     * Parse the files using the parser, or load them from the LST cache when it is enabled and the files did not change.
+     *
+     * @param files the files to parse
+     * @param parser the function parsing a list of files
+     * @param parsed receives the source files
+     */
+    private void parseFiles(List<Path> files, Function<List<Path>, Stream<SourceFile>> parser, Consumer<SourceFile> parsed) {
+        if (lstCache == null) {
+            parser.apply(files).forEach(parsed);
+            return;
+        }
+        // The files parsed or loaded from the cache are received one batch at a time
+        for (int start = 0; start < files.size(); start += PARSE_BATCH_SIZE) {
+            lstCache.parse(files.subList(start, Math.min(start + PARSE_BATCH_SIZE, files.size())), rewriteConfig.getAppPath(),
+                    parser).forEach(parsed);
+        }
     }
 
     /**
-     * Generate for the different java sources their provenance
+     * Parse the files compiled together, or load all of them from the LST cache when it is enabled and none of them
+     * changed: the types of a file are attributed using the other files, so they are all parsed again when one changed.
+     *
+     * @param files the files to parse
+     * @param contextFiles the files compiled with the files, but not returned
+     * @param parser the function parsing a list of files
+     * @return the list of the source files
+     */
+    private List<SourceFile> parseFilesTogether(List<Path> files, List<Path> contextFiles,
+                                                Function<List<Path>, Stream<SourceFile>> parser) {
+        if (lstCache == null) {
+            return parser.apply(files).toList();
+        }
+        return lstCache.parseAll(files, contextFiles, rewriteConfig.getAppPath(), parser);
+    }
+
+    /**
+     * Generate the provenance common to all the sources: build environment, OS, build tool and Java version
      *
      * @return the List of Marker
      */
@@ -663,13 +1841,48 @@ public class RewriteService {
                 buildEnvironment,
                 OperatingSystemProvenance.current(),
                 new BuildTool(randomId(), BuildTool.Type.Gradle, "standalone"), // Generic build tool
-                new JavaProject(randomId(), rewriteConfig.getAppPath().getFileName().toString(),
-                        new JavaProject.Publication("standalone", "standalone", "1.0.0")),
-                new JavaVersion(randomId(), javaRuntimeVersion, javaVendor, javaRuntimeVersion, javaRuntimeVersion),
-                JavaSourceSet.build("main", emptyList())
+                new JavaVersion(randomId(), javaRuntimeVersion, javaVendor, javaRuntimeVersion, javaRuntimeVersion)
         );
     }
 
+    /**
+     * Returns the provenance of a source file: the common provenance, the {@link JavaProject} of its Maven module and
+     * its {@link JavaSourceSet}, {@code test} for the files under {@code src/test} of the module, {@code main} otherwise.
+     *
+     * @param sourceFile the source file
+     * @param provenance the common provenance
+     * @param javaProjects the JavaProject markers created, keyed by the folder of their module
+     * @param provenances the provenances created, keyed by module and source set
+     * @return the List of Marker
+     */
+    private List<Marker> provenanceOf(SourceFile sourceFile, List<Marker> provenance, Map<Path, JavaProject> javaProjects,
+                                      Map<String, List<Marker>> provenances) {
+        Path appPath = rewriteConfig.getAppPath().toAbsolutePath().normalize();
+        Path file = appPath.resolve(sourceFile.getSourcePath()).normalize();
+        MavenReactor.Module module = reactor == null ? null : reactor.moduleOf(file);
+        Path moduleDir = module == null ? appPath : module.dir();
+        String sourceSetName = moduleDir.relativize(file).startsWith(Paths.get("src", "test")) ? "test" : "main";
+
+        return provenances.computeIfAbsent(moduleDir + "#" + sourceSetName, key -> {
+            JavaProject javaProject = javaProjects.computeIfAbsent(moduleDir, dir -> {
+                if (module == null) {
+                    return new JavaProject(randomId(), rewriteConfig.getAppPath().getFileName().toString(),
+                            new JavaProject.Publication("standalone", "standalone", "1.0.0"));
+                }
+                // The root module is named after the folder of the project, the other ones after their artifactId
+                String projectName = module == reactor.getRoot()
+                        ? rewriteConfig.getAppPath().getFileName().toString()
+                        : module.model().getArtifactId();
+                return new JavaProject(randomId(), projectName, new JavaProject.Publication(module.model().getGroupId(),
+                        module.model().getArtifactId(), module.model().getVersion()));
+            });
+            List<Marker> markers = new ArrayList<>(provenance);
+            markers.add(javaProject);
+            markers.add(JavaSourceSet.build(sourceSetName, emptyList()));
+            return markers;
+        });
+    }
+
     /**
      *
      * @param sourceFile the java source file
@@ -784,58 +1997,16 @@ public class RewriteService {
                 String.format("Unable to convert option: %s value: %s to type: %s", name, optionValue, type));
     }
 
-    private static void writeAfter(Path root, Result result, ExecutionContext ctx) {
-        if (result.getAfter() == null || result.getAfter() instanceof Quark) {
-            return;
-        }
-        Path targetPath = root.resolve(result.getAfter().getSourcePath());
-        File targetFile = targetPath.toFile();
-        if (!targetFile.getParentFile().exists()) {
-            //noinspection ResultOfMethodCallIgnored
-            targetFile.getParentFile().mkdirs();
-        }
-        if (result.getAfter() instanceof Binary) {
-            try (FileOutputStream sourceFileWriter = new FileOutputStream(targetFile)) {
-                sourceFileWriter.write(((Binary) result.getAfter()).getBytes());
-            } catch (IOException e) {
-                throw new UncheckedIOException("Unable to rewrite source files", e);
-            }
-        } else if (result.getAfter() instanceof Remote) {
-            Remote remote = (Remote) result.getAfter();
-            try (FileOutputStream sourceFileWriter = new FileOutputStream(targetFile)) {
-                InputStream source = remote.getInputStream(ctx);
-                byte[] buf = new byte[4096];
-                int length;
-                while ((length = source.read(buf)) > 0) {
-                    sourceFileWriter.write(buf, 0, length);
-                }
-            } catch (IOException e) {
-                throw new UncheckedIOException("Unable to rewrite source files", e);
-            }
-        } else if (!(result.getAfter() instanceof Quark)) {
-            // Don't attempt to write to a Quark; it has already been logged as change that has been made
-            Charset charset = result.getAfter().getCharset() == null ? StandardCharsets.UTF_8 : result.getAfter().getCharset();
-            try (BufferedWriter sourceFileWriter = Files.newBufferedWriter(targetPath, charset)) {
-                sourceFileWriter.write(result.getAfter().printAll(new PrintOutputCapture<>(0, new SanitizedMarkerPrinter())));
-            } catch (IOException e) {
-                throw new UncheckedIOException("Unable to rewrite source files", e);
-            }
-        }
-        if (result.getAfter().getFileAttributes() != null) {
-            FileAttributes fileAttributes = result.getAfter().getFileAttributes();
-            if (targetFile.canRead() != fileAttributes.isReadable()) {
-                //noinspection ResultOfMethodCallIgnored
-                targetFile.setReadable(fileAttributes.isReadable());
-            }
-            if (targetFile.canWrite() != fileAttributes.isWritable()) {
-                //noinspection ResultOfMethodCallIgnored
-                targetFile.setWritable(fileAttributes.isWritable());
-            }
-            if (targetFile.canExecute() != fileAttributes.isExecutable()) {
-                //noinspection ResultOfMethodCallIgnored
-                targetFile.setExecutable(fileAttributes.isExecutable());
-            }
-        }
+    private void writeResults(ResultsContainer results) {
+        List<Result> written = Stream.of(results.getGenerated(), results.getMoved(), results.getRefactoredInPlace())
+                .flatMap(List::stream)
+                .toList();
+        SourceFileWriter writer = new SourceFileWriter(rewriteConfig.getAppPath(), ctx,
+                ThreadPools.effectiveParallelism(rewriteConfig.getParallelism()));
+        SourceFileWriter.Stats stats = writer.write(written, results.getDeleted());
+        LOG.infof("Wrote %d file(s) (%d bytes) and deleted %d file(s) in %d ms: %.1f files/s, %.1f KB/s",
+                stats.files(), stats.bytes(), stats.deleted(), stats.elapsed().toMillis(),
+                stats.filesPerSecond(), stats.bytesPerSecond() / 1024);
     }
 
     public void showResults(ResultsContainer results) {
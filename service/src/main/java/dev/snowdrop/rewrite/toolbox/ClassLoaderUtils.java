@@ -37,8 +37,7 @@ public class ClassLoaderUtils {
             return List.of();
         }
 
-        MavenArtifactResolver resolver = new MavenArtifactResolver();
-        try {
+        try (MavenArtifactResolver resolver = new MavenArtifactResolver()) {
             List<Path> resolvedPaths = resolver.resolveArtifacts(additionalJarPaths);
             List<Path> validPaths = new ArrayList<>();
             for (Path jarPath : resolvedPaths) {
@@ -72,6 +71,26 @@ public class ClassLoaderUtils {
             return null;
         }
 
+        try (MavenArtifactResolver resolver = new MavenArtifactResolver()) {
+            return loadAdditionalJars(additionalJarPaths, appClassloader, resolver);
+        }
+    }
+
+    /**
+     * Creates a URLClassLoader from the additional JAR paths or Maven GAV coordinates, resolving the coordinates with
+     * a resolver which is reused, and not closed, by this method.
+     *
+     * @param additionalJarPaths list of JAR file paths or Maven GAV coordinates to load
+     * @param appClassloader the parent classloader, the context classloader of the thread if null
+     * @param resolver the resolver of the Maven GAV coordinates
+     * @return URLClassLoader containing the additional Rewrite JARs, or null if no additional JARs are specified
+     */
+    public URLClassLoader loadAdditionalJars(List<String> additionalJarPaths, ClassLoader appClassloader,
+                                             MavenArtifactResolver resolver) {
+        if (additionalJarPaths == null || additionalJarPaths.isEmpty()) {
+            return null;
+        }
+
         ClassLoader cl;
         if (appClassloader == null) {
             cl = Thread.currentThread().getContextClassLoader(); //this.getClass().getClassLoader();
@@ -80,7 +99,6 @@ public class ClassLoaderUtils {
         }
 
         List<URL> jarUrls = new ArrayList<>();
-        MavenArtifactResolver resolver = new MavenArtifactResolver();
 
         try {
             // Resolve all jar paths/coordinates to actual file paths
@@ -124,9 +142,8 @@ public class ClassLoaderUtils {
         }
 
         List<URL> jarUrls = new ArrayList<>();
-        MavenArtifactResolver resolver = new MavenArtifactResolver();
 
-        try {
+        try (MavenArtifactResolver resolver = new MavenArtifactResolver()) {
             // Resolve all jar paths/coordinates to actual file paths
             List<Path> resolvedPaths = resolver.resolveArtifacts(additionalJarPaths);
 
@@ -0,0 +1,132 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Model;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Disk cache of the classpath resolved for a Maven project.
+ * <p>
+ * The key of an entry is the hash of the dependencies, of the dependency management and of the repositories of the
+ * effective model. An entry is a text file listing the paths of the resolved jars, one per line. It is only used when
+ * all the jars still exist in the local repository.
+ */
+public class ClasspathCache {
+    private static final Logger LOG = Logger.getLogger(ClasspathCache.class.getName());
+
+    private final Path cacheDir;
+
+    /**
+     * Creates a new ClasspathCache storing its entries within the given folder.
+     *
+     * @param cacheDir the folder of the cache, e.g. target/rewrite/classpath-cache
+     */
+    public ClasspathCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Computes the key of the classpath of a Maven model.
+     *
+     * @param model the effective Maven model
+     * @param repositories the remote repositories used to resolve the dependencies
+     * @return the key
+     */
+    public static String key(Model model, List<RemoteRepository> repositories) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("dependencies\n");
+        appendDependencies(sb, model.getDependencies());
+        sb.append("dependencyManagement\n");
+        appendDependencies(sb, Optional.ofNullable(model.getDependencyManagement())
+                .map(dm -> dm.getDependencies())
+                .orElse(Collections.emptyList()));
+        sb.append("repositories\n");
+        for (RemoteRepository repository : repositories) {
+            sb.append(repository.getId()).append('=').append(repository.getUrl()).append('\n');
+        }
+        for (org.apache.maven.model.Repository repository : model.getRepositories()) {
+            sb.append(repository.getId()).append('=').append(repository.getUrl()).append('\n');
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the classpath cached for the key if all its jars still exist.
+     *
+     * @param key the key of the classpath
+     * @return the classpath, or empty if not cached or no longer valid
+     */
+    public Optional<List<Path>> load(String key) {
+        Path entry = cacheDir.resolve(key + ".txt");
+        if (!Files.exists(entry)) {
+            return Optional.empty();
+        }
+        try {
+            List<Path> classpath = Files.readAllLines(entry, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(Paths::get)
+                    .toList();
+            if (classpath.stream().allMatch(Files::exists)) {
+                return Optional.of(classpath);
+            }
+            LOG.debugf("Some jars of the cached classpath %s no longer exist", key);
+        } catch (IOException e) {
+            LOG.debugf("Unable to read the cached classpath %s: %s", key, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Stores the classpath resolved for the key.
+     *
+     * @param key the key of the classpath
+     * @param classpath the resolved classpath
+     */
+    public void store(String key, List<Path> classpath) {
+        Path entry = cacheDir.resolve(key + ".txt");
+        Path tmp = cacheDir.resolve(key + ".tmp");
+        try {
+            Files.createDirectories(cacheDir);
+            Files.write(tmp, classpath.stream().map(Path::toString).toList(), StandardCharsets.UTF_8);
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warnf("Unable to cache the classpath in %s: %s", cacheDir, e.getMessage());
+        }
+    }
+
+    private static void appendDependencies(StringBuilder sb, List<Dependency> dependencies) {
+        for (Dependency dep : dependencies) {
+            sb.append(dep.getGroupId()).append(':')
+                    .append(dep.getArtifactId()).append(':')
+                    .append(dep.getType()).append(':')
+                    .append(dep.getClassifier()).append(':')
+                    .append(dep.getVersion()).append(':')
+                    .append(dep.getScope()).append(':')
+                    .append(dep.isOptional());
+            for (Exclusion exclusion : dep.getExclusions()) {
+                sb.append(":!").append(exclusion.getGroupId()).append(':').append(exclusion.getArtifactId());
+            }
+            sb.append('\n');
+        }
+    }
+}
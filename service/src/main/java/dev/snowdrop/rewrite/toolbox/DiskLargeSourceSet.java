@@ -0,0 +1,357 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jboss.logging.Logger;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Changeset;
+import org.openrewrite.LargeSourceSet;
+import org.openrewrite.Recipe;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * {@link LargeSourceSet} storing the parsed source files on disk instead of keeping all of them in the heap, for the
+ * projects whose LST doesn't fit in memory.
+ * <p>
+ * Each tree is serialized (gzipped JSON, like the {@link LstCache}) to a file of the store folder, e.g.
+ * {@code target/rewrite/source-set}, and only a working set of the trees visited last is kept in the heap. The trees
+ * are loaded again from the disk when the recipes visit them. The trees changed or generated by a recipe are stored in
+ * the same way, so the source set only holds the keys of its trees.
+ * <p>
+ * As the trees loaded from the disk are new instances, the changes are not detected using the identity of the trees
+ * like {@code InMemoryLargeSourceSet} but using the keys of the store: a tree is changed when the recipe returns
+ * another instance than the one loaded. A tree which can't be serialized is kept in the heap.
+ * <p>
+ * The source files can be stored while they are parsed using a {@link Builder}, so that the whole project never needs
+ * to be in the heap.
+ * <p>
+ * Like {@code InMemoryLargeSourceSet}, a source set is immutable: {@link #edit(UnaryOperator)} and
+ * {@link #generate(Collection)} return a new source set sharing the store and keeping the initial state to compute the
+ * changeset.
+ */
+public class DiskLargeSourceSet implements LargeSourceSet {
+    private static final Logger LOG = Logger.getLogger(DiskLargeSourceSet.class.getName());
+
+    private final Store store;
+    private final @Nullable DiskLargeSourceSet initialState;
+    private final List<Slot> slots;
+    // The trees of the initial state keyed by their path, null for the source sets created by a recipe
+    private final @Nullable Map<Path, Slot> slotsByPath;
+    // The trees deleted, keyed by the key of the tree before its deletion, with the recipe stack which deleted them
+    private final Map<Long, List<Recipe>> deletions;
+    private List<Recipe> currentRecipeStack = Collections.emptyList();
+
+    private DiskLargeSourceSet(Store store, @Nullable DiskLargeSourceSet initialState, Map<Long, List<Recipe>> deletions,
+                               List<Slot> slots) {
+        this.store = store;
+        this.initialState = initialState;
+        this.deletions = deletions;
+        this.slots = slots;
+        if (initialState == null) {
+            slotsByPath = new HashMap<>();
+            for (Slot slot : slots) {
+                slotsByPath.putIfAbsent(slot.sourcePath(), slot);
+            }
+        } else {
+            slotsByPath = null;
+        }
+    }
+
+    /**
+     * Creates a source set by storing the source files in a folder. The files of the folder are deleted first.
+     *
+     * @param storeDir the folder where the trees are stored
+     * @param workingSetSize the number of trees kept in the heap
+     * @param sourceFiles the parsed source files
+     * @return the source set
+     */
+    public static DiskLargeSourceSet create(Path storeDir, int workingSetSize, Collection<? extends SourceFile> sourceFiles) {
+        Builder builder = builder(storeDir, workingSetSize);
+        sourceFiles.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * Creates a builder storing the source files in a folder as they are added, e.g. while they are parsed. The files
+     * of the folder are deleted first.
+     *
+     * @param storeDir the folder where the trees are stored
+     * @param workingSetSize the number of trees kept in the heap
+     * @return the builder
+     */
+    public static Builder builder(Path storeDir, int workingSetSize) {
+        return new Builder(new Store(storeDir, workingSetSize));
+    }
+
+    /**
+     * Stores the source files as they are added, only keeping their keys.
+     */
+    public static class Builder {
+        private final Store store;
+        private final List<Slot> slots = new ArrayList<>();
+
+        private Builder(Store store) {
+            this.store = store;
+        }
+
+        /**
+         * Stores a source file.
+         *
+         * @param sourceFile the source file
+         * @return this builder
+         */
+        public Builder add(SourceFile sourceFile) {
+            slots.add(store.put(sourceFile));
+            return this;
+        }
+
+        /**
+         * Returns the number of source files stored.
+         *
+         * @return the number of source files
+         */
+        public int size() {
+            return slots.size();
+        }
+
+        /**
+         * Creates the source set of the source files stored.
+         *
+         * @return the source set
+         */
+        public DiskLargeSourceSet build() {
+            LOG.infof("Stored %d source file(s) in %s, %d of them can't be serialized and are kept in the heap", slots.size(),
+                    store.dir, store.getPinnedCount());
+            return new DiskLargeSourceSet(store, null, Collections.emptyMap(), List.copyOf(slots));
+        }
+    }
+
+    /**
+     * Returns the number of source files of the set.
+     *
+     * @return the number of source files
+     */
+    public int size() {
+        return slots.size();
+    }
+
+    @Override
+    public void setRecipe(List<Recipe> recipeStack) {
+        this.currentRecipeStack = recipeStack;
+    }
+
+    @Override
+    public LargeSourceSet edit(UnaryOperator<SourceFile> map) {
+        List<Slot> mapped = new ArrayList<>(slots.size());
+        Map<Long, List<Recipe>> newDeletions = null;
+        boolean changed = false;
+        for (Slot slot : slots) {
+            SourceFile before = store.get(slot.key());
+            SourceFile after = map.apply(before);
+            if (after == null) {
+                if (newDeletions == null) {
+                    newDeletions = new LinkedHashMap<>(deletions);
+                }
+                newDeletions.put(slot.key(), currentRecipeStack);
+                changed = true;
+            } else if (after != before) {
+                mapped.add(store.put(after));
+                changed = true;
+            } else {
+                mapped.add(slot);
+            }
+        }
+        if (!changed) {
+            return this;
+        }
+        return new DiskLargeSourceSet(store, getInitialState(), newDeletions == null ? deletions : newDeletions, mapped);
+    }
+
+    @Override
+    public LargeSourceSet generate(@Nullable Collection<? extends SourceFile> t) {
+        if (t == null || t.isEmpty()) {
+            return this;
+        }
+        List<Slot> generated = new ArrayList<>(slots.size() + t.size());
+        generated.addAll(slots);
+        for (SourceFile sourceFile : t) {
+            generated.add(store.put(sourceFile));
+        }
+        return new DiskLargeSourceSet(store, getInitialState(), deletions, generated);
+    }
+
+    @Override
+    public Changeset getChangeset() {
+        Map<UUID, Slot> initialSlots = new HashMap<>();
+        for (Slot slot : getInitialState().slots) {
+            initialSlots.put(slot.id(), slot);
+        }
+
+        // Only the keys are collected, the trees of a page are loaded when the page is requested
+        List<Change> changes = new ArrayList<>();
+        for (Slot slot : slots) {
+            Slot original = initialSlots.get(slot.id());
+            if (original == null) {
+                changes.add(new Change(null, slot.key(), null));
+            } else if (original.key() != slot.key()) {
+                changes.add(new Change(original.key(), slot.key(), null));
+            }
+        }
+        for (Map.Entry<Long, List<Recipe>> deletion : deletions.entrySet()) {
+            changes.add(new Change(deletion.getKey(), null, deletion.getValue()));
+        }
+        return new DiskChangeset(store, changes);
+    }
+
+    @Override
+    public @Nullable SourceFile getBefore(Path sourcePath) {
+        Slot slot = getInitialState().slotsByPath.get(sourcePath);
+        return slot == null ? null : store.get(slot.key());
+    }
+
+    private DiskLargeSourceSet getInitialState() {
+        return initialState == null ? this : initialState;
+    }
+
+    /**
+     * A tree of the source set: the key of the tree in the store, and the id and path of the tree which are needed
+     * without loading it.
+     */
+    private record Slot(long key, UUID id, Path sourcePath) {
+    }
+
+    /**
+     * A change of the changeset: the keys of the tree before and after the change, null when it is generated or
+     * deleted.
+     */
+    private record Change(@Nullable Long before, @Nullable Long after, @Nullable List<Recipe> deletedBy) {
+    }
+
+    private static class DiskChangeset implements Changeset {
+        private final Store store;
+        private final List<Change> changes;
+
+        private DiskChangeset(Store store, List<Change> changes) {
+            this.store = store;
+            this.changes = changes;
+        }
+
+        @Override
+        public int size() {
+            return changes.size();
+        }
+
+        @Override
+        public List<Result> getPage(int start, int count) {
+            List<Result> page = new ArrayList<>(Math.min(count, changes.size() - start));
+            for (Change change : changes.subList(start, Math.min(start + count, changes.size()))) {
+                SourceFile before = change.before() == null ? null : store.get(change.before());
+                if (change.after() == null) {
+                    page.add(new Result(before, null, Collections.singleton(change.deletedBy())));
+                } else {
+                    page.add(new Result(before, store.get(change.after())));
+                }
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Store of the trees: a file per tree and a LRU working set of the trees loaded last.
+     */
+    private static class Store {
+        private static final String ENTRY_EXTENSION = ".lst";
+
+        private final Path dir;
+        private final ObjectMapper mapper = LstCache.createMapper();
+        private final AtomicLong nextKey = new AtomicLong();
+        // The trees which can't be serialized
+        private final Map<Long, SourceFile> pinned = new ConcurrentHashMap<>();
+        private final Map<Long, SourceFile> workingSet;
+
+        private Store(Path dir, int workingSetSize) {
+            this.dir = dir;
+            this.workingSet = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, SourceFile> eldest) {
+                    return size() > workingSetSize;
+                }
+            };
+            LstCache.deleteRecursively(dir);
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to create the folder " + dir, e);
+            }
+        }
+
+        private Slot put(SourceFile sourceFile) {
+            long key = nextKey.getAndIncrement();
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(entryPath(key)))) {
+                mapper.writerFor(SourceFile.class).writeValue(out, sourceFile);
+                synchronized (workingSet) {
+                    workingSet.put(key, sourceFile);
+                }
+            } catch (Exception e) {
+                LOG.debugf("Unable to store %s, keeping it in the heap: %s", sourceFile.getSourcePath(), e.getMessage());
+                pinned.put(key, sourceFile);
+                try {
+                    Files.deleteIfExists(entryPath(key));
+                } catch (IOException ex) {
+                    LOG.debugf("Unable to delete %s: %s", entryPath(key), ex.getMessage());
+                }
+            }
+            return new Slot(key, sourceFile.getId(), sourceFile.getSourcePath());
+        }
+
+        private SourceFile get(long key) {
+            SourceFile sourceFile = pinned.get(key);
+            if (sourceFile != null) {
+                return sourceFile;
+            }
+            synchronized (workingSet) {
+                sourceFile = workingSet.get(key);
+            }
+            if (sourceFile != null) {
+                return sourceFile;
+            }
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(entryPath(key)))) {
+                sourceFile = mapper.readValue(in, SourceFile.class);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to load the source file " + key + " from " + dir, e);
+            }
+            synchronized (workingSet) {
+                workingSet.put(key, sourceFile);
+            }
+            return sourceFile;
+        }
+
+        private int getPinnedCount() {
+            return pinned.size();
+        }
+
+        private Path entryPath(long key) {
+            return dir.resolve(key + ENTRY_EXTENSION);
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Inventory of the files of a project, classified by the parser able to read them, and created by walking the tree
+ * only once.
+ * <p>
+ * The exclusion patterns are compiled once and are matched against the path of a file relative to the root of the
+ * project. A folder is skipped when it matches a pattern ending with {@code /**} (e.g. {@code **}{@code /node_modules/**}),
+ * as are the {@code target} and hidden folders and the folders ignored by default by the OmniParser: {@code node_modules},
+ * and the {@code build} and {@code out} folders which are not within a {@code src} folder (where they can be packages).
+ * The size threshold only applies to the resources (files which are not Java, Kotlin or XML files) as done by the
+ * OmniParser.
+ */
+public class FileInventory {
+    private static final Logger LOG = Logger.getLogger(FileInventory.class.getName());
+    // The output folders of the build tools, ignored by default by the OmniParser
+    private static final Set<String> BUILD_DIRECTORIES = Set.of("build", "out");
+
+    /**
+     * The kind of the files, corresponding to the parser used to read them.
+     */
+    public enum Kind {
+        /** Java files parsed by the JavaParser */
+        JAVA,
+        /** Kotlin files parsed by the KotlinParser */
+        KOTLIN,
+        /** XML files parsed by the MavenParser */
+        XML,
+        /** Other files which could be parsed by the OmniParser */
+        RESOURCE
+    }
+
+    private final Map<Kind, List<Path>> files;
+    private final int oversized;
+
+    private FileInventory(Map<Kind, List<Path>> files, int oversized) {
+        this.files = files;
+        this.oversized = oversized;
+    }
+
+    /**
+     * Walk the tree of the project and classify its files.
+     *
+     * @param root the root folder of the project
+     * @param exclusions the glob patterns of the files to exclude
+     * @param sizeThresholdMb the size in MB above which a resource is ignored, 0 or less to not limit the size
+     * @param parallelism the number of workers walking the top level folders concurrently
+     * @return the inventory
+     * @throws IOException if the tree can't be walked
+     */
+    public static FileInventory scan(Path root, Collection<String> exclusions, int sizeThresholdMb, int parallelism) throws IOException {
+        Walker walker = new Walker(root, exclusions, sizeThresholdMb);
+
+        List<Path> topLevelDirs = new ArrayList<>();
+        Batch rootBatch = new Batch();
+        try (Stream<Path> children = Files.list(root)) {
+            for (Path child : children.toList()) {
+                BasicFileAttributes attrs = Files.readAttributes(child, BasicFileAttributes.class);
+                if (attrs.isDirectory()) {
+                    if (!walker.isSkipped(child)) {
+                        topLevelDirs.add(child);
+                    }
+                } else if (attrs.isRegularFile()) {
+                    walker.classify(child, attrs, rootBatch);
+                }
+            }
+        }
+
+        List<Batch> batches = new ArrayList<>();
+        batches.add(rootBatch);
+        if (parallelism <= 1 || topLevelDirs.size() <= 1) {
+            for (Path dir : topLevelDirs) {
+                batches.add(walker.walk(dir));
+            }
+        } else {
+            ExecutorService executor = ThreadPools.newFixedPool("rewrite-file-walker", Math.min(parallelism, topLevelDirs.size()));
+            try {
+                List<Future<Batch>> futures = new ArrayList<>();
+                for (Path dir : topLevelDirs) {
+                    futures.add(executor.submit(() -> walker.walk(dir)));
+                }
+                for (Future<Batch> future : futures) {
+                    batches.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("The scan of the files has been interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException uio) {
+                    throw uio.getCause();
+                }
+                throw new IOException("Unable to scan the files of " + root, e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        Map<Kind, List<Path>> files = new EnumMap<>(Kind.class);
+        int oversized = 0;
+        for (Kind kind : Kind.values()) {
+            List<Path> paths = new ArrayList<>();
+            for (Batch batch : batches) {
+                paths.addAll(batch.files.get(kind));
+            }
+            // Sort the paths to get the same order whatever the order of the walk
+            Collections.sort(paths);
+            files.put(kind, Collections.unmodifiableList(paths));
+        }
+        for (Batch batch : batches) {
+            oversized += batch.oversized;
+        }
+
+        FileInventory inventory = new FileInventory(files, oversized);
+        LOG.debugf("Files found: %d Java, %d Kotlin, %d XML, %d resources (%d resources ignored as bigger than %d MB)",
+                inventory.getJavaFiles().size(), inventory.getKotlinFiles().size(), inventory.getXmlFiles().size(),
+                inventory.getResources().size(), oversized, sizeThresholdMb);
+        return inventory;
+    }
+
+    /**
+     * Creates the inventory of some files of the project, e.g. the files changed since a revision, without walking the
+     * tree. The exclusions, the skipped folders and the size threshold are applied as done by {@link #scan}, and the
+     * files which don't exist anymore are ignored.
+     * <p>
+     * The root pom and the poms of the folders containing the files can be added to the inventory: the modules of the
+     * files are needed to resolve their classpath and to add their markers.
+     *
+     * @param root the root folder of the project
+     * @param selected the absolute paths of the files
+     * @param exclusions the glob patterns of the files to exclude
+     * @param sizeThresholdMb the size in MB above which a resource is ignored, 0 or less to not limit the size
+     * @param withPoms true to add the poms of the modules of the files
+     * @return the inventory
+     * @throws IOException if the attributes of a file can't be read
+     */
+    public static FileInventory of(Path root, Collection<Path> selected, Collection<String> exclusions, int sizeThresholdMb,
+                                   boolean withPoms) throws IOException {
+        Path normalizedRoot = root.toAbsolutePath().normalize();
+        Walker walker = new Walker(normalizedRoot, exclusions, sizeThresholdMb);
+        Batch batch = new Batch();
+        Set<Path> paths = new LinkedHashSet<>();
+        if (withPoms && Files.isRegularFile(normalizedRoot.resolve("pom.xml"))) {
+            paths.add(normalizedRoot.resolve("pom.xml"));
+        }
+        for (Path file : selected) {
+            Path normalized = file.toAbsolutePath().normalize();
+            if (!normalized.startsWith(normalizedRoot) || !Files.isRegularFile(normalized)) {
+                continue;
+            }
+            boolean skipped = false;
+            for (Path dir = normalized.getParent(); !skipped && !dir.equals(normalizedRoot); dir = dir.getParent()) {
+                skipped = walker.isSkipped(dir);
+            }
+            if (!skipped) {
+                paths.add(normalized);
+                for (Path dir = normalized.getParent(); withPoms && dir.startsWith(normalizedRoot); dir = dir.getParent()) {
+                    Path pom = dir.resolve("pom.xml");
+                    if (Files.isRegularFile(pom)) {
+                        paths.add(pom);
+                    }
+                }
+            }
+        }
+        for (Path path : paths) {
+            walker.classify(path, Files.readAttributes(path, BasicFileAttributes.class), batch);
+        }
+
+        Map<Kind, List<Path>> files = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            List<Path> kindPaths = new ArrayList<>(batch.files.get(kind));
+            Collections.sort(kindPaths);
+            files.put(kind, Collections.unmodifiableList(kindPaths));
+        }
+        return new FileInventory(files, batch.oversized);
+    }
+
+    /**
+     * Returns the files of a kind.
+     *
+     * @param kind the kind of files
+     * @return the sorted list of files
+     */
+    public List<Path> get(Kind kind) {
+        return files.get(kind);
+    }
+
+    /**
+     * Returns the Java files.
+     *
+     * @return the sorted list of the Java files
+     */
+    public List<Path> getJavaFiles() {
+        return files.get(Kind.JAVA);
+    }
+
+    /**
+     * Returns the Kotlin files.
+     *
+     * @return the sorted list of the Kotlin files
+     */
+    public List<Path> getKotlinFiles() {
+        return files.get(Kind.KOTLIN);
+    }
+
+    /**
+     * Returns the XML files.
+     *
+     * @return the sorted list of the XML files
+     */
+    public List<Path> getXmlFiles() {
+        return files.get(Kind.XML);
+    }
+
+    /**
+     * Returns the other files, smaller than the size threshold.
+     *
+     * @return the sorted list of the resources
+     */
+    public List<Path> getResources() {
+        return files.get(Kind.RESOURCE);
+    }
+
+    /**
+     * Returns the number of resources ignored as bigger than the size threshold.
+     *
+     * @return the number of oversized resources
+     */
+    public int getOversized() {
+        return oversized;
+    }
+
+    /**
+     * Returns the kind of a file using its extension.
+     *
+     * @param file the file
+     * @return the kind of the file
+     */
+    public static Kind kindOf(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".java")) {
+            return Kind.JAVA;
+        } else if (name.endsWith(".kt")) {
+            return Kind.KOTLIN;
+        } else if (name.endsWith(".xml")) {
+            return Kind.XML;
+        }
+        return Kind.RESOURCE;
+    }
+
+    /**
+     * The files found by a walk of a folder.
+     */
+    private static class Batch {
+        private final Map<Kind, List<Path>> files = new EnumMap<>(Kind.class);
+        private int oversized;
+
+        Batch() {
+            for (Kind kind : Kind.values()) {
+                files.put(kind, new ArrayList<>());
+            }
+        }
+    }
+
+    /**
+     * Walk the folders using the exclusion matchers compiled once.
+     */
+    private static class Walker {
+        private final Path root;
+        private final List<PathMatcher> fileMatchers;
+        private final List<PathMatcher> dirMatchers;
+        private final long sizeThresholdBytes;
+
+        Walker(Path root, Collection<String> exclusions, int sizeThresholdMb) {
+            this.root = root;
+            this.fileMatchers = exclusions.stream()
+                    .map(pattern -> root.getFileSystem().getPathMatcher("glob:" + pattern))
+                    .toList();
+            this.dirMatchers = exclusions.stream()
+                    .filter(pattern -> pattern.endsWith("/**"))
+                    .map(pattern -> root.getFileSystem().getPathMatcher("glob:" + pattern.substring(0, pattern.length() - 3)))
+                    .toList();
+            this.sizeThresholdBytes = sizeThresholdMb > 0 ? sizeThresholdMb * 1024L * 1024L : Long.MAX_VALUE;
+        }
+
+        Batch walk(Path dir) {
+            Batch batch = new Batch();
+            try {
+                Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                        return isSkipped(dir) ? FileVisitResult.SKIP_SUBTREE : FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (attrs.isRegularFile()) {
+                            classify(file, attrs, batch);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return batch;
+        }
+
+        boolean isSkipped(Path dir) {
+            // Skip target directories, hidden directories like .git and the dependencies of the JavaScript projects
+            String dirName = dir.getFileName().toString();
+            if (dirName.equals("target") || dirName.startsWith(".") || dirName.equals("node_modules")) {
+                return true;
+            }
+            Path relativePath = root.relativize(dir);
+            if (BUILD_DIRECTORIES.contains(dirName) && !isWithinSourceFolder(relativePath)) {
+                return true;
+            }
+            for (PathMatcher matcher : dirMatchers) {
+                if (matcher.matches(relativePath)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static boolean isWithinSourceFolder(Path relativePath) {
+            for (int i = 0; i < relativePath.getNameCount() - 1; i++) {
+                if (relativePath.getName(i).toString().equals("src")) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void classify(Path file, BasicFileAttributes attrs, Batch batch) {
+            Path relativePath = root.relativize(file);
+            for (PathMatcher matcher : fileMatchers) {
+                if (matcher.matches(relativePath)) {
+                    return;
+                }
+            }
+            Kind kind = kindOf(file);
+            if (kind == Kind.RESOURCE && attrs.size() > sizeThresholdBytes) {
+                batch.oversized++;
+                return;
+            }
+            batch.files.get(kind).add(file);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lists the files changed in a project since a revision, using the {@code git} command of the local repository: no
+ * remote is contacted.
+ * <p>
+ * The files changed are the files added, modified, renamed or copied between the revision and the working tree,
+ * including the changes not committed yet, and the untracked files which are not ignored. The deleted files are not
+ * listed as there is nothing to parse.
+ */
+public final class GitChanges {
+    private static final Logger LOG = Logger.getLogger(GitChanges.class.getName());
+
+    private GitChanges() {
+    }
+
+    /**
+     * Lists the files of a folder changed since a revision.
+     *
+     * @param dir the folder of the project, which can be a sub folder of the repository
+     * @param revision the revision, e.g. a commit, a branch, a tag or {@code HEAD~1}
+     * @return the absolute paths of the files changed under the folder
+     * @throws IllegalArgumentException if the revision starts with a dash, as git would parse it as an option
+     */
+    public static List<Path> changedFiles(Path dir, String revision) {
+        if (revision.startsWith("-")) {
+            throw new IllegalArgumentException("Invalid revision: " + revision);
+        }
+        Path root = dir.toAbsolutePath().normalize();
+        // The revision is resolved to a commit first, so that only a commit id is passed to git diff
+        String commit = git(root, "rev-parse", "--verify", "--quiet", revision + "^{commit}").get(0);
+        Set<String> paths = new LinkedHashSet<>();
+        // --relative lists the paths relative to the folder and ignores the files outside of it
+        paths.addAll(git(root, "diff", "--name-only", "--relative", "--diff-filter=d", commit, "--"));
+        paths.addAll(git(root, "ls-files", "--others", "--exclude-standard"));
+
+        List<Path> files = new ArrayList<>();
+        for (String path : paths) {
+            files.add(root.resolve(path).normalize());
+        }
+        LOG.debugf("Files changed since %s: %d", revision, files.size());
+        return files;
+    }
+
+    private static List<String> git(Path dir, String... args) {
+        List<String> command = new ArrayList<>();
+        command.add("git");
+        // The paths are not quoted nor escaped when they contain special characters
+        command.add("-c");
+        command.add("core.quotePath=false");
+        command.addAll(List.of(args));
+        try {
+            Process process = new ProcessBuilder(command)
+                    .directory(dir.toFile())
+                    .redirectError(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            String output;
+            try (InputStream is = process.getInputStream()) {
+                output = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            int exitCode = process.waitFor();
+            if (exitCode != 0) {
+                throw new RuntimeException("The command '" + String.join(" ", command) + "' failed in " + dir
+                        + " with the exit code " + exitCode);
+            }
+            return output.lines().filter(line -> !line.isBlank()).toList();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to run git in " + dir, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("The command '" + String.join(" ", command) + "' has been interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import org.jboss.logging.Logger;
+import org.openrewrite.ParseExceptionResult;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaParser;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent cache of the parsed {@link SourceFile}s (LST) of a project.
+ * <p>
+ * The cache is organized as follows:
+ * <pre>
+ * target/rewrite/lst-cache/
+ *   &lt;fingerprint&gt;/                  # hash of the classpath entries and of the parser version
+ *     &lt;hash of the source path&gt;.lst   # content hash of the source file + serialized (gzipped JSON) tree
+ * </pre>
+ * The files parsed independently of each other (e.g. the resources) are cached using {@link #parse}: an entry is used
+ * when the content hash of the source file matches the one stored. The files compiled together (e.g. the Java files of
+ * a module, whose types are attributed using the other files) are cached using {@link #parseAll}: the entries store the
+ * hash of the whole group of files, so that they are all parsed again when one of the files is added, modified or
+ * deleted. When the resolved classpath or the version of the parsers change, then a new fingerprint folder is created
+ * and the older ones are deleted.
+ * <p>
+ * A tree which can't be serialized or deserialized is simply parsed again. The types attributed using the classpath,
+ * e.g. the compiled classes of another module, are not hashed: a tree is only parsed again when the classpath itself
+ * changes.
+ */
+public class LstCache {
+    private static final Logger LOG = Logger.getLogger(LstCache.class.getName());
+
+    private static final String ENTRY_EXTENSION = ".lst";
+
+    private final Path generationDir;
+    private final ObjectMapper mapper;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private LstCache(Path generationDir) {
+        this.generationDir = generationDir;
+        this.mapper = createMapper();
+    }
+
+    /**
+     * Opens the cache stored under the given folder for the classpath of the project. The entries created for another
+     * classpath or another version of the parsers are deleted.
+     *
+     * @param cacheDir the folder of the cache, e.g. target/rewrite/lst-cache
+     * @param classpath the classpath used to parse the Java files
+     * @return the cache
+     */
+    public static LstCache open(Path cacheDir, Collection<Path> classpath) {
+        String fingerprint = fingerprint(classpath, parserVersion());
+        Path generationDir = cacheDir.resolve(fingerprint);
+        try {
+            Files.createDirectories(generationDir);
+            try (Stream<Path> generations = Files.list(cacheDir)) {
+                generations.filter(p -> !p.equals(generationDir)).forEach(LstCache::deleteRecursively);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create the folder [" + generationDir + "].", e);
+        }
+        LOG.debugf("Using the LST cache: %s", generationDir);
+        return new LstCache(generationDir);
+    }
+
+    /**
+     * Parse the files which are not (or no longer) available from the cache and load the others from the cache.
+     * The source files newly parsed are stored in the cache. The files must be parsed independently of each other: a
+     * file loaded from the cache doesn't see the changes of the other files.
+     *
+     * @param files the files to parse
+     * @param root the root path of the project against which the source paths are relativized
+     * @param parser the function parsing a list of files
+     * @return the list of the source files, in the order of the files passed
+     */
+    public List<SourceFile> parse(List<Path> files, Path root, Function<List<Path>, Stream<SourceFile>> parser) {
+        Map<Path, SourceFile> cached = new HashMap<>();
+        Map<Path, String> contentHashes = new HashMap<>();
+        List<Path> toParse = new ArrayList<>();
+
+        for (Path file : files) {
+            Path sourcePath = root.relativize(file);
+            String contentHash = contentHash(file);
+            contentHashes.put(sourcePath, contentHash);
+            Optional<SourceFile> sourceFile = load(sourcePath, contentHash);
+            if (sourceFile.isPresent()) {
+                cached.put(sourcePath, sourceFile.get());
+            } else {
+                toParse.add(file);
+            }
+        }
+        hits.addAndGet(cached.size());
+        misses.addAndGet(toParse.size());
+
+        Map<Path, SourceFile> parsed = new HashMap<>();
+        if (!toParse.isEmpty()) {
+            parser.apply(toParse).forEach(sf -> {
+                parsed.put(sf.getSourcePath(), sf);
+                String contentHash = contentHashes.get(sf.getSourcePath());
+                if (contentHash != null && sf.getMarkers().findFirst(ParseExceptionResult.class).isEmpty()) {
+                    store(sf, contentHash);
+                }
+            });
+        }
+
+        // Keep the order of the files passed
+        List<SourceFile> sourceFiles = new ArrayList<>(files.size());
+        for (Path file : files) {
+            Path sourcePath = root.relativize(file);
+            SourceFile sf = cached.containsKey(sourcePath) ? cached.get(sourcePath) : parsed.remove(sourcePath);
+            if (sf != null) {
+                sourceFiles.add(sf);
+            }
+        }
+        // Source files produced by the parser for a path that we don't know (should not happen)
+        sourceFiles.addAll(parsed.values());
+        return sourceFiles;
+    }
+
+    /**
+     * Load all the files from the cache or parse all of them again when at least one file of the group is not cached,
+     * has changed, or when a file has been added to or removed from the group. This is needed for parsers resolving the
+     * files together, like the MavenParser with the parent and child poms or the JavaParser attributing the types
+     * declared by the other files of a module.
+     *
+     * @param files the files to parse
+     * @param root the root path of the project against which the source paths are relativized
+     * @param parser the function parsing a list of files
+     * @return the list of the source files
+     */
+    public List<SourceFile> parseAll(List<Path> files, Path root, Function<List<Path>, Stream<SourceFile>> parser) {
+        return parseAll(files, List.of(), root, parser);
+    }
+
+    /**
+     * Load all the files from the cache or parse all of them again, as done by {@link #parseAll(List, Path, Function)},
+     * the files being also parsed again when one of the context files changed, e.g. the sources of another module
+     * compiled with the files.
+     *
+     * @param files the files to parse
+     * @param contextFiles the files whose content is used to parse the files, but which are not returned
+     * @param root the root path of the project against which the source paths are relativized
+     * @param parser the function parsing a list of files
+     * @return the list of the source files
+     */
+    public List<SourceFile> parseAll(List<Path> files, List<Path> contextFiles, Path root,
+                                     Function<List<Path>, Stream<SourceFile>> parser) {
+        List<Path> group = new ArrayList<>(files);
+        group.addAll(contextFiles);
+        String groupHash = groupHash(group, root);
+        List<SourceFile> cached = new ArrayList<>(files.size());
+        for (Path file : files) {
+            Optional<SourceFile> sourceFile = load(root.relativize(file), groupHash);
+            if (sourceFile.isEmpty()) {
+                cached = null;
+                break;
+            }
+            cached.add(sourceFile.get());
+        }
+        if (cached != null) {
+            hits.addAndGet(cached.size());
+            return cached;
+        }
+
+        misses.addAndGet(files.size());
+        List<SourceFile> sourceFiles = parser.apply(files).toList();
+        for (SourceFile sf : sourceFiles) {
+            if (sf.getMarkers().findFirst(ParseExceptionResult.class).isEmpty()) {
+                store(sf, groupHash);
+            }
+        }
+        return sourceFiles;
+    }
+
+    /**
+     * Returns the number of source files loaded from the cache.
+     *
+     * @return the number of hits
+     */
+    public int getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of source files which have been parsed.
+     *
+     * @return the number of misses
+     */
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private Optional<SourceFile> load(Path sourcePath, String contentHash) {
+        Path entry = entryPath(sourcePath);
+        if (!Files.exists(entry)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(entry))) {
+            if (!contentHash.equals(in.readUTF())) {
+                return Optional.empty();
+            }
+            try (InputStream gzip = new GZIPInputStream(in)) {
+                return Optional.of(mapper.readValue(gzip, SourceFile.class));
+            }
+        } catch (Exception e) {
+            LOG.debugf("Unable to load %s from the LST cache: %s", sourcePath, e.getMessage());
+            deleteRecursively(entry);
+            return Optional.empty();
+        }
+    }
+
+    private void store(SourceFile sourceFile, String contentHash) {
+        Path entry = entryPath(sourceFile.getSourcePath());
+        Path tmp = entry.resolveSibling(entry.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                out.writeUTF(contentHash);
+                try (OutputStream gzip = new GZIPOutputStream(out)) {
+                    mapper.writerFor(SourceFile.class).writeValue(gzip, sourceFile);
+                }
+            }
+            Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            LOG.debugf("Unable to store %s in the LST cache: %s", sourceFile.getSourcePath(), e.getMessage());
+            deleteRecursively(tmp);
+        }
+    }
+
+    private Path entryPath(Path sourcePath) {
+        return generationDir.resolve(sha256(sourcePath.toString().getBytes(StandardCharsets.UTF_8)) + ENTRY_EXTENSION);
+    }
+
+    /**
+     * Computes the fingerprint of a classpath and of the version of the parsers. The size and last modified time of the
+     * jar files are used to detect a jar which has been replaced (e.g. a SNAPSHOT).
+     *
+     * @param classpath the classpath entries
+     * @param parserVersion the version of the parsers
+     * @return the fingerprint
+     */
+    public static String fingerprint(Collection<Path> classpath, String parserVersion) {
+        StringBuilder sb = new StringBuilder(parserVersion).append('\n');
+        for (Path entry : classpath) {
+            sb.append(entry);
+            try {
+                if (Files.isRegularFile(entry)) {
+                    sb.append(':').append(Files.size(entry)).append(':').append(Files.getLastModifiedTime(entry).toMillis());
+                }
+            } catch (IOException e) {
+                // The entry is then only identified by its path
+            }
+            sb.append('\n');
+        }
+        return sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the version of the OpenRewrite parsers and of the Java runtime used to parse the files.
+     *
+     * @return the parser version
+     */
+    public static String parserVersion() {
+        String version = JavaParser.class.getPackage().getImplementationVersion();
+        if (version == null) {
+            // Use the name of the jar, e.g. rewrite-java-8.79.4.jar
+            try {
+                version = Path.of(JavaParser.class.getProtectionDomain().getCodeSource().getLocation().toURI())
+                        .getFileName().toString();
+            } catch (Exception e) {
+                version = "unknown";
+            }
+        }
+        return version + "/java-" + System.getProperty("java.specification.version");
+    }
+
+    /**
+     * Computes the hash of a group of files from their source paths and contents, whatever their order.
+     */
+    private static String groupHash(List<Path> files, Path root) {
+        StringBuilder sb = new StringBuilder();
+        files.stream()
+                .map(file -> root.relativize(file) + ":" + contentHash(file))
+                .sorted()
+                .forEach(line -> sb.append(line).append('\n'));
+        return sha256(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String contentHash(Path file) {
+        try {
+            return sha256(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read the file " + file, e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static void deleteRecursively(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException e) {
+                    LOG.debugf("Unable to delete %s: %s", p, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            LOG.debugf("Unable to delete %s: %s", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Creates the Jackson mapper able to serialize the trees. The LST classes are serialized using their fields and
+     * deserialized using their constructors.
+     */
+    static ObjectMapper createMapper() {
+        ObjectMapper mapper = JsonMapper.builder()
+                .build()
+                .registerModule(new ParameterNamesModule())
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        mapper.setVisibility(PropertyAccessor.CREATOR, JsonAutoDetect.Visibility.ANY);
+        return mapper;
+    }
+}
@@ -0,0 +1,101 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jboss.logging.Logger;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Changeset;
+import org.openrewrite.LargeSourceSet;
+import org.openrewrite.Recipe;
+import org.openrewrite.SourceFile;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link LargeSourceSet} stopping the visit of the source files once the recipes produced results for a number of
+ * them, e.g. to check if a code base uses a type using a search recipe without visiting all its files.
+ * <p>
+ * A source file matches when the recipes return another tree than the one visited: a search recipe adds a
+ * {@code SearchResult} marker to the trees matching. Once the limit is reached, the remaining source files are returned
+ * as is, without calling the recipes, and the next cycles don't visit any file. The source files returned by
+ * {@link #edit(UnaryOperator)} and {@link #generate(Collection)} share the count of the matches.
+ */
+public class MatchLimitedSourceSet implements LargeSourceSet {
+    private static final Logger LOG = Logger.getLogger(MatchLimitedSourceSet.class.getName());
+
+    private final LargeSourceSet delegate;
+    private final int maxMatches;
+    private final AtomicInteger matches;
+
+    /**
+     * Creates a new MatchLimitedSourceSet.
+     *
+     * @param delegate the source set visited
+     * @param maxMatches the number of source files matching after which the visit stops
+     */
+    public MatchLimitedSourceSet(LargeSourceSet delegate, int maxMatches) {
+        this(delegate, maxMatches, new AtomicInteger());
+    }
+
+    private MatchLimitedSourceSet(LargeSourceSet delegate, int maxMatches, AtomicInteger matches) {
+        this.delegate = delegate;
+        this.maxMatches = maxMatches;
+        this.matches = matches;
+    }
+
+    /**
+     * Returns the number of source files which matched.
+     *
+     * @return the number of matches
+     */
+    public int getMatches() {
+        return matches.get();
+    }
+
+    /**
+     * Returns whether the limit of matches has been reached.
+     *
+     * @return true if the source files are no longer visited
+     */
+    public boolean isLimitReached() {
+        return matches.get() >= maxMatches;
+    }
+
+    @Override
+    public void setRecipe(List<Recipe> recipeStack) {
+        delegate.setRecipe(recipeStack);
+    }
+
+    @Override
+    public LargeSourceSet edit(UnaryOperator<SourceFile> map) {
+        LargeSourceSet edited = delegate.edit(sourceFile -> {
+            if (isLimitReached()) {
+                return sourceFile;
+            }
+            SourceFile after = map.apply(sourceFile);
+            if (after != sourceFile && matches.incrementAndGet() == maxMatches) {
+                LOG.infof("The limit of %d match(es) is reached, the remaining source files are not visited", maxMatches);
+            }
+            return after;
+        });
+        return edited == delegate ? this : new MatchLimitedSourceSet(edited, maxMatches, matches);
+    }
+
+    @Override
+    public LargeSourceSet generate(@Nullable Collection<? extends SourceFile> t) {
+        LargeSourceSet generated = delegate.generate(t);
+        return generated == delegate ? this : new MatchLimitedSourceSet(generated, maxMatches, matches);
+    }
+
+    @Override
+    public Changeset getChangeset() {
+        return delegate.getChangeset();
+    }
+
+    @Override
+    public @Nullable SourceFile getBefore(Path sourcePath) {
+        return delegate.getBefore(sourcePath);
+    }
+}
@@ -36,6 +36,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -43,6 +44,11 @@ import java.util.stream.Collectors;
 /**
  * Utility class for resolving Maven artifacts from GAV (Group:Artifact:Version) coordinates.
  * Supports downloading artifacts from Maven repositories and caching them locally.
+ * <p>
+ * Creating a resolver bootstraps a MIMA context: the Maven settings are read and the repository system is created, so a
+ * resolver is meant to be created once and reused, e.g. by all the runs of a {@code RewriteService}. A resolver is
+ * thread-safe: the repository system and its session can be used concurrently, as done when the modules of a reactor
+ * are resolved in parallel.
  */
 public class MavenArtifactResolver implements Closeable {
     private final Logger logger = Logger.getLogger(MavenArtifactResolver.class.getName());
@@ -115,21 +121,35 @@ public class MavenArtifactResolver implements Closeable {
     }
 
     /**
-     * Resolves a list of jar paths or GAV coordinates to actual file paths.
+     * Resolves a list of jar paths or GAV coordinates to actual file paths. The GAV coordinates are resolved together,
+     * so that the repository system looks them up in the local repository and downloads the missing ones concurrently.
      *
      * @param jarPathsOrCoordinates list of file paths or GAV coordinates
-     * @return list of resolved file paths
+     * @return list of resolved file paths, in the order of the jar paths or coordinates
      * @throws ArtifactResolutionException if artifact resolution fails
      */
     public List<Path> resolveArtifacts(List<String> jarPathsOrCoordinates) throws ArtifactResolutionException {
-        List<Path> resolvedPaths = new ArrayList<>();
+        List<ArtifactRequest> requests = new ArrayList<>();
+        for (String jarPathOrCoordinate : jarPathsOrCoordinates) {
+            if (isGavCoordinate(jarPathOrCoordinate)) {
+                requests.add(new ArtifactRequest(new DefaultArtifact(jarPathOrCoordinate.trim()), repositories, null));
+            }
+        }
+
+        Iterator<ArtifactResult> results = Collections.emptyIterator();
+        if (!requests.isEmpty()) {
+            logger.debugf("Resolving %d Maven artifact(s): %s", requests.size(),
+                    requests.stream().map(r -> r.getArtifact().toString()).collect(Collectors.joining(", ")));
+            // The results are returned in the order of the requests
+            results = repositorySystem.resolveArtifacts(session, requests).iterator();
+        }
 
+        List<Path> resolvedPaths = new ArrayList<>();
         for (String jarPathOrCoordinate : jarPathsOrCoordinates) {
             if (isGavCoordinate(jarPathOrCoordinate)) {
-                logger.debugf("Resolving Maven artifact: %s",jarPathOrCoordinate);
-                Path resolvedPath = resolveArtifact(jarPathOrCoordinate);
+                Path resolvedPath = results.next().getArtifact().getFile().toPath();
                 resolvedPaths.add(resolvedPath);
-                logger.debugf("Resolved to: %s",resolvedPath);
+                logger.debugf("Resolved %s to: %s", jarPathOrCoordinate, resolvedPath);
             } else {
                 // It's a file path, use as-is
                 resolvedPaths.add(Paths.get(jarPathOrCoordinate));
@@ -184,6 +204,30 @@ public class MavenArtifactResolver implements Closeable {
         return resolvedPaths;
     }
 
+    /**
+     * Resolves artifacts with their transitive dependencies using a disk cache. The classpath cached is returned directly
+     * when the dependencies, dependency management and repositories of the model didn't change and all the jars still
+     * exist, otherwise the dependencies are resolved and the result is cached.
+     *
+     * @param model The Maven model
+     * @param cacheDir the folder of the classpath cache
+     * @return list of resolved file paths including transitive dependencies
+     */
+    public List<Path> resolveArtifactsWithDependencies(Model model, Path cacheDir) {
+        ClasspathCache cache = new ClasspathCache(cacheDir);
+        String key = ClasspathCache.key(model, repositories);
+
+        Optional<List<Path>> cached = cache.load(key);
+        if (cached.isPresent()) {
+            logger.debugf("Using the classpath cached: %s", key);
+            return cached.get();
+        }
+
+        List<Path> resolvedPaths = resolveArtifactsWithDependencies(model);
+        cache.store(key, resolvedPaths);
+        return resolvedPaths;
+    }
+
     /**
      * Converts Maven model dependencies to Aether dependency objects.
      * This is the recommended object for Aether resolution as it retains the scope and optionality.
@@ -0,0 +1,275 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.jboss.logging.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * The modules of a Maven project: the root pom and the modules declared using {@code <modules>}, recursively.
+ * <p>
+ * Each source file belongs to the deepest module containing it, so that it is parsed using the classpath of its module
+ * and gets the markers of its module. The classpath of a module is made of its resolved dependencies, except the
+ * modules of the reactor which are not resolved from the repositories but replaced by their {@code target/classes}
+ * folder when they have been compiled. The sources of the modules which have not been compiled must then be parsed
+ * with the files of the module, see {@link #reactorDependencies(Module)}.
+ */
+public class MavenReactor {
+    private static final Logger LOG = Logger.getLogger(MavenReactor.class.getName());
+
+    /**
+     * A module of the reactor.
+     *
+     * @param dir the folder of the module
+     * @param model the effective model of the module
+     */
+    public record Module(Path dir, Model model) {
+
+        /**
+         * Returns the {@code groupId:artifactId} of the module.
+         *
+         * @return the key of the module
+         */
+        public String key() {
+            return model.getGroupId() + ":" + model.getArtifactId();
+        }
+    }
+
+    private final Module root;
+    private final List<Module> modules;
+
+    private MavenReactor(Module root, List<Module> modules) {
+        this.root = root;
+        this.modules = modules;
+    }
+
+    /**
+     * Discovers the modules of a project from its root pom.
+     *
+     * @param rootDir the root folder of the project, containing the {@code pom.xml}
+     * @param resolver the resolver loading the models
+     * @return the reactor
+     */
+    public static MavenReactor discover(Path rootDir, MavenArtifactResolver resolver) {
+        List<Module> modules = new ArrayList<>();
+        Set<Path> visited = new HashSet<>();
+        collect(rootDir.toAbsolutePath().normalize(), resolver, modules, visited);
+        LOG.debugf("Modules of the reactor: %s", modules.stream().map(Module::key).toList());
+        return new MavenReactor(modules.getFirst(), List.copyOf(modules));
+    }
+
+    private static void collect(Path dir, MavenArtifactResolver resolver, List<Module> modules, Set<Path> visited) {
+        if (!visited.add(dir)) {
+            return;
+        }
+        Model model = resolver.loadModel(dir.resolve("pom.xml"));
+        modules.add(new Module(dir, model));
+        for (String module : model.getModules()) {
+            Path moduleDir = dir.resolve(module).normalize();
+            // A module can also reference a pom file instead of a folder
+            if (Files.isRegularFile(moduleDir)) {
+                moduleDir = moduleDir.getParent();
+            }
+            if (Files.isRegularFile(moduleDir.resolve("pom.xml"))) {
+                collect(moduleDir, resolver, modules, visited);
+            } else {
+                LOG.warnf("The module %s of %s has no pom.xml, its files are parsed with its parent", module, dir);
+            }
+        }
+    }
+
+    /**
+     * Returns the root module.
+     *
+     * @return the root module
+     */
+    public Module getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the modules of the reactor, the root module first.
+     *
+     * @return the modules
+     */
+    public List<Module> getModules() {
+        return modules;
+    }
+
+    /**
+     * Returns the module containing a file: the module whose folder is the deepest parent of the file.
+     *
+     * @param file the absolute path of the file
+     * @return the module of the file, the root module if the file doesn't belong to another module
+     */
+    public Module moduleOf(Path file) {
+        Path normalized = file.toAbsolutePath().normalize();
+        Module found = root;
+        for (Module module : modules) {
+            if (normalized.startsWith(module.dir()) && module.dir().getNameCount() > found.dir().getNameCount()) {
+                found = module;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Groups the files by module, in the order of the modules.
+     *
+     * @param files the absolute paths of the files
+     * @return the files of each module having files
+     */
+    public Map<Module, List<Path>> partition(Collection<Path> files) {
+        Map<Module, List<Path>> partition = new LinkedHashMap<>();
+        for (Module module : modules) {
+            partition.put(module, new ArrayList<>());
+        }
+        for (Path file : files) {
+            partition.get(moduleOf(file)).add(file);
+        }
+        partition.values().removeIf(List::isEmpty);
+        return partition;
+    }
+
+    /**
+     * Resolves the classpath of the modules in parallel.
+     *
+     * @param modulesToResolve the modules whose classpath is resolved
+     * @param resolver the resolver
+     * @param cacheDir the folder of the classpath cache
+     * @param parallelism the number of modules resolved concurrently
+     * @return the classpath of each module
+     */
+    public Map<Module, List<Path>> resolveClasspaths(Collection<Module> modulesToResolve, MavenArtifactResolver resolver,
+                                                     Path cacheDir, int parallelism) {
+        Map<Module, List<Path>> classpaths = new LinkedHashMap<>();
+        if (parallelism <= 1 || modulesToResolve.size() <= 1) {
+            for (Module module : modulesToResolve) {
+                classpaths.put(module, resolveClasspath(module, resolver, cacheDir));
+            }
+            return classpaths;
+        }
+
+        ExecutorService executor = ThreadPools.newFixedPool("rewrite-resolver", Math.min(parallelism, modulesToResolve.size()));
+        try {
+            Map<Module, Future<List<Path>>> futures = new LinkedHashMap<>();
+            for (Module module : modulesToResolve) {
+                futures.put(module, executor.submit(() -> resolveClasspath(module, resolver, cacheDir)));
+            }
+            for (Map.Entry<Module, Future<List<Path>>> future : futures.entrySet()) {
+                classpaths.put(future.getKey(), future.getValue().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("The resolution of the classpaths has been interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException("Unable to resolve the classpaths of the modules", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return classpaths;
+    }
+
+    /**
+     * Returns the modules of the reactor a module depends on, directly or transitively. The test dependencies of the
+     * other modules are not followed.
+     *
+     * @param module the module
+     * @return the modules of the reactor, in the order they are reached
+     */
+    public List<Module> reactorDependencies(Module module) {
+        Map<String, Module> reactorModules = new LinkedHashMap<>();
+        for (Module m : modules) {
+            reactorModules.put(m.key(), m);
+        }
+
+        List<Module> dependencies = new ArrayList<>();
+        Set<String> reached = new HashSet<>();
+        reached.add(module.key());
+        List<Module> toVisit = new ArrayList<>(List.of(module));
+        while (!toVisit.isEmpty()) {
+            Module current = toVisit.removeFirst();
+            for (Dependency dependency : current.model().getDependencies()) {
+                if (current != module && "test".equals(dependency.getScope())) {
+                    continue;
+                }
+                Module reactorModule = reactorModules.get(dependency.getGroupId() + ":" + dependency.getArtifactId());
+                if (reactorModule != null && reached.add(reactorModule.key())) {
+                    toVisit.add(reactorModule);
+                    dependencies.add(reactorModule);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    /**
+     * Resolves the classpath of a module. The dependencies on other modules of the reactor are replaced by their
+     * compiled classes, and their own dependencies (except the test ones) are resolved with the dependencies of the
+     * module.
+     */
+    private List<Path> resolveClasspath(Module module, MavenArtifactResolver resolver, Path cacheDir) {
+        Set<String> reactorKeys = new HashSet<>();
+        for (Module m : modules) {
+            reactorKeys.add(m.key());
+        }
+        List<Module> reactorDependencies = reactorDependencies(module);
+
+        List<Dependency> external = new ArrayList<>();
+        List<Module> withDependencies = new ArrayList<>(List.of(module));
+        withDependencies.addAll(reactorDependencies);
+        for (Module current : withDependencies) {
+            for (Dependency dependency : current.model().getDependencies()) {
+                if (current != module && "test".equals(dependency.getScope())) {
+                    continue;
+                }
+                if (!reactorKeys.contains(dependency.getGroupId() + ":" + dependency.getArtifactId())) {
+                    external.add(dependency);
+                }
+            }
+        }
+        List<Path> reactorClasses = new ArrayList<>();
+        for (Module reactorModule : reactorDependencies) {
+            Path classes = reactorModule.dir().resolve("target").resolve("classes");
+            if (Files.isDirectory(classes)) {
+                reactorClasses.add(classes);
+            }
+        }
+
+        Model model = module.model().clone();
+        model.setDependencies(external);
+        List<Path> classpath = new ArrayList<>(resolver.resolveArtifactsWithDependencies(model, cacheDir));
+        classpath.addAll(reactorClasses);
+        LOG.debugf("Classpath of the module %s: %d entries", module.key(), classpath.size());
+        return classpath;
+    }
+
+    /**
+     * Returns the folder of the main Java sources of a module, {@code src/main/java} by default.
+     *
+     * @param module the module
+     * @return the folder of the sources
+     */
+    public static Path sourceDirectory(Module module) {
+        String sourceDirectory = module.model().getBuild() != null ? module.model().getBuild().getSourceDirectory() : null;
+        if (sourceDirectory == null || sourceDirectory.isBlank()) {
+            return module.dir().resolve("src").resolve("main").resolve("java");
+        }
+        return module.dir().resolve(sourceDirectory).normalize();
+    }
+}
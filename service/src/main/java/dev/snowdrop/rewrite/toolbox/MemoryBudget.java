@@ -0,0 +1,129 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jboss.logging.Logger;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monitors the usage of the heap while the project is parsed or the recipes are run, so that the service degrades
+ * gracefully instead of dying with an {@link OutOfMemoryError} when the heap is almost full.
+ * <p>
+ * The budget is a percentage of the maximum size of the heap memory pools. The JVM notifies the {@link MemoryMXBean}
+ * listeners when a pool still exceeds its budget after a garbage collection, so that the garbage not collected yet
+ * doesn't count. The first notification calls the reaction (e.g. to drop the caches), and {@link #isExceeded()} then
+ * tells the parsing to save memory for the rest of the run. The usage of the pools after the last collection is also
+ * checked by {@link #isExceeded()}, in case the notification is not delivered yet.
+ * <p>
+ * The thresholds of the pools are global to the JVM: when several budgets monitor the heap, e.g. the services of a
+ * batch, they are set for the lowest budget, each budget checking its own percentage when notified. They are reset when
+ * the last budget monitoring the heap is closed.
+ */
+public class MemoryBudget implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(MemoryBudget.class.getName());
+
+    /** The size of the files skipped once the budget is exceeded */
+    public static final long DEGRADED_FILE_SIZE_BYTES = 512 * 1024;
+
+    // The percentages of the budgets monitoring the heap, e.g. the services of a batch
+    private static final List<Integer> ACTIVE = new ArrayList<>();
+
+    private final int percent;
+    private final Runnable reaction;
+    private final AtomicBoolean exceeded = new AtomicBoolean();
+    private final List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP && pool.isValid())
+            .toList();
+    private final NotificationListener listener = this::handleNotification;
+
+    /**
+     * Creates a new MemoryBudget and starts monitoring the heap.
+     *
+     * @param percent the percentage of the maximum heap which can be used, between 1 and 100
+     * @param reaction called once, from the thread of the notifications, when the budget is exceeded
+     */
+    public MemoryBudget(int percent, Runnable reaction) {
+        this.percent = Math.min(100, Math.max(1, percent));
+        this.reaction = reaction;
+        synchronized (ACTIVE) {
+            ACTIVE.add(this.percent);
+            updateThresholds(heapPools);
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+    }
+
+    /**
+     * Returns whether the budget has been exceeded since the monitoring started.
+     *
+     * @return true if the memory must be saved
+     */
+    public boolean isExceeded() {
+        if (!exceeded.get()) {
+            for (MemoryPoolMXBean pool : heapPools) {
+                MemoryUsage usage = pool.isCollectionUsageThresholdSupported() ? pool.getCollectionUsage() : null;
+                if (usage != null && usage.getMax() > 0 && usage.getUsed() > usage.getMax() / 100 * percent) {
+                    exceed(pool.getName());
+                    break;
+                }
+            }
+        }
+        return exceeded.get();
+    }
+
+    /**
+     * Stops monitoring the heap.
+     */
+    @Override
+    public void close() {
+        try {
+            ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(listener);
+        } catch (Exception e) {
+            LOG.debugf("Unable to remove the memory listener: %s", e.getMessage());
+        }
+        synchronized (ACTIVE) {
+            ACTIVE.remove(Integer.valueOf(percent));
+            updateThresholds(heapPools);
+        }
+    }
+
+    // Sets the thresholds for the lowest budget, or disables them when no budget is monitoring the heap anymore
+    private static void updateThresholds(List<MemoryPoolMXBean> pools) {
+        int lowest = ACTIVE.stream().mapToInt(Integer::intValue).min().orElse(0);
+        for (MemoryPoolMXBean pool : pools) {
+            long max = pool.getUsage().getMax();
+            if (max > 0 && pool.isCollectionUsageThresholdSupported()) {
+                pool.setCollectionUsageThreshold(max * lowest / 100);
+            }
+        }
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(type)) {
+            // The threshold may be the one of a lower budget
+            MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+            MemoryUsage usage = info.getUsage();
+            if (usage.getMax() <= 0 || usage.getUsed() > usage.getMax() / 100 * percent) {
+                exceed(info.getPoolName());
+            }
+        }
+    }
+
+    private void exceed(String pool) {
+        if (exceeded.compareAndSet(false, true)) {
+            LOG.warnf("The memory budget of %d%% of the heap is exceeded (%s), degrading the run to save memory", percent, pool);
+            reaction.run();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.openrewrite.Result;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Write the diffs of the results to patch file(s) one result at a time, so that the diffs never have to be kept all
+ * together in memory.
+ * <p>
+ * The diffs can be computed concurrently by a pool of workers. In this case, a bounded window of diffs is computed
+ * ahead and the diffs are written following the order of the results, so the content of the patch is deterministic.
+ * <p>
+ * The patch can be compressed using gzip ({@code rewrite.patch.gz}) and split per Maven module: the diff of a result is
+ * then written to the patch of the closest folder containing a {@code pom.xml}, e.g. {@code rewrite-service.patch}. The
+ * patch of a nested module gets a hash of its path, e.g. {@code rewrite-services_api-1f2e3d4c.patch}.
+ */
+public class PatchWriter {
+
+    private static final String PATCH_NAME = "rewrite";
+
+    private final Path root;
+    private final Path outDir;
+    private final boolean compress;
+    private final boolean perModule;
+    private final int parallelism;
+    private final Map<Path, String> modules = new HashMap<>();
+
+    /**
+     * Creates a new PatchWriter.
+     *
+     * @param root the root folder of the project against which the source paths of the results are resolved
+     * @param outDir the folder where the patch file(s) are written
+     * @param compress true to compress the patch file(s) using gzip
+     * @param perModule true to create one patch file per Maven module
+     * @param parallelism the number of workers computing the diffs
+     */
+    public PatchWriter(Path root, Path outDir, boolean compress, boolean perModule, int parallelism) {
+        this.root = root;
+        this.outDir = outDir;
+        this.compress = compress;
+        this.perModule = perModule;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Computes the diff of the results and writes them to the patch file(s).
+     *
+     * @param results the results to write
+     * @param differ the function computing the diff of a result
+     * @return the patch file(s) written
+     * @throws IOException if a patch file can't be written
+     */
+    public List<Path> write(List<Result> results, Function<Result, String> differ) throws IOException {
+        Files.createDirectories(outDir);
+        Map<String, Writer> writers = new LinkedHashMap<>();
+        try {
+            if (parallelism == 1) {
+                for (Result result : results) {
+                    append(writers, result, differ.apply(result));
+                }
+            } else {
+                writeConcurrently(writers, results, differ);
+            }
+        } finally {
+            IOException closeException = null;
+            for (Writer writer : writers.values()) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    closeException = e;
+                }
+            }
+            if (closeException != null) {
+                throw closeException;
+            }
+        }
+
+        List<Path> patchFiles = new ArrayList<>();
+        for (String module : writers.keySet()) {
+            patchFiles.add(patchFile(module));
+        }
+        return patchFiles;
+    }
+
+    private void writeConcurrently(Map<String, Writer> writers, List<Result> results, Function<Result, String> differ) throws IOException {
+        ExecutorService executor = ThreadPools.newFixedPool("rewrite-patch", parallelism);
+        // Only a few diffs are computed ahead of the one written
+        int window = parallelism * 2;
+        Deque<Future<String>> pending = new ArrayDeque<>(window);
+        try {
+            int next = 0;
+            int written = 0;
+            while (written < results.size()) {
+                while (next < results.size() && pending.size() < window) {
+                    Result result = results.get(next++);
+                    pending.add(executor.submit(() -> differ.apply(result)));
+                }
+                append(writers, results.get(written++), pending.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("The creation of the patch has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Unable to compute the diff: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void append(Map<String, Writer> writers, Result result, String diff) throws IOException {
+        String module = perModule ? moduleOf(result) : "";
+        Writer writer = writers.get(module);
+        if (writer == null) {
+            OutputStream out = Files.newOutputStream(patchFile(module));
+            if (compress) {
+                out = new GZIPOutputStream(out, 64 * 1024);
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writers.put(module, writer);
+        }
+        writer.write(diff);
+        writer.write("\n");
+    }
+
+    private Path patchFile(String module) {
+        return outDir.resolve(patchName(module) + (compress ? ".patch.gz" : ".patch"));
+    }
+
+    /**
+     * Returns the name of the patch of a module. When the path of the module contains characters which are replaced
+     * (e.g. {@code a/b} and {@code a_b} both giving {@code a_b}), a hash of the path is appended so that two modules never
+     * share the same patch.
+     */
+    static String patchName(String module) {
+        if (module.isEmpty()) {
+            return PATCH_NAME;
+        }
+        String sanitized = module.replaceAll("[^a-zA-Z0-9.-]", "_");
+        if (sanitized.equals(module)) {
+            return PATCH_NAME + "-" + module;
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(module.getBytes(StandardCharsets.UTF_8));
+            return PATCH_NAME + "-" + sanitized + "-" + HexFormat.of().formatHex(hash, 0, 4);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the path, relative to the root, of the closest folder of the result having a pom.xml, or an empty string
+     * for the root project.
+     */
+    private String moduleOf(Result result) {
+        Path sourcePath = result.getAfter() != null ? result.getAfter().getSourcePath() : result.getBefore().getSourcePath();
+        Path dir = sourcePath.getParent();
+        List<Path> visited = new ArrayList<>();
+        String module = "";
+        while (dir != null) {
+            String known = modules.get(dir);
+            if (known != null) {
+                module = known;
+                break;
+            }
+            visited.add(dir);
+            if (Files.exists(root.resolve(dir).resolve("pom.xml"))) {
+                module = dir.toString();
+                break;
+            }
+            dir = dir.getParent();
+        }
+        for (Path path : visited) {
+            modules.put(path, module);
+        }
+        return module;
+    }
+}
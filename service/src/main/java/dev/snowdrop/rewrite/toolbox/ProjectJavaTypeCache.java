@@ -0,0 +1,199 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.java.internal.JavaTypeCache;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The {@link JavaTypeCache} of a project, layered over a cache shared by several projects, e.g. a
+ * {@link SharedJavaTypeCache}.
+ * <p>
+ * Only the types of the libraries are stored in the shared cache. The types declared by the sources of the project,
+ * and the types referencing them (methods, generic types, ...), are kept by this cache, so that two projects declaring
+ * a class with the same name never use the type of each other. The types of the libraries are partitioned by the
+ * fingerprint of the classpath of the project: projects using different versions of a library, or a project whose
+ * classpath changed, don't share them. The types of the JDK are shared by all the projects.
+ */
+public class ProjectJavaTypeCache extends JavaTypeCache {
+
+    // The type names declared by a Java file: the package, and the names of the classes, interfaces, enums and records
+    private static final Pattern PACKAGE = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+    private static final Pattern TYPE = Pattern.compile("\\b(?:class|interface|enum|record)\\s+([A-Za-z_$][\\w$]*)");
+
+    private final JavaTypeCache shared;
+    private final String partition;
+    // The map, its lock and the type names are shared by the shallow copies created by clone()
+    private final Object lock = new Object();
+    private final Map<String, Object> projectTypes = new HashMap<>();
+    private final Set<String> projectTypeNames = new HashSet<>();
+
+    /**
+     * Creates a new ProjectJavaTypeCache.
+     *
+     * @param shared the cache shared with the other projects
+     * @param partition the fingerprint of the classpath of the project, see {@link LstCache#fingerprint}
+     * @param projectTypeNames the fully qualified names of the types declared by the sources of the project
+     */
+    public ProjectJavaTypeCache(JavaTypeCache shared, String partition, Collection<String> projectTypeNames) {
+        this.shared = shared;
+        this.partition = partition;
+        this.projectTypeNames.addAll(projectTypeNames);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(String signature) {
+        synchronized (lock) {
+            if (SharedJavaTypeCache.references(signature, projectTypeNames)) {
+                return (T) projectTypes.get(signature);
+            }
+        }
+        return shared.get(sharedKey(signature));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(String signature, Object o) {
+        synchronized (lock) {
+            if (SharedJavaTypeCache.references(signature, projectTypeNames)) {
+                projectTypes.put(signature, o);
+                return;
+            }
+        }
+        shared.put(sharedKey(signature), o);
+    }
+
+    /**
+     * Discards the types of the project, the types of the libraries being kept in the shared cache.
+     */
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            projectTypes.clear();
+        }
+    }
+
+    /**
+     * Returns the number of types of the project.
+     *
+     * @return the number of types kept by this cache
+     */
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return projectTypes.size();
+        }
+    }
+
+    /**
+     * Returns the fingerprint of the classpath partitioning the types of the libraries.
+     *
+     * @return the fingerprint of the classpath
+     */
+    public String getPartition() {
+        return partition;
+    }
+
+    /**
+     * Adds the types declared by new sources of the project, e.g. files created while the project is watched.
+     *
+     * @param typeNames the fully qualified names of the types
+     */
+    public void addProjectTypeNames(Collection<String> typeNames) {
+        synchronized (lock) {
+            projectTypeNames.addAll(typeNames);
+        }
+    }
+
+    /**
+     * Evicts the types of the project whose signature references one of the given types, e.g. the types declared by
+     * the sources which have been modified.
+     *
+     * @param typeNames the fully qualified names of the types
+     * @return the number of types evicted
+     */
+    public int evictReferencing(Set<String> typeNames) {
+        if (typeNames.isEmpty()) {
+            return 0;
+        }
+        int evicted = 0;
+        synchronized (lock) {
+            Iterator<String> it = projectTypes.keySet().iterator();
+            while (it.hasNext()) {
+                if (SharedJavaTypeCache.references(it.next(), typeNames)) {
+                    it.remove();
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Lists the types declared by Java files without parsing them: the names of the nested types are included, which
+     * only keeps more types in the cache of the project.
+     *
+     * @param javaFiles the Java files
+     * @return the fully qualified names of the types declared
+     */
+    public static Set<String> declaredTypeNames(Collection<Path> javaFiles) {
+        Set<String> typeNames = new HashSet<>();
+        for (Path javaFile : javaFiles) {
+            String source;
+            try {
+                source = Files.readString(javaFile);
+            } catch (IOException | RuntimeException e) {
+                // A file which can't be read is not parsed either
+                continue;
+            }
+            Matcher packageMatcher = PACKAGE.matcher(source);
+            String prefix = packageMatcher.find() ? packageMatcher.group(1) + "." : "";
+            Matcher typeMatcher = TYPE.matcher(source);
+            while (typeMatcher.find()) {
+                typeNames.add(prefix + typeMatcher.group(1));
+            }
+        }
+        return typeNames;
+    }
+
+    // The types of the JDK are the same for all the classpaths
+    private String sharedKey(String signature) {
+        return isJdkSignature(signature) ? signature : partition + "|" + signature;
+    }
+
+    private static boolean isJdkSignature(String signature) {
+        int start = -1;
+        for (int i = 0; i <= signature.length(); i++) {
+            boolean namePart = i < signature.length()
+                    && (Character.isJavaIdentifierPart(signature.charAt(i)) || signature.charAt(i) == '.');
+            if (namePart) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                String name = signature.substring(start, i);
+                if (name.indexOf('.') > 0 && !name.startsWith("java.")) {
+                    return false;
+                }
+                start = -1;
+            }
+        }
+        return true;
+    }
+}
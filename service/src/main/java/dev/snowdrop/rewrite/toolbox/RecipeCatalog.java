@@ -0,0 +1,325 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jboss.logging.Logger;
+import org.openrewrite.Recipe;
+import org.openrewrite.config.ClasspathScanningLoader;
+import org.openrewrite.config.DeclarativeRecipe;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Index of the recipes provided by a set of jars: the name of a recipe gives the jar declaring it, its kind (Java class
+ * or YAML) and its source (the class or the YAML resource within the jar).
+ * <p>
+ * Scanning all the classes of the recipe jars is slow, so the catalog is built once for a set of jars and stored as a
+ * TSV file named using the checksums of the jars, e.g. {@code ~/.rewrite/recipe-catalog/<sha256>.tsv}. The catalog
+ * also records the recipes referenced by the recipeList of the YAML recipes, so that only the YAML resources needed
+ * to run a recipe have to be loaded.
+ */
+public class RecipeCatalog {
+    private static final Logger LOG = Logger.getLogger(RecipeCatalog.class.getName());
+
+    // Bumped when the format or the content of the catalog changes
+    private static final String FORMAT_VERSION = "1";
+    private static final String RECIPE_TYPE = "specs.openrewrite.org/v1beta/recipe";
+    private static final String YAML_DIR = "META-INF/rewrite/";
+
+    /**
+     * The kind of recipe.
+     */
+    public enum Kind {
+        /** A recipe implemented by a Java class */
+        CLASS,
+        /** A declarative recipe defined in a YAML resource */
+        YAML
+    }
+
+    /**
+     * A recipe of the catalog.
+     *
+     * @param name the name of the recipe
+     * @param kind the kind of recipe
+     * @param jar the jar declaring the recipe
+     * @param source the class of the recipe, or the path of the YAML resource within the jar
+     * @param references the names of the recipes of the recipeList of a YAML recipe
+     */
+    public record Entry(String name, Kind kind, Path jar, String source, List<String> references) {
+
+        /**
+         * Returns the URI of the YAML resource declaring the recipe.
+         *
+         * @return the jar URI of the resource
+         */
+        public URI sourceUri() {
+            return URI.create("jar:" + jar.toUri() + "!/" + source);
+        }
+    }
+
+    private final Map<String, Entry> entries;
+
+    private RecipeCatalog(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Returns the default folder of the catalogs: ~/.rewrite/recipe-catalog
+     *
+     * @return the folder of the catalogs
+     */
+    public static Path defaultCatalogDir() {
+        return Paths.get(System.getProperty("user.home"), ".rewrite", "recipe-catalog");
+    }
+
+    /**
+     * Loads the catalog of the jars, building it when it doesn't exist yet.
+     *
+     * @param catalogDir the folder of the catalogs
+     * @param jars the recipe jars
+     * @param classLoader the class loader containing the jars
+     * @return the catalog
+     * @throws IOException if the jars can't be read
+     */
+    public static RecipeCatalog load(Path catalogDir, List<Path> jars, ClassLoader classLoader) throws IOException {
+        Path catalogFile = catalogDir.resolve(key(jars) + ".tsv");
+        if (Files.exists(catalogFile)) {
+            try {
+                RecipeCatalog catalog = read(catalogFile);
+                LOG.debugf("Recipe catalog %s loaded: %d recipes", catalogFile, catalog.entries.size());
+                return catalog;
+            } catch (IOException | RuntimeException e) {
+                LOG.warnf("Unable to read the recipe catalog %s, building it again: %s", catalogFile, e.getMessage());
+            }
+        }
+
+        long start = System.currentTimeMillis();
+        RecipeCatalog catalog = build(jars, classLoader);
+        LOG.infof("Recipe catalog built in %d ms: %d recipes", System.currentTimeMillis() - start, catalog.entries.size());
+        try {
+            catalog.write(catalogFile);
+        } catch (IOException e) {
+            LOG.warnf("Unable to store the recipe catalog in %s: %s", catalogDir, e.getMessage());
+        }
+        return catalog;
+    }
+
+    /**
+     * Builds the catalog by scanning the jars.
+     *
+     * @param jars the recipe jars
+     * @param classLoader the class loader containing the jars
+     * @return the catalog
+     * @throws IOException if a jar can't be read
+     */
+    public static RecipeCatalog build(List<Path> jars, ClassLoader classLoader) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (Path jar : jars) {
+            // The YAML recipes are read from the resources, without instantiating them
+            try (JarFile jarFile = new JarFile(jar.toFile())) {
+                for (JarEntry jarEntry : Collections.list(jarFile.entries())) {
+                    String name = jarEntry.getName();
+                    if (name.startsWith(YAML_DIR) && (name.endsWith(".yml") || name.endsWith(".yaml"))) {
+                        try (InputStream is = jarFile.getInputStream(jarEntry)) {
+                            readYamlRecipes(is).forEach((recipeName, references) ->
+                                    entries.putIfAbsent(recipeName, new Entry(recipeName, Kind.YAML, jar, name, references)));
+                        }
+                    }
+                }
+            }
+
+            // The Java recipes are found by scanning the classes of the jar
+            ClasspathScanningLoader loader = new ClasspathScanningLoader(jar, new Properties(), Collections.emptyList(), classLoader);
+            for (Recipe recipe : loader.listRecipes()) {
+                if (!(recipe instanceof DeclarativeRecipe)) {
+                    entries.putIfAbsent(recipe.getName(),
+                            new Entry(recipe.getName(), Kind.CLASS, jar, recipe.getClass().getName(), List.of()));
+                }
+            }
+        }
+        return new RecipeCatalog(entries);
+    }
+
+    /**
+     * Returns the recipe of the catalog.
+     *
+     * @param name the name of the recipe
+     * @return the recipe, or empty if not in the catalog
+     */
+    public Optional<Entry> get(String name) {
+        return Optional.ofNullable(entries.get(name));
+    }
+
+    /**
+     * Returns the recipes of the catalog.
+     *
+     * @return the recipes
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Returns the recipes needed to run the given recipes: the recipes themselves and, recursively, the recipes referenced
+     * by the YAML recipes. A referenced recipe which is not in the catalog but is a class of the class loader doesn't need
+     * to be loaded.
+     *
+     * @param names the names of the recipes to run
+     * @param classLoader the class loader containing the jars
+     * @return the recipes needed, or empty if a recipe is neither in the catalog nor a class of the class loader
+     */
+    public Optional<Set<Entry>> closure(Collection<String> names, ClassLoader classLoader) {
+        Set<Entry> closure = new LinkedHashSet<>();
+        Set<String> visited = new LinkedHashSet<>();
+        Deque<String> pending = new ArrayDeque<>(names);
+        while (!pending.isEmpty()) {
+            String name = pending.poll();
+            if (!visited.add(name)) {
+                continue;
+            }
+            Entry entry = entries.get(name);
+            if (entry == null) {
+                if (!isClass(name, classLoader)) {
+                    LOG.debugf("The recipe %s is not in the catalog", name);
+                    return Optional.empty();
+                }
+                continue;
+            }
+            closure.add(entry);
+            pending.addAll(entry.references());
+        }
+        return Optional.of(closure);
+    }
+
+    /**
+     * Reads the recipes of a YAML document and the recipes referenced by their recipeList.
+     *
+     * @param is the YAML content
+     * @return the names of the recipes and the names of the recipes they reference
+     */
+    public static Map<String, List<String>> readYamlRecipes(InputStream is) {
+        Map<String, List<String>> recipes = new LinkedHashMap<>();
+        Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()));
+        for (Object document : yaml.loadAll(is)) {
+            if (!(document instanceof Map<?, ?> map) || !RECIPE_TYPE.equals(map.get("type"))
+                    || !(map.get("name") instanceof String name)) {
+                continue;
+            }
+            List<String> references = new ArrayList<>();
+            if (map.get("recipeList") instanceof List<?> recipeList) {
+                for (Object recipe : recipeList) {
+                    if (recipe instanceof String recipeName) {
+                        references.add(recipeName);
+                    } else if (recipe instanceof Map<?, ?> recipeWithOptions && recipeWithOptions.size() == 1) {
+                        references.add(String.valueOf(recipeWithOptions.keySet().iterator().next()));
+                    }
+                }
+            }
+            recipes.put(name, references);
+        }
+        return recipes;
+    }
+
+    /**
+     * Computes the key of the catalog of a set of jars using their checksums.
+     */
+    static String key(List<Path> jars) throws IOException {
+        List<String> checksums = new ArrayList<>();
+        for (Path jar : jars) {
+            checksums.add(jar.toAbsolutePath() + "=" + checksum(jar));
+        }
+        Collections.sort(checksums);
+        MessageDigest digest = sha256();
+        digest.update(FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+        for (String checksum : checksums) {
+            digest.update(checksum.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String checksum(Path jar) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream is = new DigestInputStream(Files.newInputStream(jar), digest)) {
+            is.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isClass(String name, ClassLoader classLoader) {
+        try {
+            Class.forName(name, false, classLoader);
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    void write(Path catalogFile) throws IOException {
+        Files.createDirectories(catalogFile.getParent());
+        Path tmp = Files.createTempFile(catalogFile.getParent(), catalogFile.getFileName().toString(), ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write("# name\tkind\tjar\tsource\treferences");
+            writer.newLine();
+            for (Entry entry : entries.values()) {
+                writer.write(String.join("\t", entry.name(), entry.kind().name(), entry.jar().toString(),
+                        entry.source(), String.join(",", entry.references())));
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, catalogFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static RecipeCatalog read(Path catalogFile) throws IOException {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(catalogFile, StandardCharsets.UTF_8)) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] columns = line.split("\t", -1);
+            if (columns.length != 5) {
+                throw new IOException("Invalid line in the recipe catalog: " + line);
+            }
+            List<String> references = columns[4].isEmpty() ? List.of() : Arrays.asList(columns[4].split(","));
+            entries.put(columns[0], new Entry(columns[0], Kind.valueOf(columns[1]), Paths.get(columns[2]), columns[3], references));
+        }
+        return new RecipeCatalog(entries);
+    }
+}
@@ -0,0 +1,155 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jboss.logging.Logger;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaParser;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Parse the Java files of a project using a bounded pool of workers.
+ * <p>
+ * The list of files is split in contiguous shards (one per worker) to keep the files of a same package together, and
+ * each shard is parsed by its own {@link JavaParser} created from the same builder. The builder should be configured
+ * with a thread-safe type cache (see {@link SynchronizedJavaTypeCache}) so that the types of the classpath are only
+ * mapped once. The parsed source files are returned in the order of the files passed.
+ * <p>
+ * As a shard is compiled independently of the others, a type declared in another shard is only attributed if it can
+ * be found on the classpath. The files are therefore only split when the classpath of the builder contains their
+ * compiled classes, otherwise they are parsed in a single compilation so that the parallelism doesn't change the types
+ * attributed.
+ * <p>
+ * Context files can be compiled with the files, e.g. the sources of another module which has not been compiled, to
+ * attribute the types they declare. They are compiled with each shard, but are not returned.
+ */
+public class ShardedJavaParser {
+    private static final Logger LOG = Logger.getLogger(ShardedJavaParser.class.getName());
+
+    private final JavaParser.Builder<? extends JavaParser, ?> parserBuilder;
+    private final int parallelism;
+    private final boolean compiledClasses;
+
+    /**
+     * Creates a new ShardedJavaParser.
+     *
+     * @param parserBuilder the builder used to create one JavaParser per shard
+     * @param parallelism the maximum number of shards parsed concurrently
+     * @param compiledClasses true when the classpath of the builder contains the compiled classes of the files, so that
+     *                        a shard can resolve the types declared by the files of the other shards
+     */
+    public ShardedJavaParser(JavaParser.Builder<? extends JavaParser, ?> parserBuilder, int parallelism,
+                             boolean compiledClasses) {
+        this.parserBuilder = parserBuilder;
+        this.parallelism = Math.max(1, parallelism);
+        this.compiledClasses = compiledClasses;
+    }
+
+    /**
+     * Parse the Java files.
+     *
+     * @param javaFiles the Java files to parse
+     * @param relativeTo the path against which the source path of the files is relativized
+     * @param ctx the execution context
+     * @return the list of the parsed source files, in the order of the Java files
+     */
+    public List<SourceFile> parse(List<Path> javaFiles, Path relativeTo, ExecutionContext ctx) {
+        return parse(javaFiles, List.of(), relativeTo, ctx);
+    }
+
+    /**
+     * Parse the Java files, compiling them with context files whose types they use.
+     *
+     * @param javaFiles the Java files to parse
+     * @param contextFiles the Java files compiled with each shard, but not returned
+     * @param relativeTo the path against which the source path of the files is relativized
+     * @param ctx the execution context
+     * @return the list of the parsed source files, in the order of the Java files
+     */
+    public List<SourceFile> parse(List<Path> javaFiles, List<Path> contextFiles, Path relativeTo, ExecutionContext ctx) {
+        int workers = Math.min(parallelism, javaFiles.size());
+        if (workers > 1 && !compiledClasses) {
+            // A shard would not find the types declared by the files of the other shards
+            LOG.infof("The Java files are not compiled, the %d files are parsed in a single compilation instead of %d shards",
+                    javaFiles.size(), workers);
+            workers = 1;
+        }
+        if (workers <= 1) {
+            return parseWithContext(parserBuilder.build(), javaFiles, contextFiles, relativeTo, ctx);
+        }
+
+        List<List<Path>> shards = shard(javaFiles, workers);
+        LOG.debugf("Parsing %d Java files using %d shards", javaFiles.size(), shards.size());
+
+        ExecutorService executor = ThreadPools.newFixedPool("rewrite-java-parser", workers);
+        try {
+            List<Future<List<SourceFile>>> futures = new ArrayList<>(shards.size());
+            for (List<Path> shard : shards) {
+                JavaParser parser = parserBuilder.build();
+                futures.add(executor.submit(() -> parseWithContext(parser, shard, contextFiles, relativeTo, ctx)));
+            }
+
+            // Merge the shards following their order to get a stable list of source files
+            List<SourceFile> sourceFiles = new ArrayList<>(javaFiles.size());
+            for (Future<List<SourceFile>> future : futures) {
+                sourceFiles.addAll(future.get());
+            }
+            return sourceFiles;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Parsing of the Java files has been interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Unable to parse the Java files: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<SourceFile> parseWithContext(JavaParser parser, List<Path> javaFiles, List<Path> contextFiles,
+                                                     Path relativeTo, ExecutionContext ctx) {
+        if (contextFiles.isEmpty()) {
+            return parser.parse(javaFiles, relativeTo, ctx).toList();
+        }
+        Set<Path> parsed = new HashSet<>(javaFiles);
+        Set<Path> contextPaths = new HashSet<>();
+        List<Path> inputs = new ArrayList<>(javaFiles);
+        for (Path contextFile : contextFiles) {
+            if (!parsed.contains(contextFile)) {
+                contextPaths.add(relativeTo.relativize(contextFile));
+                inputs.add(contextFile);
+            }
+        }
+        return parser.parse(inputs, relativeTo, ctx)
+                .filter(sourceFile -> !contextPaths.contains(sourceFile.getSourcePath()))
+                .toList();
+    }
+
+    /**
+     * Split the files in contiguous shards having nearly the same size.
+     *
+     * @param files the files to split
+     * @param count the number of shards
+     * @return the list of shards
+     */
+    static List<List<Path>> shard(List<Path> files, int count) {
+        List<List<Path>> shards = new ArrayList<>(count);
+        int size = files.size() / count;
+        int remainder = files.size() % count;
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int end = start + size + (i < remainder ? 1 : 0);
+            if (end > start) {
+                shards.add(files.subList(start, end));
+            }
+            start = end;
+        }
+        return shards;
+    }
+}
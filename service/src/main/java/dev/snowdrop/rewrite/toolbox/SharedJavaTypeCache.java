@@ -0,0 +1,212 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.java.internal.JavaTypeCache;
+import org.openrewrite.java.tree.JavaType;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link JavaTypeCache} bounded by a memory budget which can be shared by several services, e.g. the projects of a
+ * batch or of the daemon, so that the types of the common libraries (Spring, Quarkus, Jakarta, ...) are only created
+ * once.
+ * <p>
+ * Like the {@link SynchronizedJavaTypeCache}, it can be used by parsers running on different threads, with the same
+ * limitation: a type read while another parser creates it may not be complete yet. The least
+ * recently used types are evicted when the estimated size of the cache exceeds the budget: an evicted type is simply
+ * created again by the next parser needing it. The size of a type is estimated from its signature and its kind, as the
+ * types reference each other.
+ * <p>
+ * The types are cached by signature: a project doesn't use this cache directly, but through a
+ * {@link ProjectJavaTypeCache} which keeps the types declared by its sources, and partitions the types of the libraries
+ * by the fingerprint of its classpath.
+ */
+public class SharedJavaTypeCache extends JavaTypeCache {
+
+    /** The default memory budget: 512 MB */
+    public static final long DEFAULT_BUDGET_BYTES = 512L * 1024 * 1024;
+
+    // Estimated overhead of an entry of the map and of the signature string, excluding its characters
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * The statistics of the cache.
+     *
+     * @param hits the number of types found
+     * @param misses the number of types not found
+     * @param evictions the number of types evicted to stay within the budget
+     * @param entries the number of types cached
+     * @param estimatedBytes the estimated size of the types cached
+     * @param budgetBytes the memory budget
+     */
+    public record Stats(long hits, long misses, long evictions, int entries, long estimatedBytes, long budgetBytes) {
+
+        /**
+         * Returns the ratio of the lookups which found the type.
+         *
+         * @return the hit rate, between 0 and 1
+         */
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private final long budgetBytes;
+    // The map, its lock and the counters are shared by the shallow copies created by clone()
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, Entry> types = new LinkedHashMap<>(1024, 0.75f, true);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    private record Entry(Object type, int size) {
+    }
+
+    /**
+     * Creates a new and empty SharedJavaTypeCache.
+     *
+     * @param budgetBytes the estimated memory the types cached can use
+     */
+    public SharedJavaTypeCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(String signature) {
+        synchronized (lock) {
+            Entry entry = types.get(signature);
+            if (entry == null) {
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+            return entry == null ? null : (T) entry.type();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(String signature, Object o) {
+        Entry entry = new Entry(o, estimateSize(signature, o));
+        synchronized (lock) {
+            Entry previous = types.put(signature, entry);
+            estimatedBytes.addAndGet(entry.size() - (previous == null ? 0 : previous.size()));
+            Iterator<Entry> eldest = types.values().iterator();
+            while (estimatedBytes.get() > budgetBytes && types.size() > 1 && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                estimatedBytes.addAndGet(-evicted.size());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            types.clear();
+            estimatedBytes.set(0);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return types.size();
+        }
+    }
+
+    /**
+     * Evicts the types whose signature references one of the given types, e.g. the types declared by the sources of a
+     * project which have been modified, while keeping the types of the libraries.
+     *
+     * @param typeNames the fully qualified names of the types
+     * @return the number of types evicted
+     */
+    public int evictReferencing(Set<String> typeNames) {
+        if (typeNames.isEmpty()) {
+            return 0;
+        }
+        int evicted = 0;
+        synchronized (lock) {
+            Iterator<Map.Entry<String, Entry>> it = types.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Entry> entry = it.next();
+                if (references(entry.getKey(), typeNames)) {
+                    it.remove();
+                    estimatedBytes.addAndGet(-entry.getValue().size());
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return the statistics
+     */
+    public Stats getStats() {
+        synchronized (lock) {
+            return new Stats(hits.get(), misses.get(), evictions.get(), types.size(), estimatedBytes.get(), budgetBytes);
+        }
+    }
+
+    /**
+     * Checks if a signature contains one of the type names, the names of the nested types being matched with their
+     * top-level type, e.g. {@code java.util.List<com.acme.Foo$Bar>} references {@code com.acme.Foo}.
+     */
+    static boolean references(String signature, Set<String> typeNames) {
+        int start = -1;
+        for (int i = 0; i <= signature.length(); i++) {
+            boolean namePart = i < signature.length()
+                    && (Character.isJavaIdentifierPart(signature.charAt(i)) || signature.charAt(i) == '.');
+            if (namePart) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                String name = signature.substring(start, i);
+                int nested = name.indexOf('$');
+                if (typeNames.contains(nested < 0 ? name : name.substring(0, nested))) {
+                    return true;
+                }
+                start = -1;
+            }
+        }
+        return false;
+    }
+
+    private static int estimateSize(String signature, Object type) {
+        int size = ENTRY_OVERHEAD + 2 * signature.length();
+        if (type instanceof JavaType.Class) {
+            size += 160;
+        } else if (type instanceof JavaType.Method) {
+            size += 120;
+        } else if (type instanceof JavaType.Variable) {
+            size += 64;
+        } else {
+            size += 48;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,37 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+/**
+ * The source files which have not been parsed to save memory, because the {@link MemoryBudget} was exceeded. The
+ * recipes don't see these files, so their results may be incomplete.
+ */
+public class SkippedSourceFiles extends DataTable<SkippedSourceFiles.Row> {
+
+    /**
+     * Creates a new SkippedSourceFiles data table.
+     *
+     * @param recipe the recipe the data table is reported for
+     */
+    public SkippedSourceFiles(Recipe recipe) {
+        super(recipe, "Skipped source files", "The source files not parsed because the memory budget was exceeded.");
+    }
+
+    /**
+     * A source file not parsed.
+     *
+     * @param sourcePath the path of the file, relative to the project
+     * @param size the size of the file in bytes
+     * @param reason why the file has not been parsed
+     */
+    public record Row(
+            @Column(displayName = "Source path", description = "The path of the file, relative to the project.")
+            String sourcePath,
+            @Column(displayName = "Size", description = "The size of the file in bytes.")
+            long size,
+            @Column(displayName = "Reason", description = "Why the file has not been parsed.")
+            String reason) {
+    }
+}
@@ -0,0 +1,279 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import dev.snowdrop.rewrite.jfr.FileWriteEvent;
+import dev.snowdrop.rewrite.jfr.RewriteEvents;
+import org.jboss.logging.Logger;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.FileAttributes;
+import org.openrewrite.PrintOutputCapture;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+import org.openrewrite.binary.Binary;
+import org.openrewrite.quark.Quark;
+import org.openrewrite.remote.Remote;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write back to the project the source files changed by the recipes and delete the ones deleted.
+ * <p>
+ * The files are written concurrently by a bounded pool of workers. Each file is first written to a temporary file
+ * created next to it and then moved atomically to its location, so that a crash never leaves a half-written source file.
+ * The parent folders of all the files are created before writing them.
+ */
+public class SourceFileWriter {
+    private static final Logger LOG = Logger.getLogger(SourceFileWriter.class.getName());
+
+    private final Path root;
+    private final ExecutionContext ctx;
+    private final int parallelism;
+
+    /**
+     * Creates a new SourceFileWriter.
+     *
+     * @param root the root folder of the project against which the source paths are resolved
+     * @param ctx the execution context used to download the remote files
+     * @param parallelism the number of workers writing the files
+     */
+    public SourceFileWriter(Path root, ExecutionContext ctx, int parallelism) {
+        this.root = root;
+        this.ctx = ctx;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Writes the source files after the changes and deletes the source files deleted.
+     *
+     * @param written the results whose after source file must be written
+     * @param deleted the results whose before source file must be deleted
+     * @return the statistics of the write-back
+     */
+    public Stats write(List<Result> written, List<Result> deleted) {
+        long start = System.nanoTime();
+        AtomicLong bytes = new AtomicLong();
+
+        List<SourceFile> toWrite = new ArrayList<>(written.size());
+        for (Result result : written) {
+            // Don't attempt to write to a Quark; it has already been logged as change that has been made
+            if (result.getAfter() != null && !(result.getAfter() instanceof Quark)) {
+                toWrite.add(result.getAfter());
+            }
+        }
+
+        // Create the parent folders once before writing the files
+        Set<Path> dirs = new TreeSet<>();
+        for (SourceFile sourceFile : toWrite) {
+            Path parent = root.resolve(sourceFile.getSourcePath()).getParent();
+            if (parent != null) {
+                dirs.add(parent);
+            }
+        }
+        for (Path dir : dirs) {
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to create the folder " + dir, e);
+            }
+        }
+
+        int deletedFiles = 0;
+        for (Result result : deleted) {
+            if (result.getBefore() == null) {
+                continue;
+            }
+            Path targetPath = root.resolve(result.getBefore().getSourcePath());
+            try {
+                if (Files.deleteIfExists(targetPath)) {
+                    deletedFiles++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to delete the source file " + targetPath, e);
+            }
+        }
+
+        if (parallelism == 1 || toWrite.size() <= 1) {
+            for (SourceFile sourceFile : toWrite) {
+                bytes.addAndGet(write(sourceFile));
+            }
+        } else {
+            ExecutorService executor = ThreadPools.newFixedPool("rewrite-writer", Math.min(parallelism, toWrite.size()));
+            try {
+                List<Future<Long>> futures = new ArrayList<>(toWrite.size());
+                for (SourceFile sourceFile : toWrite) {
+                    futures.add(executor.submit(() -> write(sourceFile)));
+                }
+                for (Future<Long> future : futures) {
+                    bytes.addAndGet(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("The write of the source files has been interrupted", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw new RuntimeException("Unable to rewrite source files", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        return new Stats(toWrite.size(), bytes.get(), deletedFiles, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Creates an empty temporary file next to the target path. Unlike {@link Files#createTempFile}, which restricts its
+     * permissions to the owner, the file gets the default permissions of the process (following its umask), as a file
+     * generated by a recipe would without the temporary file.
+     */
+    private static Path createTempFile(Path targetPath) throws IOException {
+        while (true) {
+            Path tmpPath = targetPath.resolveSibling("." + targetPath.getFileName() + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong(), 36) + ".tmp");
+            try {
+                Files.newOutputStream(tmpPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE).close();
+                return tmpPath;
+            } catch (FileAlreadyExistsException e) {
+                // Try another name
+            }
+        }
+    }
+
+    /**
+     * Writes a source file to a temporary file and then moves it to the target path.
+     *
+     * @return the number of bytes written
+     */
+    private long write(SourceFile sourceFile) {
+        Path targetPath = root.resolve(sourceFile.getSourcePath());
+        Path tmpPath = null;
+        FileWriteEvent event = new FileWriteEvent();
+        event.begin();
+        try {
+            tmpPath = createTempFile(targetPath);
+            long size;
+            if (sourceFile instanceof Binary binary) {
+                Files.write(tmpPath, binary.getBytes());
+                size = binary.getBytes().length;
+            } else if (sourceFile instanceof Remote remote) {
+                try (InputStream source = remote.getInputStream(ctx);
+                     OutputStream out = Files.newOutputStream(tmpPath)) {
+                    size = source.transferTo(out);
+                }
+            } else {
+                Charset charset = sourceFile.getCharset() == null ? StandardCharsets.UTF_8 : sourceFile.getCharset();
+                byte[] content = sourceFile.printAll(new PrintOutputCapture<>(0, new SanitizedMarkerPrinter()))
+                        .getBytes(charset);
+                Files.write(tmpPath, content);
+                size = content.length;
+            }
+
+            // Keep the permissions of the file replaced
+            if (Files.exists(targetPath)) {
+                try {
+                    Files.setPosixFilePermissions(tmpPath, Files.getPosixFilePermissions(targetPath));
+                } catch (UnsupportedOperationException e) {
+                    // Not a POSIX file system
+                }
+            }
+
+            try {
+                Files.move(tmpPath, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpPath, targetPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            tmpPath = null;
+
+            applyFileAttributes(targetPath.toFile(), sourceFile.getFileAttributes());
+            if (RewriteEvents.isEnabled() && event.shouldCommit()) {
+                event.path = sourceFile.getSourcePath().toString();
+                event.bytes = size;
+                event.commit();
+            }
+            return size;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to rewrite source files", e);
+        } finally {
+            if (tmpPath != null) {
+                try {
+                    Files.deleteIfExists(tmpPath);
+                } catch (IOException e) {
+                    LOG.debugf("Unable to delete the temporary file %s: %s", tmpPath, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static void applyFileAttributes(File targetFile, FileAttributes fileAttributes) {
+        if (fileAttributes == null) {
+            return;
+        }
+        if (targetFile.canRead() != fileAttributes.isReadable()) {
+            //noinspection ResultOfMethodCallIgnored
+            targetFile.setReadable(fileAttributes.isReadable());
+        }
+        if (targetFile.canWrite() != fileAttributes.isWritable()) {
+            //noinspection ResultOfMethodCallIgnored
+            targetFile.setWritable(fileAttributes.isWritable());
+        }
+        if (targetFile.canExecute() != fileAttributes.isExecutable()) {
+            //noinspection ResultOfMethodCallIgnored
+            targetFile.setExecutable(fileAttributes.isExecutable());
+        }
+    }
+
+    /**
+     * Statistics of a write-back.
+     *
+     * @param files the number of files written
+     * @param bytes the number of bytes written
+     * @param deleted the number of files deleted
+     * @param elapsed the time spent
+     */
+    public record Stats(int files, long bytes, int deleted, Duration elapsed) {
+
+        /**
+         * Returns the number of files written per second.
+         *
+         * @return the files per second
+         */
+        public double filesPerSecond() {
+            return files / seconds();
+        }
+
+        /**
+         * Returns the number of bytes written per second.
+         *
+         * @return the bytes per second
+         */
+        public double bytesPerSecond() {
+            return bytes / seconds();
+        }
+
+        private double seconds() {
+            return Math.max(elapsed.toNanos(), 1) / 1_000_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jboss.logging.Logger;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.DataTableStore;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.Recipe;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A {@link DataTableStore} keeping only a bounded number of rows in memory.
+ * <p>
+ * The rows inserted by the recipes are buffered per data table and appended to a file of JSON lines when the buffer is
+ * full, so that search recipes producing millions of rows don't fill the heap. The rows are read back lazily from the
+ * files, one at a time, by {@link #getRows(Class)}: the stream returned should be closed when it is not consumed
+ * entirely.
+ * <p>
+ * The rows can also be forwarded to another store exporting them, e.g. a {@code CsvDataTableStore}. When no folder is
+ * given, the rows are kept in memory and nothing is written to disk.
+ * <p>
+ * When the files are compressed, they are used as the export format of the data tables: each file
+ * ({@code <data table>.jsonl.gz}) starts with a schema header describing the data table and its columns, followed by a
+ * row per line. Each batch of rows is appended as a new gzip member, which is read as a single stream by the gzip
+ * readers.
+ */
+public class StreamingDataTableStore implements DataTableStore, AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(StreamingDataTableStore.class.getName());
+
+    // The data tables recording the run itself, whose rows are not inserted by the recipes
+    private static final Set<String> RUN_DATA_TABLES = Set.of(
+            "org.openrewrite.table.RecipeRunStats",
+            "org.openrewrite.table.SourcesFileResults",
+            "org.openrewrite.table.SourcesFileErrors");
+
+    /** The default number of rows buffered per data table before being written to disk */
+    public static final int DEFAULT_BUFFER_SIZE = 1000;
+
+    private final @Nullable Path dir;
+    private final int bufferSize;
+    private final @Nullable DataTableStore exporter;
+    private final boolean compressed;
+    private final ObjectMapper mapper = LstCache.createMapper();
+    private final Map<String, Table> tables = new LinkedHashMap<>();
+    // The number of rows inserted by each recipe
+    private final Map<String, LongAdder> rowsByRecipe = new ConcurrentHashMap<>();
+
+    /**
+     * The rows of a data table: the rows buffered and the file where they are written.
+     */
+    private static class Table {
+        private final DataTable<?> dataTable;
+        private final @Nullable Path file;
+        private final List<Object> buffer = new ArrayList<>();
+        private Class<?> rowType;
+        private long rows;
+
+        Table(DataTable<?> dataTable, @Nullable Path file) {
+            this.dataTable = dataTable;
+            this.file = file;
+        }
+    }
+
+    /**
+     * Creates a new StreamingDataTableStore keeping the rows in memory, e.g. when the data tables are not exported.
+     */
+    public StreamingDataTableStore() {
+        this.dir = null;
+        this.bufferSize = Integer.MAX_VALUE;
+        this.exporter = null;
+        this.compressed = false;
+    }
+
+    /**
+     * Creates a new StreamingDataTableStore.
+     *
+     * @param dir the folder where the rows are written
+     * @param bufferSize the number of rows buffered per data table
+     * @param exporter the store the rows are also forwarded to, or null
+     */
+    public StreamingDataTableStore(Path dir, int bufferSize, @Nullable DataTableStore exporter) {
+        this(dir, bufferSize, exporter, false);
+    }
+
+    /**
+     * Creates a new StreamingDataTableStore.
+     *
+     * @param dir the folder where the rows are written
+     * @param bufferSize the number of rows buffered per data table
+     * @param exporter the store the rows are also forwarded to, or null
+     * @param compressed true to write the files compressed using gzip, with a schema header
+     */
+    public StreamingDataTableStore(Path dir, int bufferSize, @Nullable DataTableStore exporter, boolean compressed) {
+        this.dir = dir;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.exporter = exporter;
+        this.compressed = compressed;
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create the folder [" + dir + "].", e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public <Row> void insertRow(DataTable<Row> dataTable, ExecutionContext ctx, Row row) {
+        if (exporter != null) {
+            exporter.insertRow(dataTable, ctx, row);
+        }
+        if (!RUN_DATA_TABLES.contains(dataTable.getName())
+            && ctx.getMessage(ExecutionContext.CURRENT_RECIPE) instanceof Recipe recipe) {
+            rowsByRecipe.computeIfAbsent(recipe.getName(), name -> new LongAdder()).increment();
+        }
+        Table table;
+        synchronized (tables) {
+            table = tables.computeIfAbsent(dataTable.getName(),
+                    name -> new Table(dataTable,
+                            dir == null ? null : dir.resolve(fileName(name) + (compressed ? ".jsonl.gz" : ".jsonl"))));
+        }
+        synchronized (table) {
+            table.rowType = row.getClass();
+            table.buffer.add(row);
+            table.rows++;
+            if (table.buffer.size() >= bufferSize) {
+                flush(table);
+            }
+        }
+    }
+
+    /**
+     * Returns lazily the rows of a data table, read from the disk.
+     *
+     * @param dataTableClass the class of the data table
+     * @param <Row> the type of the rows
+     * @return the rows, empty if the data table has no row
+     * @throws UncheckedIOException if the file of the rows has been deleted
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <Row> Stream<Row> getRows(Class<? extends DataTable<Row>> dataTableClass) {
+        Table table = find(t -> t.dataTable.getClass().equals(dataTableClass));
+        return table == null ? Stream.empty() : (Stream<Row>) read(table);
+    }
+
+    /**
+     * Returns lazily the rows of a data table, read from the disk.
+     *
+     * @param dataTableName the name of the data table
+     * @param group the group of the data table, not used as the rows are stored by data table name
+     * @return the rows, empty if the data table has no row
+     * @throws UncheckedIOException if the file of the rows has been deleted
+     */
+    public Stream<?> getRows(String dataTableName, @Nullable String group) {
+        Table table = find(t -> t.dataTable.getName().equals(dataTableName));
+        return table == null ? Stream.empty() : read(table);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Collection<DataTable<?>> getDataTables() {
+        synchronized (tables) {
+            return tables.values().stream().<DataTable<?>>map(table -> table.dataTable).toList();
+        }
+    }
+
+    /**
+     * Returns the number of rows inserted in a data table.
+     *
+     * @param dataTableName the name of the data table
+     * @return the number of rows
+     */
+    public long getRowCount(String dataTableName) {
+        Table table = find(t -> t.dataTable.getName().equals(dataTableName));
+        if (table == null) {
+            return 0;
+        }
+        synchronized (table) {
+            return table.rows;
+        }
+    }
+
+    /**
+     * Returns the number of rows inserted by each recipe, in all the data tables.
+     *
+     * @return the number of rows keyed by recipe name
+     */
+    public Map<String, Long> getRowCountsByRecipe() {
+        Map<String, Long> rowCounts = new LinkedHashMap<>();
+        rowsByRecipe.forEach((recipe, rows) -> rowCounts.put(recipe, rows.sum()));
+        return rowCounts;
+    }
+
+    /**
+     * Writes the rows buffered to disk. The exporter is closed by its owner.
+     */
+    @Override
+    public void close() {
+        List<Table> all;
+        synchronized (tables) {
+            all = new ArrayList<>(tables.values());
+        }
+        for (Table table : all) {
+            synchronized (table) {
+                flush(table);
+            }
+        }
+    }
+
+    private @Nullable Table find(Predicate<Table> predicate) {
+        synchronized (tables) {
+            return tables.values().stream().filter(predicate).findFirst().orElse(null);
+        }
+    }
+
+    private void flush(Table table) {
+        if (table.file == null || table.buffer.isEmpty()) {
+            return;
+        }
+        boolean header = compressed && !Files.exists(table.file);
+        try (BufferedWriter writer = newWriter(table.file)) {
+            if (header) {
+                writer.write(mapper.writeValueAsString(schema(table)));
+                writer.newLine();
+            }
+            for (Object row : table.buffer) {
+                writer.write(mapper.writeValueAsString(row));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write the rows of the data table " + table.dataTable.getName(), e);
+        }
+        LOG.tracef("Wrote %d row(s) of the data table %s", table.buffer.size(), table.dataTable.getName());
+        table.buffer.clear();
+    }
+
+    private Stream<?> read(Table table) {
+        Class<?> rowType;
+        synchronized (table) {
+            if (table.file == null) {
+                return new ArrayList<>(table.buffer).stream();
+            }
+            flush(table);
+            rowType = table.rowType;
+        }
+        if (rowType == null) {
+            return Stream.empty();
+        }
+        BufferedReader reader;
+        try {
+            // The file of a data table having rows is missing when the folder of the run has been deleted
+            InputStream is = Files.newInputStream(table.file);
+            reader = new BufferedReader(new InputStreamReader(compressed ? new GZIPInputStream(is) : is, StandardCharsets.UTF_8));
+            if (compressed) {
+                // Skip the schema header
+                reader.readLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the rows of the data table " + table.dataTable.getName()
+                    + " from [" + table.file + "]", e);
+        }
+        Iterator<Object> rows = new Iterator<>() {
+            private String next = readLine();
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Object next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    return mapper.readValue(next, rowType);
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException("Unable to read a row of the data table " + table.dataTable.getName(), e);
+                } finally {
+                    next = readLine();
+                }
+            }
+
+            private String readLine() {
+                try {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        reader.close();
+                    }
+                    return line;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        reader.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private BufferedWriter newWriter(Path file) throws IOException {
+        OutputStream os = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        return new BufferedWriter(new OutputStreamWriter(compressed ? new GZIPOutputStream(os, 64 * 1024) : os,
+                StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    /**
+     * Describes the data table and the columns of its rows: the fields of the row type.
+     */
+    private Map<String, Object> schema(Table table) {
+        List<Map<String, String>> columns = new ArrayList<>();
+        for (Class<?> type = table.rowType; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                Map<String, String> column = new LinkedHashMap<>();
+                column.put("name", field.getName());
+                column.put("type", field.getType().getSimpleName());
+                Column annotation = field.getAnnotation(Column.class);
+                if (annotation != null) {
+                    column.put("displayName", annotation.displayName());
+                    column.put("description", annotation.description());
+                }
+                columns.add(column);
+            }
+        }
+        Map<String, Object> schema = new LinkedHashMap<>();
+        schema.put("dataTable", table.dataTable.getName());
+        schema.put("displayName", table.dataTable.getDisplayName());
+        schema.put("description", table.dataTable.getDescription());
+        schema.put("rowType", table.rowType.getName());
+        schema.put("columns", columns);
+        return schema;
+    }
+
+    private static String fileName(String dataTableName) {
+        return dataTableName.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,72 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.java.internal.JavaTypeCache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A {@link JavaTypeCache} which can be shared between several {@link org.openrewrite.java.JavaParser} instances
+ * parsing on different threads.
+ * <p>
+ * The cache only memoizes the JavaTypes created by the type mapping, and only makes each lookup and each insertion
+ * atomic, not the creation of a type. The type mapping of OpenRewrite puts an empty {@code JavaType.Class} in the cache
+ * and only sets its members, supertype and interfaces afterwards, so another parser can read a type which is not
+ * complete yet. When two parsers miss the same signature at the same time, both create the type, and the files they
+ * parse reference two different instances of the same type. The types are compared by signature by the recipes (e.g.
+ * {@code TypeUtils.isOfClassType}), but a recipe navigating the members of a type read while it was created may not
+ * find all of them. This can't be prevented by the cache, as the type mapping doesn't tell when a type is complete:
+ * the parsers only share a cache when the speed matters more than this limitation.
+ */
+public class SynchronizedJavaTypeCache extends JavaTypeCache {
+
+    // The map and its lock are shared by the shallow copies created by clone()
+    private final Object lock = new Object();
+    private final Map<String, Object> types = new HashMap<>();
+
+    /** Creates a new and empty SynchronizedJavaTypeCache. */
+    public SynchronizedJavaTypeCache() {
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> @Nullable T get(String signature) {
+        synchronized (lock) {
+            return (T) types.get(signature);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put(String signature, Object o) {
+        synchronized (lock) {
+            types.put(signature, o);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            types.clear();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return types.size();
+        }
+    }
+}
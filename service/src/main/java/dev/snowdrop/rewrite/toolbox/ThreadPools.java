@@ -0,0 +1,57 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper methods to create the bounded pools of workers used to parse, diff or write the source files.
+ */
+public final class ThreadPools {
+
+    private ThreadPools() {
+    }
+
+    /**
+     * Converts the parallelism configured by the user to the number of workers to be used.
+     * A value lower or equal to 0 means: use as many workers as available processors.
+     *
+     * @param configured the parallelism configured
+     * @return the number of workers, at least 1
+     */
+    public static int effectiveParallelism(int configured) {
+        return configured <= 0 ? Runtime.getRuntime().availableProcessors() : configured;
+    }
+
+    /**
+     * Creates a fixed pool of daemon threads named using the given prefix (e.g. rewrite-parser-1, rewrite-parser-2, ...)
+     *
+     * @param prefix the prefix of the threads name
+     * @param size the number of threads of the pool
+     * @return the executor service
+     */
+    public static ExecutorService newFixedPool(String prefix, int size) {
+        return Executors.newFixedThreadPool(Math.max(1, size), threadFactory(prefix));
+    }
+
+    /**
+     * Creates a single daemon thread, named using the given prefix, to run periodic tasks.
+     *
+     * @param prefix the prefix of the thread name
+     * @return the scheduled executor service
+     */
+    public static ScheduledExecutorService newScheduledThread(String prefix) {
+        return Executors.newSingleThreadScheduledExecutor(threadFactory(prefix));
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,197 @@
+package dev.snowdrop.rewrite.watch;
+
+import dev.snowdrop.rewrite.ResultsContainer;
+import dev.snowdrop.rewrite.RunProfile;
+import dev.snowdrop.rewrite.service.RewriteService;
+import org.jboss.logging.Logger;
+import org.openrewrite.Result;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the files of a project and runs the recipes again each time files are saved.
+ * <p>
+ * The {@link RewriteService} keeps the OpenRewrite environment, the recipe and the parsed source files: only the files
+ * changed are parsed again before running the recipe, and the diff of the files the recipe would change is printed.
+ * The events received within {@link #DEFAULT_QUIET_PERIOD_MS} are processed together, e.g. when an IDE saves several
+ * files. The {@code target} and hidden folders are not watched.
+ * <p>
+ * The recipes are expected to be run in dry run mode, otherwise the changes they make are detected as new changes.
+ */
+public class ProjectWatcher implements Closeable {
+    private static final Logger LOG = Logger.getLogger(ProjectWatcher.class.getName());
+
+    /** The default time without event after which the files changed are processed */
+    public static final long DEFAULT_QUIET_PERIOD_MS = 50;
+
+    private final RewriteService service;
+    private final Path root;
+    private final PrintStream out;
+    private final long quietPeriodMs;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> dirs = new HashMap<>();
+    private volatile boolean running;
+
+    /**
+     * Creates a new ProjectWatcher.
+     *
+     * @param service the service whose project has been parsed
+     * @param root the root folder of the project
+     * @param out the stream where the diffs are printed
+     * @param quietPeriodMs the time without event after which the files changed are processed
+     * @throws IOException if the folders can't be watched
+     */
+    public ProjectWatcher(RewriteService service, Path root, PrintStream out, long quietPeriodMs) throws IOException {
+        this.service = service;
+        this.root = root.toAbsolutePath().normalize();
+        this.out = out;
+        this.quietPeriodMs = quietPeriodMs;
+        this.watchService = this.root.getFileSystem().newWatchService();
+        register(this.root);
+    }
+
+    /**
+     * Waits for the changes of the files and runs the recipes, until the watcher is closed.
+     */
+    public void watch() {
+        running = true;
+        LOG.infof("Watching %d folder(s) of %s, press Ctrl+C to stop", dirs.size(), root);
+        try {
+            while (running) {
+                Set<Path> changed = new LinkedHashSet<>();
+                collect(watchService.take(), changed);
+                // Wait until the files are saved
+                WatchKey key;
+                while ((key = watchService.poll(quietPeriodMs, TimeUnit.MILLISECONDS)) != null) {
+                    collect(key, changed);
+                }
+                if (!changed.isEmpty()) {
+                    runRecipes(changed);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // The watcher has been closed
+        }
+    }
+
+    /**
+     * Parses again the files changed, runs the recipes and prints the diffs.
+     *
+     * @param changed the absolute paths of the files added, modified or deleted
+     * @return the results of the recipes
+     */
+    public ResultsContainer runRecipes(Set<Path> changed) {
+        long start = System.nanoTime();
+        LOG.infof("%d file(s) changed: %s", changed.size(), changed.stream().map(root::relativize).toList());
+        try {
+            // Only the phases of this run are profiled
+            service.setProfile(new RunProfile());
+            service.createExecutionContext();
+            service.updateSourceSet(changed);
+            ResultsContainer results = service.runScanner();
+            List<Result> all = new ArrayList<>();
+            all.addAll(results.getGenerated());
+            all.addAll(results.getDeleted());
+            all.addAll(results.getMoved());
+            all.addAll(results.getRefactoredInPlace());
+            for (Result result : all) {
+                out.print(results.getDiff(result));
+            }
+            out.flush();
+            LOG.infof("Recipes executed in %d ms: %d file(s) would be changed", (System.nanoTime() - start) / 1_000_000,
+                    all.size());
+            return results;
+        } catch (Exception e) {
+            LOG.error("Unable to run the recipes on the files changed", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stops watching the project.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        watchService.close();
+    }
+
+    private void collect(WatchKey key, Set<Path> changed) {
+        Path dir = dirs.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                // Some events have been lost: the files are parsed again using the root pom as the trigger
+                changed.add(root.resolve("pom.xml"));
+                continue;
+            }
+            Path path = dir.resolve((Path) event.context());
+            if (Files.isDirectory(path)) {
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && !isSkipped(path)) {
+                    // The files of a folder created or moved are not reported by their own events
+                    try {
+                        register(path);
+                        try (var files = Files.walk(path)) {
+                            files.filter(Files::isRegularFile).forEach(changed::add);
+                        }
+                    } catch (IOException e) {
+                        LOG.warnf("Unable to watch the folder %s: %s", path, e.getMessage());
+                    }
+                }
+            } else if (!isTemporary(path)) {
+                changed.add(path);
+            }
+        }
+        if (!key.reset()) {
+            dirs.remove(key);
+        }
+    }
+
+    private void register(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (!dir.equals(root) && isSkipped(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                dirs.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Checks if a file is a hidden or backup file, e.g. the swap and backup files written by the editors.
+     */
+    private static boolean isTemporary(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(".") || name.endsWith("~");
+    }
+
+    private static boolean isSkipped(Path dir) {
+        String name = dir.getFileName().toString();
+        return name.equals("target") || name.startsWith(".");
+    }
+}
@@ -0,0 +1,35 @@
+package dev.snowdrop.rewrite;
+
+import dev.snowdrop.rewrite.service.RewriteService;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class RecipeStatsTest extends BaseTest {
+
+    @Test
+    void shouldReportTheStatsOfEachRecipeOfTheYamlFile() throws Exception {
+        cfg.setAppPath(Paths.get("../test-project/spring-boot-todo-app"));
+        cfg.setYamlRecipesPath("rewrite.yml");
+
+        RewriteService rewriteService = new RewriteService(cfg);
+        rewriteService.init();
+        ResultsContainer results = rewriteService.runScanner();
+
+        // The recipes are run as one composite, but each one is reported
+        assertEquals(1, results.getRecipeRuns().size());
+        Map<String, RecipeStats> stats = results.getRecipeStats();
+        RecipeStats findAnnotations = stats.get("org.openrewrite.java.search.FindAnnotations");
+        assertNotNull(findAnnotations);
+        assertEquals(1, findAnnotations.filesChanged());
+        assertEquals(1, findAnnotations.datatableRows());
+        assertTrue(findAnnotations.sourceFiles() > 0);
+        assertTrue(stats.get("dev.snowdrop.RecipeExample").filesChanged() >= findAnnotations.filesChanged());
+        assertTrue(RecipeStats.toTable(stats.values()).contains("org.openrewrite.java.search.FindAnnotations"));
+    }
+}
@@ -0,0 +1,49 @@
+package dev.snowdrop.rewrite;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.FileAttributes;
+import org.openrewrite.marker.BuildTool;
+import org.openrewrite.text.PlainText;
+
+import static dev.snowdrop.rewrite.SourceFiles.text;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.openrewrite.Tree.randomId;
+
+public class ResultsContainerTest {
+
+    @Test
+    void shouldNotChangeTheSameTree() {
+        PlainText text = text("hello.txt", "hello");
+
+        assertFalse(ResultsContainer.hasChanged(text, text));
+    }
+
+    @Test
+    void shouldNotChangeWhenOnlyMarkersNotPrintedAreAdded() {
+        PlainText before = text("hello.txt", "hello");
+        PlainText after = before.withMarkers(before.getMarkers().add(new BuildTool(randomId(), BuildTool.Type.Maven, "3.9.9")));
+
+        assertFalse(ResultsContainer.hasChanged(before, after));
+    }
+
+    @Test
+    void shouldChangeWhenTheContentChanges() {
+        PlainText before = text("hello.txt", "hello");
+
+        assertTrue(ResultsContainer.hasChanged(before, before.withText("hello world")));
+    }
+
+    @Test
+    void shouldChangeWhenOnlyTheExecutableBitChanges() {
+        PlainText before = text("hello.txt", "hello").withFileAttributes(attributes(false));
+        PlainText after = before.withFileAttributes(attributes(true));
+
+        assertTrue(ResultsContainer.hasChanged(before, after));
+        assertFalse(ResultsContainer.hasChanged(before, before.withFileAttributes(attributes(false))));
+    }
+
+    private static FileAttributes attributes(boolean executable) {
+        return new FileAttributes(null, null, null, true, true, executable, 5);
+    }
+}
@@ -0,0 +1,59 @@
+package dev.snowdrop.rewrite;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RunProfileTest {
+
+    @Test
+    void shouldListTheSubPhasesAfterTheirPhase() throws Exception {
+        RunProfile profile = new RunProfile();
+        try (RunProfile.Phase parse = profile.start("parse")) {
+            try (RunProfile.Phase java = profile.start("parse/java")) {
+                byte[][] allocated = new byte[16][];
+                for (int i = 0; i < allocated.length; i++) {
+                    allocated[i] = new byte[64 * 1024];
+                }
+                assertEquals(16, allocated.length);
+            }
+            try (RunProfile.Phase maven = profile.start("parse/maven")) {
+                Thread.sleep(5);
+            }
+        }
+        try (RunProfile.Phase patch = profile.start("patch")) {
+            Thread.sleep(1);
+        }
+
+        // The phases are recorded when they end, a phase after its sub-phases
+        assertEquals(List.of("parse/java", "parse/maven", "parse", "patch"),
+                profile.getPhases().stream().map(RunProfile.PhaseMetrics::name).toList());
+
+        JsonNode json = new ObjectMapper().readTree(profile.toJson());
+        assertEquals(4, json.size());
+        assertEquals("parse", json.get(0).get("name").asText());
+        assertEquals("parse/java", json.get(1).get("name").asText());
+        assertTrue(json.get(2).get("wallNanos").asLong() >= 5_000_000);
+
+        RunProfile.PhaseMetrics parse = profile.getPhases().get(2);
+        assertTrue(parse.wallNanos() >= 5_000_000);
+        assertTrue(parse.peakHeapBytes() > 0);
+
+        String table = profile.toTable();
+        assertTrue(table.contains("\n  java "), table);
+        assertTrue(table.contains("\npatch "), table);
+    }
+
+    @Test
+    void shouldRecordAPhaseOnce() {
+        RunProfile profile = new RunProfile();
+        RunProfile.Phase phase = profile.start("results");
+        phase.close();
+        phase.close();
+        assertEquals(1, profile.getPhases().size());
+    }
+}
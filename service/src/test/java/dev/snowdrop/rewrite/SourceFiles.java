@@ -0,0 +1,27 @@
+package dev.snowdrop.rewrite;
+
+import org.openrewrite.text.PlainText;
+import org.openrewrite.text.PlainTextParser;
+
+import java.nio.file.Paths;
+
+/**
+ * Creates the source files used by the tests.
+ */
+public final class SourceFiles {
+
+    private SourceFiles() {
+    }
+
+    /**
+     * Parses a plain text file.
+     *
+     * @param sourcePath the path of the file, relative to the project
+     * @param content the content of the file
+     * @return the PlainText source file
+     */
+    public static PlainText text(String sourcePath, String content) {
+        PlainText text = (PlainText) PlainTextParser.builder().build().parse(content).findFirst().orElseThrow();
+        return text.withSourcePath(Paths.get(sourcePath));
+    }
+}
@@ -0,0 +1,85 @@
+package dev.snowdrop.rewrite.batch;
+
+import dev.snowdrop.rewrite.BaseTest;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class BatchRunnerTest extends BaseTest {
+
+    String appPath = "../test-project/spring-boot-todo-app";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRunTheRecipesOnEachProject() {
+        cfg.setFqNameRecipe("org.openrewrite.java.search.FindAnnotations");
+        cfg.setRecipeOptions(Set.of("annotationPattern=org.springframework.boot.autoconfigure.SpringBootApplication", "matchMetaAnnotations=false"));
+
+        Path missing = tempDir.resolve("missing");
+        BatchRunner.Summary summary = new BatchRunner(cfg, 2).run(List.of(Paths.get(appPath), missing));
+
+        assertEquals(2, summary.projects().size());
+        assertEquals(1, summary.succeeded());
+        assertEquals(1, summary.failed());
+
+        BatchRunner.ProjectResult project = summary.projects().getFirst();
+        assertTrue(project.success());
+        assertTrue(project.changed() > 0);
+        assertFalse(summary.projects().get(1).success());
+        assertEquals(missing, summary.projects().get(1).appPath());
+    }
+
+    @Test
+    void shouldAttributeTheClassesOfEachProjectDeclaringTheSameName() throws Exception {
+        cfg.setFqNameRecipe("org.openrewrite.java.search.FindMethods");
+        cfg.setRecipeOptions(Set.of("methodPattern=com.example.demo.DemoApplication hello()"));
+
+        Path first = demoProject("first", "void hello() {}", "new DemoApplication().hello();");
+        Path second = demoProject("second", "void hello(String name) {}", "new DemoApplication().hello(\"demo\");");
+        BatchRunner.Summary summary = new BatchRunner(cfg, 2).run(List.of(first, second));
+
+        assertEquals(2, summary.succeeded());
+        assertEquals(1, summary.projects().get(0).changed());
+        assertEquals(0, summary.projects().get(1).changed());
+    }
+
+    @Test
+    void shouldReadTheListOfProjects() throws Exception {
+        Path listFile = tempDir.resolve("projects.txt");
+        Files.writeString(listFile, """
+                # Projects to migrate
+                app-a
+
+                /repos/app-b
+                """);
+
+        assertEquals(List.of(tempDir.resolve("app-a"), Paths.get("/repos/app-b")), BatchRunner.readProjectList(listFile));
+    }
+
+    private Path demoProject(String name, String method, String call) throws Exception {
+        Path dir = Files.createDirectories(tempDir.resolve(name).resolve("src/main/java/com/example/demo"));
+        Files.writeString(dir.resolve("DemoApplication.java"), """
+                package com.example.demo;
+
+                public class DemoApplication {
+                    %s
+
+                    public static void main(String[] args) {
+                        %s
+                    }
+                }
+                """.formatted(method, call));
+        return tempDir.resolve(name);
+    }
+}
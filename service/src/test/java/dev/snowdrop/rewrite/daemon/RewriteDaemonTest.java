@@ -0,0 +1,85 @@
+package dev.snowdrop.rewrite.daemon;
+
+import dev.snowdrop.rewrite.BaseTest;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class RewriteDaemonTest extends BaseTest {
+
+    String appPath = "../test-project/spring-boot-todo-app";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReuseTheParsedProject() {
+        cfg.setAppPath(Paths.get(appPath));
+        cfg.setFqNameRecipe("org.openrewrite.java.search.FindAnnotations");
+        cfg.setRecipeOptions(Set.of("annotationPattern=org.springframework.boot.autoconfigure.SpringBootApplication", "matchMetaAnnotations=false"));
+
+        RewriteDaemon daemon = new RewriteDaemon(tempDir.resolve("daemon.sock"), 1);
+
+        DaemonResponse first = daemon.handle(DaemonRequest.run(cfg));
+        assertTrue(first.success(), first.message());
+        assertTrue(first.reparsed());
+        assertFalse(first.refactored().isEmpty());
+
+        DaemonResponse second = daemon.handle(DaemonRequest.run(cfg));
+        assertTrue(second.success(), second.message());
+        assertFalse(second.reparsed(), "The project has not changed and should not be parsed again");
+        assertEquals(first.refactored(), second.refactored());
+    }
+
+    @Test
+    void shouldAnswerOverTheSocket() throws Exception {
+        Path socketPath = tempDir.resolve("daemon.sock");
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> serving = executor.submit(() -> {
+                try (RewriteDaemon daemon = new RewriteDaemon(socketPath, 1)) {
+                    daemon.serve();
+                }
+                return null;
+            });
+
+            DaemonClient client = new DaemonClient(socketPath);
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (!client.isRunning() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(client.isRunning());
+
+            DaemonResponse response = client.send(DaemonRequest.stop());
+            assertTrue(response.success());
+            serving.get(10, TimeUnit.SECONDS);
+            assertFalse(client.isRunning());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRefuseAFolderAccessibleByOtherUsers() throws Exception {
+        Path folder = Files.createDirectory(tempDir.resolve("shared"));
+        Files.setPosixFilePermissions(folder, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        try (RewriteDaemon daemon = new RewriteDaemon(folder.resolve("daemon.sock"), 1)) {
+            assertThrows(IllegalStateException.class, daemon::serve);
+        }
+        assertFalse(Files.exists(folder.resolve("daemon.sock")));
+    }
+}
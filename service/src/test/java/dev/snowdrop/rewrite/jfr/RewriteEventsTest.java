@@ -0,0 +1,59 @@
+package dev.snowdrop.rewrite.jfr;
+
+import dev.snowdrop.rewrite.toolbox.SourceFileWriter;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Result;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static dev.snowdrop.rewrite.SourceFiles.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RewriteEventsTest {
+
+    @TempDir
+    Path root;
+
+    @AfterEach
+    void disableEvents() {
+        RewriteEvents.setEnabled(false);
+    }
+
+    @Test
+    void shouldRecordTheFilesWritten() throws Exception {
+        RewriteEvents.setEnabled(true);
+        List<RecordedEvent> events = recordWrite("src/Hello.txt", "Hello");
+
+        assertEquals(1, events.size());
+        assertEquals("src/Hello.txt", events.getFirst().getString("path"));
+        assertEquals(5, events.getFirst().getLong("bytes"));
+    }
+
+    @Test
+    void shouldNotRecordWhenDisabled() throws Exception {
+        assertTrue(recordWrite("src/Hello.txt", "Hello").isEmpty());
+    }
+
+    private List<RecordedEvent> recordWrite(String sourcePath, String content) throws Exception {
+        Path dump = root.resolve("rewrite.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("dev.snowdrop.rewrite.FileWrite");
+            recording.start();
+            new SourceFileWriter(root.resolve("project"), new InMemoryExecutionContext(), 1)
+                    .write(List.of(new Result(null, text(sourcePath, content))), List.of());
+            recording.stop();
+            recording.dump(dump);
+        }
+        return RecordingFile.readAllEvents(dump).stream()
+                .filter(event -> event.getEventType().getName().equals("dev.snowdrop.rewrite.FileWrite"))
+                .toList();
+    }
+}
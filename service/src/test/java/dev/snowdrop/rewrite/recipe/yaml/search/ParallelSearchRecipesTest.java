@@ -0,0 +1,76 @@
+package dev.snowdrop.rewrite.recipe.yaml.search;
+
+import dev.snowdrop.rewrite.BaseTest;
+import dev.snowdrop.rewrite.service.RewriteService;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+import org.openrewrite.RecipeRun;
+import org.openrewrite.Result;
+import org.openrewrite.config.RecipeDescriptor;
+import org.openrewrite.table.SearchResults;
+
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class ParallelSearchRecipesTest extends BaseTest {
+
+    @Test
+    void shouldRunTheSearchRecipesConcurrently() throws Exception {
+
+        String appPath = "../test-project/spring-boot-todo-app";
+
+        // The recipes of the YAML file only search the files
+        cfg.setAppPath(Paths.get(appPath));
+        cfg.setYamlRecipesPath("rewrite.yml");
+        cfg.setParallelRecipes(true);
+
+        RewriteService rewriteService = new RewriteService(cfg);
+        rewriteService.init();
+        var results = rewriteService.runScanner();
+
+        assertEquals(List.of(
+                "org.openrewrite.maven.search.FindDependency",
+                "org.openrewrite.java.search.FindAnnotations",
+                "org.openrewrite.text.Find",
+                "org.openrewrite.text.Find#4",
+                "org.openrewrite.properties.search.FindProperties"), List.copyOf(results.getRecipeRuns().keySet()));
+
+        RecipeRun run = results.getRecipeRuns().get("org.openrewrite.java.search.FindAnnotations");
+        List<SearchResults.Row> rows = findDataTableRows(run, SearchResults.class).toList();
+        assertEquals(1, rows.size());
+        assertEquals("src/main/java/com/todo/app/AppApplication.java", rows.getFirst().getSourcePath());
+        assertFalse(results.getRecipeRuns().get("org.openrewrite.text.Find#4").getChangeset().getAllResults().isEmpty());
+
+        // The file matched by several recipes is changed once, with the matches of all the recipes
+        List<String> sourcePaths = results.getRefactoredInPlace().stream()
+                .map(result -> result.getAfter().getSourcePath().toString())
+                .toList();
+        assertEquals(Set.copyOf(sourcePaths).size(), sourcePaths.size());
+        Result application = results.getRefactoredInPlace().stream()
+                .filter(result -> result.getAfter().getSourcePath().endsWith("AppApplication.java"))
+                .findFirst()
+                .orElseThrow();
+        Set<String> recipeNames = new HashSet<>();
+        collectNames(application.getRecipeDescriptorsThatMadeChanges(), recipeNames);
+        assertTrue(recipeNames.containsAll(Set.of("org.openrewrite.java.search.FindAnnotations", "org.openrewrite.text.Find")));
+
+        String patch = results.getRefactoredInPlace().stream().map(results::getDiff).collect(Collectors.joining());
+        for (String sourcePath : sourcePaths) {
+            assertEquals(1, patch.split("\\+\\+\\+ b/" + Pattern.quote(sourcePath) + "\n", -1).length - 1, sourcePath);
+        }
+    }
+
+    private static void collectNames(List<RecipeDescriptor> descriptors, Set<String> names) {
+        for (RecipeDescriptor descriptor : descriptors) {
+            names.add(descriptor.getName());
+            collectNames(descriptor.getRecipeList(), names);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClasspathCacheTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void shouldReturnTheClasspathCachedWhenAllTheJarsExist() throws Exception {
+        Path jar = Files.writeString(tmp.resolve("lib.jar"), "");
+        ClasspathCache cache = new ClasspathCache(tmp.resolve("classpath-cache"));
+        String key = ClasspathCache.key(model("3.5.3"), List.of());
+
+        cache.store(key, List.of(jar));
+        assertEquals(List.of(jar), cache.load(key).orElseThrow());
+
+        Files.delete(jar);
+        assertTrue(cache.load(key).isEmpty());
+    }
+
+    @Test
+    void shouldChangeTheKeyWhenADependencyChanges() {
+        assertEquals(ClasspathCache.key(model("3.5.3"), List.of()), ClasspathCache.key(model("3.5.3"), List.of()));
+        assertNotEquals(ClasspathCache.key(model("3.5.3"), List.of()), ClasspathCache.key(model("3.5.4"), List.of()));
+    }
+
+    private Model model(String version) {
+        Dependency dependency = new Dependency();
+        dependency.setGroupId("org.springframework.boot");
+        dependency.setArtifactId("spring-boot-starter-web");
+        dependency.setVersion(version);
+
+        Model model = new Model();
+        model.addDependency(dependency);
+        return model;
+    }
+}
@@ -0,0 +1,77 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.LargeSourceSet;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+
+import static dev.snowdrop.rewrite.SourceFiles.text;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskLargeSourceSetTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void shouldReportTheChangesOfTheTreesStoredOnDisk() {
+        DiskLargeSourceSet sourceSet = DiskLargeSourceSet.create(tmp.resolve("source-set"), 1,
+                List.of(text("a.txt", "a"), text("b.txt", "b"), text("c.txt", "c")));
+
+        LargeSourceSet edited = sourceSet
+                .edit(sourceFile -> switch (sourceFile.getSourcePath().toString()) {
+                    case "b.txt" -> ((PlainText) sourceFile).withText("B");
+                    case "c.txt" -> null;
+                    default -> sourceFile;
+                })
+                .generate(List.of(text("d.txt", "d")));
+
+        List<Result> results = edited.getChangeset().getAllResults().stream()
+                .sorted(Comparator.comparing(DiskLargeSourceSetTest::path))
+                .toList();
+        assertEquals(3, results.size());
+        assertEquals("b", results.get(0).getBefore().printAll());
+        assertEquals("B", results.get(0).getAfter().printAll());
+        assertEquals("c.txt", results.get(1).getBefore().getSourcePath().toString());
+        assertNull(results.get(1).getAfter());
+        assertNull(results.get(2).getBefore());
+        assertEquals("d", results.get(2).getAfter().printAll());
+
+        // The source set is immutable and the trees before the changes are still available
+        assertEquals(0, sourceSet.getChangeset().size());
+        assertEquals("b", edited.getBefore(Paths.get("b.txt")).printAll());
+    }
+
+    @Test
+    void shouldNotChangeTheSetWhenTheTreesAreNotChanged() {
+        DiskLargeSourceSet sourceSet = DiskLargeSourceSet.create(tmp.resolve("source-set"), 0,
+                List.of(text("a.txt", "a"), text("b.txt", "b")));
+
+        assertSame(sourceSet, sourceSet.edit(sourceFile -> sourceFile));
+        assertEquals(2, sourceSet.size());
+    }
+
+    @Test
+    void shouldStoreTheTreesWhileTheyAreAdded() {
+        DiskLargeSourceSet.Builder builder = DiskLargeSourceSet.builder(tmp.resolve("source-set"), 0);
+        builder.add(text("a.txt", "a")).add(text("b.txt", "b"));
+
+        assertEquals(2, builder.size());
+        DiskLargeSourceSet sourceSet = builder.build();
+        assertEquals(2, sourceSet.size());
+        assertEquals("b", sourceSet.getBefore(Paths.get("b.txt")).printAll());
+        assertNull(sourceSet.getBefore(Paths.get("c.txt")));
+    }
+
+    private static String path(Result result) {
+        SourceFile sourceFile = result.getAfter() != null ? result.getAfter() : result.getBefore();
+        return sourceFile.getSourcePath().toString();
+    }
+}
@@ -0,0 +1,89 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class FileInventoryTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void shouldClassifyTheFilesInOneWalk() throws Exception {
+        Path pom = write("pom.xml", "<project/>");
+        Path app = write("app/src/main/java/App.java", "class App {}");
+        Path service = write("service/src/main/java/Service.java", "class Service {}");
+        Path kotlin = write("service/src/main/kotlin/Util.kt", "object Util");
+        Path properties = write("app/src/main/resources/application.properties", "a=b");
+        write("app/target/classes/Generated.java", "class Generated {}");
+        write(".git/config", "");
+        write("web/node_modules/lib/index.js", "");
+
+        for (int parallelism : new int[]{1, 4}) {
+            FileInventory inventory = FileInventory.scan(root, Set.of("**/node_modules/**"), 10, parallelism);
+
+            assertEquals(List.of(app, service), inventory.getJavaFiles());
+            assertEquals(List.of(kotlin), inventory.getKotlinFiles());
+            assertEquals(List.of(pom), inventory.getXmlFiles());
+            assertEquals(List.of(properties), inventory.getResources());
+        }
+    }
+
+    @Test
+    void shouldSkipTheFoldersIgnoredByTheOmniParser() throws Exception {
+        write("web/node_modules/lib/index.js", "");
+        write("web/node_modules/lib/package.json", "{}");
+        write("build/generated/Generated.java", "class Generated {}");
+        write("build/reports/index.html", "");
+        write("app/out/production/app.properties", "a=b");
+        Path builder = write("app/src/main/java/com/acme/build/Builder.java", "class Builder {}");
+        Path properties = write("app/src/main/resources/out/application.properties", "a=b");
+
+        for (int parallelism : new int[]{1, 4}) {
+            FileInventory inventory = FileInventory.scan(root, Set.of(), 10, parallelism);
+
+            assertEquals(List.of(builder), inventory.getJavaFiles());
+            assertEquals(List.of(properties), inventory.getResources());
+        }
+    }
+
+    @Test
+    void shouldIgnoreTheResourcesBiggerThanTheThreshold() throws Exception {
+        write("big.txt", "x".repeat(2 * 1024 * 1024));
+        Path small = write("small.txt", "x");
+
+        FileInventory inventory = FileInventory.scan(root, Set.of(), 1, 1);
+
+        assertEquals(List.of(small), inventory.getResources());
+        assertEquals(1, inventory.getOversized());
+    }
+
+    @Test
+    void shouldOnlyListTheSelectedFilesWithThePomsOfTheirModules() throws Exception {
+        Path rootPom = write("pom.xml", "<project/>");
+        Path modulePom = write("app/pom.xml", "<project/>");
+        write("service/pom.xml", "<project/>");
+        Path app = write("app/src/main/java/App.java", "class App {}");
+        write("app/src/main/java/Other.java", "class Other {}");
+        Path generated = write("app/target/generated/Generated.java", "class Generated {}");
+
+        FileInventory inventory = FileInventory.of(root, List.of(app, generated, root.resolve("app/Deleted.java")), Set.of(), 10, true);
+
+        assertEquals(List.of(app), inventory.getJavaFiles());
+        assertEquals(List.of(modulePom, rootPom), inventory.getXmlFiles());
+        assertEquals(List.of(), inventory.getResources());
+    }
+
+    private Path write(String path, String content) throws Exception {
+        Path file = root.resolve(path);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+}
@@ -0,0 +1,61 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class GitChangesTest {
+
+    @TempDir
+    Path repo;
+
+    @Test
+    void shouldListTheFilesChangedSinceTheRevision() throws Exception {
+        Path project = repo.resolve("project");
+        write(project.resolve("Unchanged.java"), "class Unchanged {}");
+        Path modified = write(project.resolve("Modified.java"), "class Modified {}");
+        Path deleted = write(project.resolve("Deleted.java"), "class Deleted {}");
+        write(repo.resolve("Outside.java"), "class Outside {}");
+        git("init", "-q");
+        git("add", ".");
+        git("-c", "user.name=test", "-c", "user.email=test@example.com", "commit", "-q", "-m", "init");
+
+        write(modified, "class Modified { int i; }");
+        Files.delete(deleted);
+        Path added = write(project.resolve("src/Added.java"), "class Added {}");
+        write(repo.resolve("Outside.java"), "class Outside { int i; }");
+
+        assertEquals(Set.of(modified, added), Set.copyOf(GitChanges.changedFiles(project, "HEAD")));
+    }
+
+    @Test
+    void shouldRejectARevisionParsedAsAnOption() throws Exception {
+        git("init", "-q");
+        Path output = repo.resolve("output");
+
+        assertThrows(IllegalArgumentException.class, () -> GitChanges.changedFiles(repo, "--output=" + output));
+        assertThrows(RuntimeException.class, () -> GitChanges.changedFiles(repo, "unknown"));
+        assertFalse(Files.exists(output));
+    }
+
+    private Path write(Path file, String content) throws Exception {
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, content);
+    }
+
+    private void git(String... args) throws Exception {
+        List<String> command = new ArrayList<>(List.of("git"));
+        command.addAll(List.of(args));
+        Process process = new ProcessBuilder(command).directory(repo.toFile()).inheritIO().start();
+        assertEquals(0, process.waitFor());
+    }
+}
@@ -0,0 +1,96 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.java.tree.TypeUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LstCacheTest {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void shouldChangeFingerprintWhenAJarOfTheClasspathChanges() throws Exception {
+        Path jar = Files.writeString(tmp.resolve("lib.jar"), "v1");
+        String before = LstCache.fingerprint(List.of(jar), "8.0.0");
+
+        Files.writeString(jar, "version 2");
+
+        assertNotEquals(before, LstCache.fingerprint(List.of(jar), "8.0.0"));
+        assertNotEquals(before, LstCache.fingerprint(List.of(jar), "8.0.1"));
+    }
+
+    @Test
+    void shouldDeleteTheEntriesOfAnotherClasspath() throws Exception {
+        Path cacheDir = tmp.resolve("lst-cache");
+        Path stale = Files.createDirectories(cacheDir.resolve("stale-fingerprint"));
+        Files.writeString(stale.resolve("entry.lst"), "");
+
+        LstCache.open(cacheDir, List.of());
+
+        assertFalse(Files.exists(stale));
+        assertTrue(Files.isDirectory(cacheDir.resolve(LstCache.fingerprint(List.of(), LstCache.parserVersion()))));
+    }
+
+    @Test
+    void shouldParseTheFilesNotCached() throws Exception {
+        Path file = Files.writeString(tmp.resolve("README.md"), "Hello");
+        LstCache cache = LstCache.open(tmp.resolve("lst-cache"), List.of());
+
+        assertEquals(0, cache.parse(List.of(file), tmp, files -> Stream.empty()).size());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void shouldParseAgainTheFilesUsingATypeWhichChanged() throws Exception {
+        Path a = Files.writeString(tmp.resolve("A.java"), "public class A { public int size() { return 0; } }");
+        Path b = Files.writeString(tmp.resolve("B.java"), "public class B { Object size(A a) { return a.size(); } }");
+        List<Path> files = List.of(a, b);
+
+        LstCache cache = LstCache.open(tmp.resolve("lst-cache"), List.of());
+        assertEquals(JavaType.Primitive.Int, returnTypeOfTheCall(cache.parseAll(files, tmp, this::parse).get(1)));
+        assertEquals(2, cache.getMisses());
+
+        assertEquals(JavaType.Primitive.Int, returnTypeOfTheCall(cache.parseAll(files, tmp, this::parse).get(1)));
+        assertEquals(2, cache.getHits());
+
+        // B didn't change, but the type of the method it calls did
+        Files.writeString(a, "public class A { public String size() { return \"0\"; } }");
+        assertTrue(TypeUtils.isString(returnTypeOfTheCall(cache.parseAll(files, tmp, this::parse).get(1))));
+        assertEquals(4, cache.getMisses());
+    }
+
+    private Stream<SourceFile> parse(List<Path> files) {
+        return JavaParser.fromJavaVersion().build().parse(files, tmp, new InMemoryExecutionContext());
+    }
+
+    private static JavaType returnTypeOfTheCall(SourceFile sourceFile) {
+        List<JavaType.Method> methodTypes = new ArrayList<>();
+        new JavaIsoVisitor<List<JavaType.Method>>() {
+            @Override
+            public J.MethodInvocation visitMethodInvocation(J.MethodInvocation method, List<JavaType.Method> types) {
+                types.add(method.getMethodType());
+                return super.visitMethodInvocation(method, types);
+            }
+        }.visit(sourceFile, methodTypes);
+        return methodTypes.getFirst().getReturnType();
+    }
+}
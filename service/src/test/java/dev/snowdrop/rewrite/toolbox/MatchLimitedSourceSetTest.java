@@ -0,0 +1,39 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.LargeSourceSet;
+import org.openrewrite.SourceFile;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.text.PlainText;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static dev.snowdrop.rewrite.SourceFiles.text;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchLimitedSourceSetTest {
+
+    @Test
+    void shouldStopVisitingTheFilesOnceTheLimitIsReached() {
+        MatchLimitedSourceSet sourceSet = new MatchLimitedSourceSet(new InMemoryLargeSourceSet(List.<SourceFile>of(
+                text("a.txt", "foo"), text("b.txt", "bar"), text("c.txt", "foo"), text("d.txt", "foo"))), 2);
+        List<String> visited = new ArrayList<>();
+
+        LargeSourceSet edited = sourceSet.edit(sourceFile -> {
+            visited.add(sourceFile.getSourcePath().toString());
+            PlainText text = (PlainText) sourceFile;
+            return text.getText().equals("foo") ? text.withText("FOO") : text;
+        });
+
+        assertEquals(List.of("a.txt", "b.txt", "c.txt"), visited);
+        assertTrue(sourceSet.isLimitReached());
+        assertEquals(2, edited.getChangeset().getAllResults().size());
+
+        // The next cycle doesn't visit any file
+        assertSame(edited, edited.edit(sourceFile -> {
+            fail("The file " + sourceFile.getSourcePath() + " should not be visited");
+            return sourceFile;
+        }));
+    }
+}
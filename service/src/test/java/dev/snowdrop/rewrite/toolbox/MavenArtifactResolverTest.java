@@ -0,0 +1,45 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MavenArtifactResolverTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldResolveTheCoordinatesInTheOrderOfTheList() throws Exception {
+        Path jar = Files.createFile(dir.resolve("recipes.jar"));
+
+        try (MavenArtifactResolver mar = new MavenArtifactResolver()) {
+            List<Path> paths = mar.resolveArtifacts(List.of("org.jspecify:jspecify:1.0.0", jar.toString(),
+                    "junit:junit:4.13.2"));
+
+            assertEquals(3, paths.size());
+            assertEquals("jspecify-1.0.0.jar", paths.get(0).getFileName().toString());
+            assertEquals(jar, paths.get(1));
+            assertEquals("junit-4.13.2.jar", paths.get(2).getFileName().toString());
+            assertTrue(Files.exists(paths.get(0)) && Files.exists(paths.get(2)));
+        }
+    }
+
+    @Test
+    void shouldReuseTheResolverToLoadTheJars() throws Exception {
+        try (MavenArtifactResolver mar = new MavenArtifactResolver()) {
+            ClassLoaderUtils utils = new ClassLoaderUtils();
+            try (URLClassLoader first = utils.loadAdditionalJars(List.of("org.jspecify:jspecify:1.0.0"), null, mar);
+                 URLClassLoader second = utils.loadAdditionalJars(List.of("junit:junit:4.13.2"), null, mar)) {
+                assertTrue(first.getURLs()[0].getPath().endsWith("jspecify-1.0.0.jar"));
+                assertTrue(second.getURLs()[0].getPath().endsWith("junit-4.13.2.jar"));
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MavenReactorTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void shouldAssignTheFilesToTheirModule() throws Exception {
+        pom(root, "parent", "pom", "<modules><module>core</module><module>app</module></modules>");
+        pom(root.resolve("core"), "core", "jar", "");
+        pom(root.resolve("app"), "app", "jar", "");
+        Path coreFile = root.resolve("core/src/main/java/Core.java");
+        Path appFile = root.resolve("app/src/test/java/AppTest.java");
+        Path rootFile = root.resolve("src/main/java/Tool.java");
+
+        try (MavenArtifactResolver mar = new MavenArtifactResolver()) {
+            MavenReactor reactor = MavenReactor.discover(root, mar);
+
+            assertEquals(List.of("dev.snowdrop:parent", "dev.snowdrop:core", "dev.snowdrop:app"),
+                    reactor.getModules().stream().map(MavenReactor.Module::key).toList());
+            assertEquals("core", reactor.moduleOf(coreFile).model().getArtifactId());
+            assertEquals("parent", reactor.moduleOf(rootFile).model().getArtifactId());
+
+            Map<MavenReactor.Module, List<Path>> partition = reactor.partition(List.of(appFile, coreFile));
+            assertEquals(List.of("core", "app"), partition.keySet().stream().map(m -> m.model().getArtifactId()).toList());
+            assertEquals(List.of(appFile), partition.get(reactor.moduleOf(appFile)));
+        }
+    }
+
+    @Test
+    void shouldListTheModulesOfTheReactorAModuleDependsOn() throws Exception {
+        pom(root, "parent", "pom", "<modules><module>util</module><module>core</module><module>tools</module><module>app</module></modules>");
+        pom(root.resolve("util"), "util", "jar", "");
+        pom(root.resolve("core"), "core", "jar", dependencies(dependency("util", "compile"), dependency("tools", "test")));
+        pom(root.resolve("tools"), "tools", "jar", "");
+        pom(root.resolve("app"), "app", "jar", dependencies(dependency("core", "compile")));
+
+        try (MavenArtifactResolver mar = new MavenArtifactResolver()) {
+            MavenReactor reactor = MavenReactor.discover(root, mar);
+            MavenReactor.Module app = reactor.moduleOf(root.resolve("app/src/main/java/App.java"));
+            MavenReactor.Module core = reactor.moduleOf(root.resolve("core/src/main/java/Core.java"));
+
+            // The test dependencies of core are only followed for core itself
+            assertEquals(List.of("core", "util"),
+                    reactor.reactorDependencies(app).stream().map(m -> m.model().getArtifactId()).toList());
+            assertEquals(List.of("util", "tools"),
+                    reactor.reactorDependencies(core).stream().map(m -> m.model().getArtifactId()).toList());
+            assertEquals(root.toAbsolutePath().normalize().resolve("core/src/main/java"), MavenReactor.sourceDirectory(core));
+        }
+    }
+
+    private static String dependencies(String... dependencies) {
+        return "<dependencies>" + String.join("", dependencies) + "</dependencies>";
+    }
+
+    private static String dependency(String artifactId, String scope) {
+        return "<dependency><groupId>dev.snowdrop</groupId><artifactId>%s</artifactId><version>1.0.0</version><scope>%s</scope></dependency>"
+                .formatted(artifactId, scope);
+    }
+
+    private static void pom(Path dir, String artifactId, String packaging, String modules) throws Exception {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("pom.xml"), """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>dev.snowdrop</groupId>
+                    <artifactId>%s</artifactId>
+                    <version>1.0.0</version>
+                    <packaging>%s</packaging>
+                    %s
+                </project>
+                """.formatted(artifactId, packaging, modules));
+    }
+}
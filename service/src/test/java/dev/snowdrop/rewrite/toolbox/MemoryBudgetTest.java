@@ -0,0 +1,61 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class MemoryBudgetTest {
+
+    @Test
+    void shouldReactOnceWhenTheBudgetIsExceeded() {
+        AtomicInteger reactions = new AtomicInteger();
+        try (MemoryBudget budget = new MemoryBudget(1, reactions::incrementAndGet)) {
+            // Keep 4% of the heap alive, capped to 256 MB, so that the old generation exceeds 1% after a collection
+            long retained = Math.min(Runtime.getRuntime().maxMemory() / 25, 256L * 1024 * 1024);
+            List<byte[]> chunks = new ArrayList<>();
+            for (long allocated = 0; allocated < retained; allocated += 1024 * 1024) {
+                chunks.add(new byte[1024 * 1024]);
+            }
+            System.gc();
+
+            assertTrue(budget.isExceeded());
+            assertTrue(budget.isExceeded());
+            assertEquals(1, reactions.get());
+            assertFalse(chunks.isEmpty());
+        }
+    }
+
+    @Test
+    void shouldUseTheThresholdOfTheLowestBudget() {
+        MemoryPoolMXBean pool = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(candidate -> candidate.getType() == MemoryType.HEAP && candidate.isCollectionUsageThresholdSupported()
+                        && candidate.getUsage().getMax() > 0)
+                .findFirst()
+                .orElse(null);
+        assumeTrue(pool != null);
+        long max = pool.getUsage().getMax();
+
+        try (MemoryBudget high = new MemoryBudget(90, () -> { })) {
+            try (MemoryBudget low = new MemoryBudget(50, () -> { })) {
+                assertEquals(max * 50 / 100, pool.getCollectionUsageThreshold());
+            }
+            assertEquals(max * 90 / 100, pool.getCollectionUsageThreshold());
+        }
+        assertEquals(0, pool.getCollectionUsageThreshold());
+    }
+
+    @Test
+    void shouldNotBeExceededBelowTheBudget() {
+        try (MemoryBudget budget = new MemoryBudget(100, () -> fail("The budget should not be exceeded"))) {
+            assertFalse(budget.isExceeded());
+        }
+    }
+}
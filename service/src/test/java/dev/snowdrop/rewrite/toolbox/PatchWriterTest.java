@@ -0,0 +1,86 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.Result;
+import org.openrewrite.SourceFile;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import static dev.snowdrop.rewrite.SourceFiles.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PatchWriterTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void shouldWriteTheDiffsInTheOrderOfTheResults() throws Exception {
+        List<Result> results = IntStream.range(0, 50).mapToObj(i -> result("src/File" + i + ".txt")).toList();
+
+        List<Path> patchFiles = new PatchWriter(root, root.resolve("out"), false, false, 4)
+                .write(results, result -> {
+                    // Finish the diffs in a different order than the results
+                    sleep(results.size() - results.indexOf(result));
+                    return result.getAfter().getSourcePath().toString();
+                });
+
+        assertEquals(List.of(root.resolve("out").resolve("rewrite.patch")), patchFiles);
+        String expected = IntStream.range(0, 50).mapToObj(i -> Paths.get("src", "File" + i + ".txt") + "\n")
+                .reduce("", String::concat);
+        assertEquals(expected, Files.readString(patchFiles.getFirst()));
+    }
+
+    @Test
+    void shouldWriteOneCompressedPatchPerModule() throws Exception {
+        Files.createDirectories(root.resolve("service"));
+        Files.writeString(root.resolve("pom.xml"), "<project/>");
+        Files.writeString(root.resolve("service").resolve("pom.xml"), "<project/>");
+        List<Result> results = List.of(result("README.md"), result("service/src/App.txt"));
+
+        List<Path> patchFiles = new PatchWriter(root, root.resolve("out"), true, true, 1)
+                .write(results, result -> result.getAfter().getSourcePath().toString());
+
+        assertEquals(List.of(root.resolve("out").resolve("rewrite.patch.gz"),
+                root.resolve("out").resolve("rewrite-service.patch.gz")), patchFiles);
+        assertEquals(Paths.get("service", "src", "App.txt") + "\n", gunzip(patchFiles.get(1)));
+    }
+
+    @Test
+    void shouldGiveADifferentPatchToEachModule() {
+        assertEquals("rewrite", PatchWriter.patchName(""));
+        assertEquals("rewrite-service", PatchWriter.patchName("service"));
+        assertTrue(PatchWriter.patchName("a/b").startsWith("rewrite-a_b-"));
+        assertNotEquals(PatchWriter.patchName("a/b"), PatchWriter.patchName("a_b"));
+        assertNotEquals(PatchWriter.patchName("a_b"), PatchWriter.patchName("a b"));
+    }
+
+    private Result result(String sourcePath) {
+        SourceFile before = text(sourcePath, "before");
+        return new Result(before, before.withSourcePath(Paths.get(sourcePath)));
+    }
+
+    private static String gunzip(Path file) throws Exception {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
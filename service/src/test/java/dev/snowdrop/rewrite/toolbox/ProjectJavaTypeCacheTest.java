@@ -0,0 +1,84 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProjectJavaTypeCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldOnlyShareTheTypesOfTheLibraries() {
+        SharedJavaTypeCache shared = new SharedJavaTypeCache(SharedJavaTypeCache.DEFAULT_BUDGET_BYTES);
+        ProjectJavaTypeCache cache = new ProjectJavaTypeCache(shared, "cp1", Set.of("com.acme.Foo"));
+        Object foo = new Object();
+        Object list = new Object();
+        cache.put("com.acme.Foo", foo);
+        cache.put("java.util.List<com.acme.Foo$Bar>", new Object());
+        cache.put("java.util.List", list);
+        cache.put("org.springframework.Bean", new Object());
+
+        assertSame(foo, cache.get("com.acme.Foo"));
+        assertEquals(2, cache.size());
+        assertEquals(2, shared.size());
+        assertSame(list, shared.get("java.util.List"));
+        assertNotNull(shared.get("cp1|org.springframework.Bean"));
+
+        cache.clear();
+        assertNull(cache.get("com.acme.Foo"));
+        assertSame(list, cache.get("java.util.List"));
+    }
+
+    @Test
+    void shouldNotShareTheTypesOfTwoProjectsDeclaringTheSameClass() {
+        SharedJavaTypeCache shared = new SharedJavaTypeCache(SharedJavaTypeCache.DEFAULT_BUDGET_BYTES);
+        ProjectJavaTypeCache first = new ProjectJavaTypeCache(shared, "cp1", Set.of("com.example.demo.DemoApplication"));
+        ProjectJavaTypeCache second = new ProjectJavaTypeCache(shared, "cp1", Set.of("com.example.demo.DemoApplication"));
+        Object firstType = new Object();
+        first.put("com.example.demo.DemoApplication", firstType);
+
+        assertNull(second.get("com.example.demo.DemoApplication"));
+        second.put("com.example.demo.DemoApplication", new Object());
+        assertSame(firstType, first.get("com.example.demo.DemoApplication"));
+        assertEquals(0, shared.size());
+    }
+
+    @Test
+    void shouldPartitionTheTypesOfTheLibrariesByClasspath() {
+        SharedJavaTypeCache shared = new SharedJavaTypeCache(SharedJavaTypeCache.DEFAULT_BUDGET_BYTES);
+        ProjectJavaTypeCache first = new ProjectJavaTypeCache(shared, "cp1", Set.of());
+        ProjectJavaTypeCache second = new ProjectJavaTypeCache(shared, "cp2", Set.of());
+        first.put("org.springframework.Bean", new Object());
+        first.put("java.lang.String", new Object());
+
+        assertNull(second.get("org.springframework.Bean"));
+        assertNotNull(second.get("java.lang.String"));
+        assertNotNull(new ProjectJavaTypeCache(shared, "cp1", Set.of()).get("org.springframework.Bean"));
+    }
+
+    @Test
+    void shouldListTheTypesDeclaredByTheJavaFiles() throws Exception {
+        Path foo = Files.writeString(dir.resolve("Foo.java"), """
+                package com.acme;
+
+                public class Foo {
+                    interface Bar {
+                    }
+                }
+                record Baz(String name) {
+                }
+                """);
+        Path main = Files.writeString(dir.resolve("Main.java"), "enum Main { A }");
+
+        assertEquals(Set.of("com.acme.Foo", "com.acme.Bar", "com.acme.Baz", "Main"),
+                ProjectJavaTypeCache.declaredTypeNames(List.of(foo, main)));
+    }
+}
@@ -0,0 +1,91 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecipeCatalogTest {
+
+    private static final String RECIPES = """
+            type: specs.openrewrite.org/v1beta/recipe
+            name: dev.snowdrop.Migrate
+            recipeList:
+              - dev.snowdrop.ChangeReadme
+              - org.openrewrite.text.ChangeText:
+                  toText: Hello
+            ---
+            type: specs.openrewrite.org/v1beta/recipe
+            name: dev.snowdrop.ChangeReadme
+            recipeList:
+              - org.openrewrite.text.ChangeText:
+                  toText: Readme
+            ---
+            type: specs.openrewrite.org/v1beta/recipe
+            name: dev.snowdrop.Broken
+            recipeList:
+              - dev.snowdrop.Unknown
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldIndexTheYamlRecipesOfTheJar() throws Exception {
+        Path jar = createJar();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, getClass().getClassLoader())) {
+            RecipeCatalog catalog = RecipeCatalog.load(tempDir.resolve("catalog"), List.of(jar), classLoader);
+
+            RecipeCatalog.Entry migrate = catalog.get("dev.snowdrop.Migrate").orElseThrow();
+            assertEquals(RecipeCatalog.Kind.YAML, migrate.kind());
+            assertEquals("META-INF/rewrite/recipes.yml", migrate.source());
+            assertEquals(List.of("dev.snowdrop.ChangeReadme", "org.openrewrite.text.ChangeText"), migrate.references());
+
+            // The referenced YAML recipes are needed, the Java recipes are loaded by the class loader
+            Set<String> needed = catalog.closure(List.of("dev.snowdrop.Migrate"), classLoader).orElseThrow().stream()
+                    .map(RecipeCatalog.Entry::name)
+                    .collect(Collectors.toSet());
+            assertEquals(Set.of("dev.snowdrop.Migrate", "dev.snowdrop.ChangeReadme"), needed);
+
+            assertTrue(catalog.closure(List.of("dev.snowdrop.Broken"), classLoader).isEmpty());
+        }
+    }
+
+    @Test
+    void shouldReuseTheCatalogOfTheSameJars() throws Exception {
+        Path jar = createJar();
+        Path catalogDir = tempDir.resolve("catalog");
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, getClass().getClassLoader())) {
+            RecipeCatalog built = RecipeCatalog.load(catalogDir, List.of(jar), classLoader);
+            RecipeCatalog read = RecipeCatalog.load(catalogDir, List.of(jar), classLoader);
+
+            try (Stream<Path> files = Files.list(catalogDir)) {
+                assertEquals(1, files.count());
+            }
+            assertEquals(List.copyOf(built.getEntries()), List.copyOf(read.getEntries()));
+        }
+    }
+
+    private Path createJar() throws Exception {
+        Path jar = tempDir.resolve("recipes.jar");
+        try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jarOut = new JarOutputStream(out)) {
+            jarOut.putNextEntry(new JarEntry("META-INF/rewrite/recipes.yml"));
+            jarOut.write(RECIPES.getBytes(StandardCharsets.UTF_8));
+            jarOut.closeEntry();
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,125 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaType;
+
+import javax.tools.ToolProvider;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class ShardedJavaParserTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldSplitFilesInContiguousShards() {
+        List<Path> files = IntStream.range(0, 10).mapToObj(i -> Paths.get("File" + i + ".java")).toList();
+
+        List<List<Path>> shards = ShardedJavaParser.shard(files, 3);
+
+        assertEquals(3, shards.size());
+        assertEquals(4, shards.get(0).size());
+        assertEquals(3, shards.get(1).size());
+        assertEquals(3, shards.get(2).size());
+        // Merging the shards gives back the files in their original order
+        assertEquals(files, shards.stream().flatMap(List::stream).toList());
+    }
+
+    @Test
+    void shouldNotCreateEmptyShards() {
+        List<Path> files = List.of(Paths.get("A.java"), Paths.get("B.java"));
+
+        assertEquals(2, ShardedJavaParser.shard(files, 4).size());
+    }
+
+    @Test
+    void shouldAttributeTheTypesOfAnotherShardWhenTheFilesAreNotCompiled() throws Exception {
+        List<Path> files = sources();
+
+        List<SourceFile> parsed = new ShardedJavaParser(JavaParser.fromJavaVersion(), 2, false)
+                .parse(files, dir, new InMemoryExecutionContext());
+
+        assertEquals(List.of(Paths.get("src/demo/A.java"), Paths.get("src/demo/B.java")),
+                parsed.stream().map(SourceFile::getSourcePath).toList());
+        assertHelloIsAttributed(parsed.get(1));
+    }
+
+    @Test
+    void shouldAttributeTheTypesOfAnotherShardUsingTheCompiledClasses() throws Exception {
+        List<Path> files = sources();
+        Path classes = Files.createDirectories(dir.resolve("classes"));
+        assertEquals(0, ToolProvider.getSystemJavaCompiler().run(null, null, null, "-d", classes.toString(),
+                files.getFirst().toString()));
+
+        ExecutionContext ctx = new InMemoryExecutionContext();
+        List<SourceFile> parsed = new ShardedJavaParser(JavaParser.fromJavaVersion().classpath(List.of(classes)), 2, true)
+                .parse(files, dir, ctx);
+
+        assertEquals(2, parsed.size());
+        assertHelloIsAttributed(parsed.get(1));
+    }
+
+    @Test
+    void shouldAttributeTheTypesOfTheContextFilesWithoutReturningThem() throws Exception {
+        List<Path> files = sources();
+
+        List<SourceFile> parsed = new ShardedJavaParser(JavaParser.fromJavaVersion(), 1, false)
+                .parse(List.of(files.get(1)), List.of(files.getFirst()), dir, new InMemoryExecutionContext());
+
+        assertEquals(List.of(Paths.get("src/demo/B.java")), parsed.stream().map(SourceFile::getSourcePath).toList());
+        assertHelloIsAttributed(parsed.getFirst());
+    }
+
+    private List<Path> sources() throws Exception {
+        Path pkg = Files.createDirectories(dir.resolve("src/demo"));
+        Path a = Files.writeString(pkg.resolve("A.java"), """
+                package demo;
+
+                public class A {
+                    public String hello() {
+                        return "hello";
+                    }
+                }
+                """);
+        Path b = Files.writeString(pkg.resolve("B.java"), """
+                package demo;
+
+                public class B {
+                    String greet(A a) {
+                        return a.hello();
+                    }
+                }
+                """);
+        return List.of(a, b);
+    }
+
+    private static void assertHelloIsAttributed(SourceFile b) {
+        List<JavaType.Method> methodTypes = new ArrayList<>();
+        new JavaIsoVisitor<List<JavaType.Method>>() {
+            @Override
+            public J.MethodInvocation visitMethodInvocation(J.MethodInvocation method, List<JavaType.Method> types) {
+                types.add(method.getMethodType());
+                return super.visitMethodInvocation(method, types);
+            }
+        }.visit(b, methodTypes);
+
+        assertEquals(1, methodTypes.size());
+        assertNotNull(methodTypes.getFirst(), "The method declared in another shard should be attributed");
+        assertEquals("demo.A", methodTypes.getFirst().getDeclaringType().getFullyQualifiedName());
+    }
+}
@@ -0,0 +1,53 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedJavaTypeCacheTest {
+
+    @Test
+    void shouldEvictTheLeastRecentlyUsedTypesBeyondTheBudget() {
+        SharedJavaTypeCache cache = new SharedJavaTypeCache(1024);
+        for (int i = 0; i < 100; i++) {
+            cache.put("com.acme.Type" + i, new Object());
+            // Keep the first type in use
+            assertNotNull(cache.get("com.acme.Type0"));
+        }
+
+        SharedJavaTypeCache.Stats stats = cache.getStats();
+        assertTrue(stats.estimatedBytes() <= 1024);
+        assertTrue(stats.evictions() > 0);
+        assertEquals(100 - stats.evictions(), stats.entries());
+        assertNotNull(cache.get("com.acme.Type0"));
+        assertNull(cache.get("com.acme.Type1"));
+    }
+
+    @Test
+    void shouldCountTheHitsAndMisses() {
+        SharedJavaTypeCache cache = new SharedJavaTypeCache(SharedJavaTypeCache.DEFAULT_BUDGET_BYTES);
+        cache.put("java.lang.String", new Object());
+
+        assertNotNull(cache.get("java.lang.String"));
+        assertNull(cache.get("java.lang.Integer"));
+
+        assertEquals(0.5, cache.getStats().hitRate());
+    }
+
+    @Test
+    void shouldEvictTheTypesReferencingTheProjectTypes() {
+        SharedJavaTypeCache cache = new SharedJavaTypeCache(SharedJavaTypeCache.DEFAULT_BUDGET_BYTES);
+        cache.put("java.util.List", new Object());
+        cache.put("com.acme.Foo", new Object());
+        cache.put("com.acme.Foo$Bar", new Object());
+        cache.put("java.util.List<com.acme.Foo>", new Object());
+        cache.put("com.acme.FooBar", new Object());
+
+        assertEquals(3, cache.evictReferencing(Set.of("com.acme.Foo")));
+        assertNotNull(cache.get("java.util.List"));
+        assertNotNull(cache.get("com.acme.FooBar"));
+        assertNull(cache.get("java.util.List<com.acme.Foo>"));
+    }
+}
@@ -0,0 +1,74 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Result;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static dev.snowdrop.rewrite.SourceFiles.text;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class SourceFileWriterTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void shouldWriteTheFilesAndApplyTheDeletes() throws Exception {
+        Files.writeString(root.resolve("obsolete.txt"), "before");
+        Files.createDirectories(root.resolve("src"));
+        Files.writeString(root.resolve("src").resolve("File0.txt"), "before");
+        List<Result> written = IntStream.range(0, 20)
+                .mapToObj(i -> new Result(text("src/File" + i + ".txt", "before"), text("src/File" + i + ".txt", "after" + i)))
+                .toList();
+        List<Result> deleted = List.of(new Result(text("obsolete.txt", "before"), null));
+
+        SourceFileWriter.Stats stats = new SourceFileWriter(root, new InMemoryExecutionContext(), 4)
+                .write(written, deleted);
+
+        assertEquals(20, stats.files());
+        assertEquals(1, stats.deleted());
+        assertFalse(Files.exists(root.resolve("obsolete.txt")));
+        for (int i = 0; i < 20; i++) {
+            assertEquals("after" + i, Files.readString(root.resolve("src").resolve("File" + i + ".txt")));
+        }
+        // No temporary file is left behind
+        try (Stream<Path> files = Files.list(root.resolve("src"))) {
+            assertTrue(files.noneMatch(file -> file.getFileName().toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void shouldCreateTheMissingFolders() throws Exception {
+        List<Result> written = List.of(new Result(null, text("a/b/c/New.txt", "generated")));
+
+        SourceFileWriter.Stats stats = new SourceFileWriter(root, new InMemoryExecutionContext(), 1)
+                .write(written, List.of());
+
+        assertEquals(1, stats.files());
+        assertEquals("generated".length(), stats.bytes());
+        assertEquals("generated", Files.readString(root.resolve("a/b/c/New.txt")));
+    }
+
+    @Test
+    void shouldCreateTheGeneratedFilesWithTheDefaultPermissions() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        // A file created by the process, following its umask
+        Path reference = Files.createFile(root.resolve("reference.txt"));
+        List<Result> written = List.of(new Result(null, text("New.txt", "generated")));
+
+        new SourceFileWriter(root, new InMemoryExecutionContext(), 1).write(written, List.of());
+
+        assertEquals(Files.getPosixFilePermissions(reference), Files.getPosixFilePermissions(root.resolve("New.txt")));
+    }
+}
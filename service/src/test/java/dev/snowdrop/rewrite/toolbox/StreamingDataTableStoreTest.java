@@ -0,0 +1,121 @@
+package dev.snowdrop.rewrite.toolbox;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.DataTable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Recipe;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingDataTableStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void shouldWriteTheRowsInBatchesAndReadThemLazily() throws Exception {
+        StreamingDataTableStore store = new StreamingDataTableStore(dir, 2, null);
+        Words words = new Words(Recipe.noop());
+        ExecutionContext ctx = new InMemoryExecutionContext();
+
+        store.insertRow(words, ctx, new Words.Row("foo", 3));
+        assertEquals(0, Files.list(dir).count(), "The rows should be buffered");
+        store.insertRow(words, ctx, new Words.Row("quux", 4));
+        store.insertRow(words, ctx, new Words.Row("ab", 2));
+        assertEquals(2, Files.readAllLines(Files.list(dir).findFirst().orElseThrow()).size());
+
+        try (Stream<Words.Row> rows = store.getRows(Words.class)) {
+            assertEquals(List.of(new Words.Row("foo", 3), new Words.Row("quux", 4), new Words.Row("ab", 2)), rows.toList());
+        }
+        assertEquals(3, store.getRowCount(words.getName()));
+        assertEquals(List.of(words), List.copyOf(store.getDataTables()));
+        store.close();
+    }
+
+    @Test
+    void shouldCountTheRowsInsertedByEachRecipe() {
+        StreamingDataTableStore store = new StreamingDataTableStore(dir, 10, null);
+        Words words = new Words(Recipe.noop());
+        ExecutionContext ctx = new InMemoryExecutionContext();
+
+        ctx.putMessage(ExecutionContext.CURRENT_RECIPE, Recipe.noop());
+        store.insertRow(words, ctx, new Words.Row("foo", 3));
+        store.insertRow(words, ctx, new Words.Row("ab", 2));
+
+        assertEquals(Map.of(Recipe.noop().getName(), 2L), store.getRowCountsByRecipe());
+        store.close();
+    }
+
+    @Test
+    void shouldWriteACompressedFileWithASchemaHeader() throws Exception {
+        StreamingDataTableStore store = new StreamingDataTableStore(dir, 2, null, true);
+        Words words = new Words(Recipe.noop());
+        ExecutionContext ctx = new InMemoryExecutionContext();
+
+        store.insertRow(words, ctx, new Words.Row("foo", 3));
+        store.insertRow(words, ctx, new Words.Row("quux", 4));
+        store.insertRow(words, ctx, new Words.Row("ab", 2));
+        store.close();
+
+        Path file = dir.resolve("Words.jsonl.gz");
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)),
+                StandardCharsets.UTF_8))) {
+            List<String> lines = reader.lines().toList();
+            assertEquals(4, lines.size(), "The schema header and a line per row should be written");
+            assertTrue(lines.get(0).contains("\"dataTable\":\"Words\""));
+            assertTrue(lines.get(0).contains("\"name\":\"word\""));
+        }
+        try (Stream<Words.Row> rows = store.getRows(Words.class)) {
+            assertEquals(List.of(new Words.Row("foo", 3), new Words.Row("quux", 4), new Words.Row("ab", 2)), rows.toList());
+        }
+    }
+
+    @Test
+    void shouldKeepTheRowsInMemoryWithoutFolder() {
+        StreamingDataTableStore store = new StreamingDataTableStore();
+        Words words = new Words(Recipe.noop());
+        ExecutionContext ctx = new InMemoryExecutionContext();
+
+        store.insertRow(words, ctx, new Words.Row("foo", 3));
+        store.insertRow(words, ctx, new Words.Row("ab", 2));
+        store.close();
+
+        try (Stream<Words.Row> rows = store.getRows(Words.class)) {
+            assertEquals(List.of(new Words.Row("foo", 3), new Words.Row("ab", 2)), rows.toList());
+        }
+    }
+
+    @Test
+    void shouldFailWhenTheRowsHaveBeenDeleted() throws Exception {
+        StreamingDataTableStore store = new StreamingDataTableStore(dir, 1, null);
+        Words words = new Words(Recipe.noop());
+        store.insertRow(words, new InMemoryExecutionContext(), new Words.Row("foo", 3));
+        store.close();
+
+        Files.delete(dir.resolve("Words.jsonl"));
+        assertThrows(UncheckedIOException.class, () -> store.getRows(Words.class));
+    }
+
+    static class Words extends DataTable<Words.Row> {
+
+        Words(Recipe recipe) {
+            super(recipe, "Words", "The words found.");
+        }
+
+        record Row(String word, int length) {
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package dev.snowdrop.rewrite.watch;
+
+import dev.snowdrop.rewrite.BaseTest;
+import dev.snowdrop.rewrite.ResultsContainer;
+import dev.snowdrop.rewrite.service.RewriteService;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.LargeSourceSet;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.TypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class ProjectWatcherTest extends BaseTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldOnlyParseAgainTheFilesChanged() throws Exception {
+        Path appPath = copy(Paths.get("../test-project/spring-boot-todo-app"), tempDir.resolve("app"));
+        cfg.setAppPath(appPath);
+        cfg.setFqNameRecipe("org.openrewrite.java.search.FindAnnotations");
+        cfg.setRecipeOptions(Set.of("annotationPattern=org.springframework.boot.autoconfigure.SpringBootApplication", "matchMetaAnnotations=false"));
+
+        RewriteService service = new RewriteService(cfg);
+        service.init();
+        int parsed = size(service.getSourceSet());
+        assertFalse(service.runScanner().getRefactoredInPlace().isEmpty());
+
+        ByteArrayOutputStream diffs = new ByteArrayOutputStream();
+        try (ProjectWatcher watcher = new ProjectWatcher(service, appPath, new PrintStream(diffs), ProjectWatcher.DEFAULT_QUIET_PERIOD_MS)) {
+            Path application = appPath.resolve("src/main/java/com/todo/app/AppApplication.java");
+            Files.writeString(application, Files.readString(application).replace("@SpringBootApplication", ""));
+
+            ResultsContainer results = watcher.runRecipes(Set.of(application));
+
+            assertNotNull(results);
+            assertTrue(results.getRefactoredInPlace().isEmpty());
+            assertEquals(parsed, size(service.getSourceSet()));
+            assertEquals("", diffs.toString());
+        }
+    }
+
+    @Test
+    void shouldAttributeTheFilesUsingATypeChanged() throws Exception {
+        Path appPath = copy(Paths.get("../test-project/spring-boot-todo-app"), tempDir.resolve("app"));
+        cfg.setAppPath(appPath);
+        cfg.setFqNameRecipe("org.openrewrite.java.search.FindAnnotations");
+        cfg.setRecipeOptions(Set.of("annotationPattern=org.springframework.boot.autoconfigure.SpringBootApplication", "matchMetaAnnotations=false"));
+
+        RewriteService service = new RewriteService(cfg);
+        service.init();
+        assertEquals("java.util.List", returnTypeOfGetAllTasks(service.getSourceSet()));
+
+        Path taskService = appPath.resolve("src/main/java/com/todo/app/service/TaskService.java");
+        Files.writeString(taskService, Files.readString(taskService)
+                .replace("public List<Task> getAllTasks();", "public java.util.Collection<Task> getAllTasks();"));
+        service.updateSourceSet(Set.of(taskService));
+
+        assertEquals("java.util.Collection", returnTypeOfGetAllTasks(service.getSourceSet()));
+    }
+
+    // The return type of the call of TaskService.getAllTasks() by the TaskController
+    private static String returnTypeOfGetAllTasks(LargeSourceSet sourceSet) {
+        AtomicReference<String> returnType = new AtomicReference<>();
+        sourceSet.edit(sourceFile -> {
+            if (sourceFile.getSourcePath().endsWith("TaskController.java")) {
+                new JavaIsoVisitor<Integer>() {
+                    @Override
+                    public J.MethodInvocation visitMethodInvocation(J.MethodInvocation method, Integer p) {
+                        if (method.getSimpleName().equals("getAllTasks") && method.getMethodType() != null) {
+                            returnType.set(TypeUtils.asFullyQualified(method.getMethodType().getReturnType()).getFullyQualifiedName());
+                        }
+                        return super.visitMethodInvocation(method, p);
+                    }
+                }.visit(sourceFile, 0);
+            }
+            return sourceFile;
+        });
+        return returnType.get();
+    }
+
+    private static int size(LargeSourceSet sourceSet) {
+        AtomicInteger size = new AtomicInteger();
+        sourceSet.edit(sourceFile -> {
+            size.incrementAndGet();
+            return sourceFile;
+        });
+        return size.get();
+    }
+
+    private static Path copy(Path source, Path target) throws Exception {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.toList()) {
+                Path copy = target.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.copy(file, copy);
+                }
+            }
+        }
+        return target;
+    }
+}